@@ -93,4 +93,16 @@ public final class ArrayValue implements Value {
 	public void set(Object value) {
 		values.add(value);
 	}
+
+	/**
+	 * Collect array item from lexer token, using token numeric value if the case.
+	 * 
+	 * @param token array item token.
+	 */
+	@Override
+	public void setToken(Token token) {
+		Type componentType = getType();
+		Object number = componentType instanceof Class ? token.asNumber((Class<?>) componentType) : null;
+		values.add(number != null ? number : token.value());
+	}
 }
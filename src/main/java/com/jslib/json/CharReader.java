@@ -1,13 +1,27 @@
 package com.jslib.json;
 
-import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 
 /**
  * JSON stream character reader with unread and error reporter. This helper class is used by {@link Lexer} to traverse JSON
- * characters stream, one character at a time. CharReader takes care to update {@link ErrorReporter} while retrieve characters.
+ * characters stream, one character at a time. CharReader takes care to update {@link ErrorReporter} while retrieve characters;
+ * for performance reasons error reporter is updated in bulk, when internal buffer is refilled or error reporter is requested.
+ * <p>
+ * Beside single character retrieval there are bulk scanning methods working directly on internal buffer:
+ * {@link #nextNonWhiteSpace()} skips white spaces, {@link #collectUnquoted(LexerValueBuilder)} and
+ * {@link #collectQuoted(LexerValueBuilder)} copy characters run up to the next delimiter. Most string values have no escape
+ * sequences and are copied in a single bulk operation. White space classification, see {@link #isWhitespace(char)}, uses a bit mask for ASCII characters
+ * and delegates {@link Character#isWhitespace(char)} only for non ASCII characters.
+ * <p>
+ * Character reader has its own internal buffer, so that wrapped characters stream is not decorated with a buffered reader.
+ * Internal buffer is preserved by {@link #reset(Reader)} allowing character reader reuse for multiple parsing processes.
+ * <p>
+ * Beside characters stream, this reader accepts in memory sources. A characters array is read in place, that is, it
+ * replaces internal buffer for the current parsing process. A characters sequence, e.g. a string, is read directly, with no
+ * intermediate reader, by bulk transfers into internal buffer.
  * 
  * @author Iulian Rotaru
  */
@@ -15,17 +29,90 @@ final class CharReader implements Closeable {
 	/** Mark value for undefined character. */
 	private static final char UNDEFINED = 0;
 
-	/** Wrapped JSON characters stream. */
+	/** Internal buffer size, in characters. */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Bit mask for ASCII characters considered white space by {@link Character#isWhitespace(char)}. */
+	private static final long WHITESPACE_MASK = (1L << '\t') | (1L << '\n') | (1L << 0x0B) | (1L << '\f') | (1L << '\r') | (1L << 0x1C) | (1L << 0x1D) | (1L << 0x1E) | (1L << 0x1F) | (1L << ' ');
+
+	/** ASCII characters that end a not quoted value run, see {@link #collectUnquoted(LexerValueBuilder)}. */
+	private static final boolean[] UNQUOTED_DELIMITERS = new boolean[128];
+
+	/** ASCII characters that end a quoted string run, see {@link #collectQuoted(LexerValueBuilder)}. */
+	private static final boolean[] QUOTED_DELIMITERS = new boolean[128];
+	static {
+		for (char c = 0; c < UNQUOTED_DELIMITERS.length; ++c) {
+			UNQUOTED_DELIMITERS[c] = isWhitespace(c);
+		}
+		for (char c : new char[] { UNDEFINED, '{', '}', '[', ']', ':', ',', '"', '\\' }) {
+			UNQUOTED_DELIMITERS[c] = true;
+		}
+		for (char c : new char[] { UNDEFINED, '"', '\\' }) {
+			QUOTED_DELIMITERS[c] = true;
+		}
+	}
+
+	/** Value is expected by {@link #skipValue()}, that is, previous character was colon. */
+	private static final int EXPECT_VALUE = 1;
+	/** Array item is expected by {@link #skipValue()}, that is, previous character was left square or comma in array. */
+	private static final int EXPECT_ITEM = 2;
+	/** Property name is expected by {@link #skipValue()}, that is, previous character was left brace or comma in object. */
+	private static final int EXPECT_NAME = 3;
+	/** Colon is expected by {@link #skipValue()}, that is, previous element was a property name. */
+	private static final int EXPECT_COLON = 4;
+	/** Comma or container end is expected by {@link #skipValue()}, that is, previous element was a value. */
+	private static final int EXPECT_SEPARATOR = 5;
+
+	/** Wrapped JSON characters stream, null if source is in memory. */
 	private Reader reader;
 
+	/** Characters sequence source or null if source is not a characters sequence. */
+	private CharSequence sequence;
+
+	/** Index of the next character to transfer from {@link #sequence} into internal buffer. */
+	private int sequenceIndex;
+
+	/** Characters sequence source end index, exclusive. */
+	private int sequenceEnd;
+
+	/** Buffer owned by this character reader, preserved between parsing processes. */
+	private final char[] ownBuffer = new char[BUFFER_SIZE];
+
+	/** Characters buffer, usually {@link #ownBuffer} but replaced by caller array when read in place. */
+	private char[] buffer = ownBuffer;
+
+	/** Index of the next character to read from internal buffer. */
+	private int position;
+
+	/** Number of valid characters from internal buffer. */
+	private int limit;
+
+	/** Containers stack used by {@link #skipValue()}, true for array and false for object. */
+	private boolean[] containers = new boolean[32];
+
+	/** Index of the first buffer character not yet stored into {@link #errorReporter}. */
+	private int reported;
+
 	/** Last unread character or undefined if {@link #unread(char)} was not called. */
 	private char unreadChar = UNDEFINED;
 
 	/** True if characters stream reached its end. */
 	private boolean eof;
 
-	/** Error reporter. */
-	private ErrorReporter errorReporter;
+	/** Error reporter owned by this character reader. */
+	private final ErrorReporter errorReporter = new ErrorReporter();
+
+	/** Target for characters read by {@link #captureValue(StringBuilder)}, null if not capturing. */
+	private StringBuilder capture;
+
+	/** Number of characters from buffers filled before current one, see {@link #consumed()}. */
+	private long passed;
+
+	/** Index of the first source character into buffer, not zero only for characters array read in place. */
+	private int origin;
+
+	/** Maximum number of characters consumed from source, preserved between parsing processes. */
+	private long maxChars = Long.MAX_VALUE;
 
 	/**
 	 * Construct character reader instance.
@@ -33,8 +120,113 @@ final class CharReader implements Closeable {
 	 * @param reader wrapped JSON characters stream.
 	 */
 	CharReader(Reader reader) {
-		this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
-		this.errorReporter = ErrorReporter.getInstance();
+		reset(reader);
+	}
+
+	/**
+	 * Prepare this character reader for a new characters stream. Takes care to reset internal state but preserve allocated
+	 * buffer. Null <code>reader</code> is accepted in order to release reference to previous characters stream.
+	 * 
+	 * @param reader wrapped JSON characters stream, possible null.
+	 */
+	void reset(Reader reader) {
+		this.reader = reader;
+		this.sequence = null;
+		this.buffer = ownBuffer;
+		this.position = 0;
+		this.limit = 0;
+		this.reported = 0;
+		this.unreadChar = UNDEFINED;
+		this.eof = false;
+		this.errorReporter.reset();
+		this.passed = 0;
+		this.origin = 0;
+	}
+
+	/**
+	 * Prepare this character reader for a characters sequence source, e.g. a string. Sequence characters are transferred in
+	 * bulk into internal buffer as needed.
+	 * 
+	 * @param sequence characters sequence source.
+	 */
+	void reset(CharSequence sequence) {
+		reset((Reader) null);
+		this.sequence = sequence;
+		this.sequenceIndex = 0;
+		this.sequenceEnd = sequence.length();
+	}
+
+	/**
+	 * Prepare this character reader for a characters array source. Given array is read in place, with no copy; it is caller
+	 * responsibility to not change array content while parsing.
+	 * 
+	 * @param chars characters array source,
+	 * @param offset index of the first character to read,
+	 * @param length number of characters to read.
+	 */
+	void reset(char[] chars, int offset, int length) {
+		reset((Reader) null);
+		if (length > maxChars) {
+			throw new JsonLimitException(JsonLimitException.Limit.CHARS, maxChars);
+		}
+		this.buffer = chars;
+		this.position = offset;
+		this.limit = offset + length;
+		this.reported = offset;
+		this.origin = offset;
+	}
+
+	/**
+	 * Set maximum number of characters consumed from source. Limit is checked when internal buffer is filled, so that
+	 * excess is detected before characters are processed; characters array read in place is checked on reset.
+	 * 
+	 * @param maxChars maximum number of characters.
+	 */
+	void maxChars(long maxChars) {
+		this.maxChars = maxChars;
+	}
+
+	/**
+	 * Get the number of characters consumed from source since last reset.
+	 * 
+	 * @return consumed characters count.
+	 */
+	long consumed() {
+		return passed + position - origin;
+	}
+
+	/**
+	 * Get error reporter updated by this character reader. Takes care to store into error reporter all characters read
+	 * so far.
+	 * 
+	 * @return error reporter instance.
+	 */
+	ErrorReporter errorReporter() {
+		report();
+		return errorReporter;
+	}
+
+	/** Store into error reporter buffer characters read since last report. */
+	private void report() {
+		if (capture != null) {
+			capture.append(buffer, reported, position - reported);
+		}
+		errorReporter.store(buffer, reported, position - reported);
+		reported = position;
+	}
+
+	/**
+	 * Test if character is white space. This predicate has the same semantic as {@link Character#isWhitespace(char)} but
+	 * is optimized for ASCII characters.
+	 * 
+	 * @param c character to test.
+	 * @return true if character is white space.
+	 */
+	static boolean isWhitespace(char c) {
+		if (c <= ' ') {
+			return ((1L << c) & WHITESPACE_MASK) != 0;
+		}
+		return c >= 0x80 && Character.isWhitespace(c);
 	}
 
 	/**
@@ -50,14 +242,424 @@ final class CharReader implements Closeable {
 			return c;
 		}
 
-		int i = reader.read();
-		if (i == -1) {
+		if (position == limit && !fill()) {
 			eof = true;
 			return UNDEFINED;
 		}
-		char c = (char) i;
-		errorReporter.store(c);
-		return c;
+		return buffer[position++];
+	}
+
+	/**
+	 * Retrieve next not white space character or undefined if EOF reached. White spaces are skipped in bulk, directly on
+	 * internal buffer.
+	 * 
+	 * @return next not white space character or undefined if EOF reached.
+	 * @throws IOException if read operation fails.
+	 */
+	char nextNonWhiteSpace() throws IOException {
+		if (unreadChar != UNDEFINED) {
+			char c = unreadChar;
+			this.unreadChar = UNDEFINED;
+			if (!isWhitespace(c)) {
+				return c;
+			}
+		}
+
+		for (;;) {
+			if (position == limit && !fill()) {
+				eof = true;
+				return UNDEFINED;
+			}
+			final char[] buffer = this.buffer;
+			final int limit = this.limit;
+			int position = this.position;
+			while (position < limit) {
+				char c = buffer[position++];
+				if (!isWhitespace(c)) {
+					this.position = position;
+					return c;
+				}
+			}
+			this.position = position;
+		}
+	}
+
+	/**
+	 * Skip next JSON value, be it object, array, quoted string or not quoted primitive, without decoding it. Leading white
+	 * spaces are skipped too. On return, next character from this reader is the one following skipped value.
+	 * <p>
+	 * Objects and arrays are skipped structurally: there are no tokens and no strings created, this method tracks only
+	 * containers nesting, string boundaries and the next expected element. Anyway, it validates containers are properly
+	 * closed, that values are not missing and that commas and colons separate them, and reports these errors with the
+	 * same messages as {@link Parser}. As with parser, a trailing comma is accepted before the end of a not empty
+	 * container.
+	 * 
+	 * @throws IOException if read operation fails.
+	 * @throws JsonParserException if there is no value to skip or value is not well formed.
+	 */
+	void skipValue() throws IOException {
+		char c = nextNonWhiteSpace();
+		if (c == UNDEFINED) {
+			throw new JsonParserException("Cannot skip value because of premature stream end.");
+		}
+		if (c == '}' || c == ']' || c == ',' || c == ':') {
+			throw unexpected(EXPECT_VALUE, c, false);
+		}
+		if (c != '"' && c != '{' && c != '[') {
+			// not quoted primitive; leave the delimiter in stream
+			for (;;) {
+				if (position == limit && !fill()) {
+					eof = true;
+					return;
+				}
+				for (; position < limit; ++position) {
+					c = buffer[position];
+					if (c == ',' || c == '}' || c == ']' || c == ':' || isWhitespace(c)) {
+						return;
+					}
+				}
+			}
+		}
+
+		int depth = 0;
+		int expect = EXPECT_SEPARATOR;
+		boolean string = false;
+		boolean escape = false;
+		boolean unquoted = false;
+		if (c == '"') {
+			string = true;
+		} else {
+			expect = pushContainer(depth++, c == '[');
+		}
+
+		for (;;) {
+			if (position == limit && !fill()) {
+				throw new JsonParserException("Cannot skip value because of premature stream end.");
+			}
+			final char[] buffer = this.buffer;
+			final int limit = this.limit;
+			int position = this.position;
+			while (position < limit) {
+				c = buffer[position++];
+				if (string) {
+					if (escape) {
+						escape = false;
+					} else if (c == '\\') {
+						escape = true;
+					} else if (c == '"') {
+						string = false;
+						if (depth == 0) {
+							this.position = position;
+							return;
+						}
+					}
+					continue;
+				}
+				if (isWhitespace(c)) {
+					unquoted = false;
+					continue;
+				}
+
+				switch (c) {
+				case '{':
+				case '[':
+					unquoted = false;
+					if (expect != EXPECT_VALUE && expect != EXPECT_ITEM) {
+						this.position = position;
+						throw unexpected(expect, c, containers[depth - 1]);
+					}
+					expect = pushContainer(depth++, c == '[');
+					break;
+
+				case '}':
+				case ']':
+					unquoted = false;
+					boolean array = containers[depth - 1];
+					if (array != (c == ']') || expect == EXPECT_VALUE || expect == EXPECT_COLON) {
+						this.position = position;
+						throw unexpected(expect, c, array);
+					}
+					if (--depth == 0) {
+						this.position = position;
+						return;
+					}
+					expect = EXPECT_SEPARATOR;
+					break;
+
+				case ',':
+					unquoted = false;
+					if (expect != EXPECT_SEPARATOR) {
+						this.position = position;
+						throw unexpected(expect, c, containers[depth - 1]);
+					}
+					expect = containers[depth - 1] ? EXPECT_ITEM : EXPECT_NAME;
+					break;
+
+				case ':':
+					unquoted = false;
+					if (expect != EXPECT_COLON) {
+						this.position = position;
+						throw unexpected(expect, c, containers[depth - 1]);
+					}
+					expect = EXPECT_VALUE;
+					break;
+
+				default:
+					if (unquoted) {
+						// not quoted name or primitive continues
+						break;
+					}
+					if (expect == EXPECT_COLON || expect == EXPECT_SEPARATOR) {
+						this.position = position;
+						throw unexpected(expect, c, containers[depth - 1]);
+					}
+					expect = expect == EXPECT_NAME ? EXPECT_COLON : EXPECT_SEPARATOR;
+					if (c == '"') {
+						string = true;
+					} else {
+						unquoted = true;
+					}
+				}
+			}
+			this.position = position;
+		}
+	}
+
+	/**
+	 * Skip next JSON value, see {@link #skipValue()}, and append its characters to given builder. Value characters are
+	 * collected in bulk, on the same path as error reporter, see {@link #report()}; leading white spaces may be included.
+	 * 
+	 * @param builder target for value characters.
+	 * @throws IOException if read operation fails.
+	 * @throws JsonParserException if there is no value to skip or value is not well formed.
+	 */
+	void captureValue(StringBuilder builder) throws IOException {
+		report();
+		if (unreadChar != UNDEFINED) {
+			builder.append(unreadChar);
+		}
+		capture = builder;
+		try {
+			skipValue();
+			report();
+		} finally {
+			capture = null;
+		}
+	}
+
+	/**
+	 * Push container on containers stack used by {@link #skipValue()}, growing stack if necessary.
+	 * 
+	 * @param depth current nesting depth, that is, stack size,
+	 * @param array true if container is array.
+	 * @return expected next element: item for array or name for object.
+	 */
+	private int pushContainer(int depth, boolean array) {
+		if (depth == containers.length) {
+			containers = Arrays.copyOf(containers, depth * 2);
+		}
+		containers[depth] = array;
+		return array ? EXPECT_ITEM : EXPECT_NAME;
+	}
+
+	/**
+	 * Create exception for character found where a different element was expected. Messages are the same as those
+	 * reported by {@link Parser} for the same errors.
+	 * 
+	 * @param expect expected element,
+	 * @param c unexpected character,
+	 * @param array true if current container is an array.
+	 * @return parser exception.
+	 */
+	private static JsonParserException unexpected(int expect, char c, boolean array) {
+		switch (expect) {
+		case EXPECT_ITEM:
+			return new JsonParserException("Expect ITEM, LEFT_BRACE or LEFT_SQUARE but got %s.", tokenName(c));
+
+		case EXPECT_NAME:
+			return new JsonParserException("Invalid token |%s| while waiting for a name.", tokenName(c));
+
+		case EXPECT_COLON:
+			return new JsonParserException("Expected COLON but got |%s|.", tokenName(c));
+
+		case EXPECT_SEPARATOR:
+			return new JsonParserException("Expected %s but got %s. Maybe missing comma.", array ? "RIGHT_SQUARE" : "RIGHT_BRACE", tokenName(c));
+
+		default:
+			return new JsonParserException("Expect VALUE, LEFT_BRACE or LEFT_SQUARE but got %s.", tokenName(c));
+		}
+	}
+
+	/**
+	 * Get token name for given character, used for error messages. Characters that are not structural start a value.
+	 * 
+	 * @param c character.
+	 * @return token name.
+	 */
+	private static String tokenName(char c) {
+		switch (c) {
+		case '{':
+			return "LEFT_BRACE";
+		case '}':
+			return "RIGHT_BRACE";
+		case '[':
+			return "LEFT_SQUARE";
+		case ']':
+			return "RIGHT_SQUARE";
+		case ',':
+			return "COMMA";
+		case ':':
+			return "COLON";
+		default:
+			return "VALUE";
+		}
+	}
+
+	/**
+	 * Append to value builder the run of characters up to, and excluding, the next delimiter. A delimiter is a white space,
+	 * a structural character, quotation mark, reverse solidus or undefined character. On return, next character from this
+	 * reader is the delimiter or EOF. Copy stops early, after the character exceeding <code>maxLength</code>, if value is
+	 * too long.
+	 * 
+	 * @param builder value builder to append characters to,
+	 * @param maxLength maximum value length, see {@link JsonLimits#maxStringLength()}.
+	 * @throws IOException if read operation fails.
+	 */
+	void collectUnquoted(LexerValueBuilder builder, int maxLength) throws IOException {
+		collect(builder, maxLength, UNQUOTED_DELIMITERS, true);
+	}
+
+	/**
+	 * Append to value builder the run of string characters up to, and excluding, the next quotation mark, reverse solidus
+	 * or undefined character. On return, next character from this reader is the delimiter or EOF; it is caller
+	 * responsibility to process it, that is, to end the string or to decode escape sequence. Copy stops early, after the
+	 * character exceeding <code>maxLength</code>, if string is too long.
+	 * 
+	 * @param builder value builder to append characters to,
+	 * @param maxLength maximum string length, see {@link JsonLimits#maxStringLength()}.
+	 * @throws IOException if read operation fails.
+	 */
+	void collectQuoted(LexerValueBuilder builder, int maxLength) throws IOException {
+		collect(builder, maxLength, QUOTED_DELIMITERS, false);
+	}
+
+	/**
+	 * Append to value builder the run of characters up to, and excluding, the next delimiter. Characters are copied in bulk,
+	 * directly from internal buffer. If there is an unread character this method does nothing, leaving caller to process it.
+	 * <p>
+	 * Value builder never grows beyond <code>maxLength + 1</code> characters: when that length is reached copy stops and
+	 * caller is expected to reject the value, without reading the rest of a huge value into memory.
+	 * 
+	 * @param builder value builder to append characters to,
+	 * @param maxLength maximum value length,
+	 * @param delimiters ASCII delimiters table,
+	 * @param whitespaceDelimiter true if non ASCII white space is delimiter too.
+	 * @throws IOException if read operation fails.
+	 */
+	private void collect(LexerValueBuilder builder, int maxLength, boolean[] delimiters, boolean whitespaceDelimiter) throws IOException {
+		if (unreadChar != UNDEFINED) {
+			return;
+		}
+		for (;;) {
+			if (position == limit && !fill()) {
+				eof = true;
+				return;
+			}
+			final char[] buffer = this.buffer;
+			final int limit = this.limit;
+			final int start = this.position;
+			// scan no more than one character past length limit
+			final int room = maxLength - builder.length();
+			final int end = room < limit - start ? start + room + 1 : limit;
+			int position = start;
+			for (; position < end; ++position) {
+				char c = buffer[position];
+				if (c < 0x80 ? delimiters[c] : whitespaceDelimiter && Character.isWhitespace(c)) {
+					break;
+				}
+			}
+			if (position > start) {
+				builder.append(buffer, start, position - start);
+			}
+			this.position = position;
+			if (position < limit) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Fill internal buffer from wrapped characters stream.
+	 * 
+	 * @return true if buffer has characters available or false if characters stream reached its end.
+	 * @throws IOException if read operation fails.
+	 */
+	private boolean fill() throws IOException {
+		if (eof) {
+			return false;
+		}
+		if (sequence != null) {
+			return fillFromSequence();
+		}
+		if (reader == null) {
+			// in memory array source is entirely available into buffer
+			return false;
+		}
+		report();
+		int count;
+		do {
+			count = reader.read(buffer, 0, buffer.length);
+		} while (count == 0);
+		if (count == -1) {
+			return false;
+		}
+		checkMaxChars(count);
+		passed += limit;
+		position = 0;
+		limit = count;
+		reported = 0;
+		return true;
+	}
+
+	/**
+	 * Fill internal buffer from characters sequence source.
+	 * 
+	 * @return true if buffer has characters available or false if characters sequence was entirely read.
+	 */
+	private boolean fillFromSequence() {
+		int count = Math.min(buffer.length, sequenceEnd - sequenceIndex);
+		if (count == 0) {
+			return false;
+		}
+		checkMaxChars(count);
+		report();
+		if (sequence instanceof String) {
+			((String) sequence).getChars(sequenceIndex, sequenceIndex + count, buffer, 0);
+		} else if (sequence instanceof StringBuilder) {
+			((StringBuilder) sequence).getChars(sequenceIndex, sequenceIndex + count, buffer, 0);
+		} else {
+			for (int i = 0; i < count; ++i) {
+				buffer[i] = sequence.charAt(sequenceIndex + i);
+			}
+		}
+		sequenceIndex += count;
+		passed += limit;
+		position = 0;
+		limit = count;
+		reported = 0;
+		return true;
+	}
+
+	/**
+	 * Check that filling internal buffer with given number of characters does not exceed characters limit.
+	 * 
+	 * @param count number of characters about to be stored into internal buffer.
+	 * @throws JsonLimitException if characters limit is exceeded.
+	 */
+	private void checkMaxChars(int count) {
+		if (passed + limit + count > maxChars) {
+			throw new JsonLimitException(JsonLimitException.Limit.CHARS, maxChars);
+		}
 	}
 
 	/**
@@ -81,17 +683,23 @@ final class CharReader implements Closeable {
 	 * @throws IOException if read operation fails.
 	 */
 	public char require(char c) throws IOException {
-		while (Character.isWhitespace(c)) {
-			c = require();
+		if (!isWhitespace(c)) {
+			return c;
+		}
+		c = nextNonWhiteSpace();
+		if (c == UNDEFINED) {
+			throw new JsonParserException("Cannot retrieve required character because of premature stream end.");
 		}
 		return c;
 	}
 
+	/**
+	 * Skip white spaces so that next character from this reader is not white space or EOF.
+	 * 
+	 * @throws IOException if read operation fails.
+	 */
 	public void skipWhiteSpaces() throws IOException {
-		char c = 0;
-		do {
-			c = next();
-		} while (Character.isWhitespace(c));
+		char c = nextNonWhiteSpace();
 		if (c != UNDEFINED) {
 			unread(c);
 		}
@@ -118,6 +726,8 @@ final class CharReader implements Closeable {
 
 	/** Close this character reader. */
 	public void close() throws IOException {
-		reader.close();
+		if (reader != null) {
+			reader.close();
+		}
 	}
 }
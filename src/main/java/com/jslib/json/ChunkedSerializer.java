@@ -0,0 +1,451 @@
+package com.jslib.json;
+
+import static com.jslib.util.Params.notNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.jslib.util.Types;
+
+/**
+ * Pull style serializer that yields JSON bytes in chunks, on demand. Value graph traversal is suspended between chunks:
+ * arrays, maps and objects are not serialized recursively but pushed on an explicit stack of frames, and a frame is
+ * advanced only while the chunk requested by consumer is not filled. A consumer that does not pull the next chunk stops
+ * the traversal, so a slow network peer applies back pressure all the way to the value graph, and memory usage depends
+ * on chunk size and nesting depth, not on value size.
+ *
+ * <pre>
+ * ChunkedSerializer serializer = new ChunkedSerializer(order, 4096);
+ * ByteBuffer chunk;
+ * while((chunk = serializer.nextChunk()) != null) {
+ *   channel.write(chunk);
+ * }
+ * </pre>
+ * <p>
+ * Output is identical to {@link Serializer#serializeToString(Object)} encoded with requested charset; values
+ * classification, string escaping, circular dependencies handling and life cycle hooks are those of {@link Serializer}.
+ * Every chunk has at most chunk size bytes; all chunks but the last are filled, less the bytes of a multi-byte character
+ * that does not fit and is moved to the next chunk. This class is also a {@link ReadableByteChannel} that fills caller
+ * buffers.
+ * <p>
+ * Value graph is not copied; it is caller responsibility to not change it till last chunk is pulled. Chunked serializer
+ * is not thread safe and serializes a single value.
+ *
+ * @author Iulian Rotaru
+ */
+public final class ChunkedSerializer implements ReadableByteChannel
+{
+  /** Default chunk size, in bytes. */
+  private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+  /** Minimum chunk size, large enough to hold any encoded character. */
+  private static final int MIN_CHUNK_SIZE = 16;
+
+  /** Size of chunks created by {@link #nextChunk()}, in bytes. */
+  private final int chunkSize;
+
+  /** Characters encoder, configured to report malformed characters, e.g. not paired surrogates. */
+  private final CharsetEncoder encoder;
+
+  /** Serialized characters not yet encoded. */
+  private final PendingChars pending = new PendingChars();
+
+  /** Value graph traversal. */
+  private final Traversal traversal;
+
+  /** True after traversal completes and all characters are encoded, while encoder is flushing. */
+  private boolean flushing;
+
+  /** True if all bytes were produced. */
+  private boolean done;
+
+  /** False after {@link #close()}. */
+  private boolean open = true;
+
+  /**
+   * Create chunked serializer with default chunk size and UTF-8 encoding.
+   *
+   * @param value primitive or aggregated value, null accepted.
+   */
+  public ChunkedSerializer(Object value)
+  {
+    this(value, DEFAULT_CHUNK_SIZE, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Create chunked serializer with UTF-8 encoding.
+   *
+   * @param value primitive or aggregated value, null accepted,
+   * @param chunkSize size of chunks created by {@link #nextChunk()}, in bytes.
+   * @throws IllegalArgumentException if chunk size is less than 16 bytes.
+   */
+  public ChunkedSerializer(Object value, int chunkSize) throws IllegalArgumentException
+  {
+    this(value, chunkSize, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Create chunked serializer for output encoded with given charset.
+   *
+   * @param value primitive or aggregated value, null accepted,
+   * @param chunkSize size of chunks created by {@link #nextChunk()}, in bytes,
+   * @param charset output charset.
+   * @throws IllegalArgumentException if chunk size is less than 16 bytes or charset is null.
+   */
+  public ChunkedSerializer(Object value, int chunkSize, Charset charset) throws IllegalArgumentException
+  {
+    notNull(charset, "Charset");
+    if(chunkSize < MIN_CHUNK_SIZE) {
+      throw new IllegalArgumentException(String.format("Chunk size |%d| is less than minimum |%d|.", chunkSize, MIN_CHUNK_SIZE));
+    }
+    this.chunkSize = chunkSize;
+    this.encoder = charset.newEncoder();
+    this.traversal = new Traversal(value);
+  }
+
+  /**
+   * Serialize and encode the next chunk. Returned buffer is newly created, ready to be read, and is owned by caller.
+   *
+   * @return next chunk or null if all chunks were returned.
+   * @throws ClosedChannelException if this serializer was closed.
+   * @throws IOException if serialized characters cannot be encoded with output charset.
+   */
+  public ByteBuffer nextChunk() throws IOException
+  {
+    ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+    if(read(chunk) == -1) {
+      return null;
+    }
+    chunk.flip();
+    return chunk;
+  }
+
+  /**
+   * Serialize and encode bytes into given buffer, advancing traversal only till buffer remaining space is filled.
+   *
+   * @param target target buffer.
+   * @return number of bytes written into target buffer, possibly zero, or -1 if all bytes were produced.
+   * @throws ClosedChannelException if this serializer was closed.
+   * @throws IOException if serialized characters cannot be encoded with output charset.
+   */
+  @Override
+  public int read(ByteBuffer target) throws IOException
+  {
+    if(!open) {
+      throw new ClosedChannelException();
+    }
+    if(done) {
+      return -1;
+    }
+    int start = target.position();
+
+    if(!flushing) {
+      // an encoded character has at least one byte so pending characters count is an upper bound for target space
+      while(pending.length < target.remaining() && !traversal.isComplete()) {
+        traversal.step();
+      }
+      CharBuffer chars = CharBuffer.wrap(pending.chars, 0, pending.length);
+      CoderResult result = encoder.encode(chars, target, traversal.isComplete());
+      pending.consume(chars.position());
+      if(result.isError()) {
+        result.throwException();
+      }
+      flushing = traversal.isComplete() && result.isUnderflow();
+    }
+    if(flushing) {
+      done = encoder.flush(target).isUnderflow();
+    }
+
+    int count = target.position() - start;
+    return count == 0 && done ? -1 : count;
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return open;
+  }
+
+  /** Close this serializer and drop suspended traversal. Not yet pulled chunks are discarded. */
+  @Override
+  public void close()
+  {
+    open = false;
+    traversal.reset();
+  }
+
+  /**
+   * Serializer extension that replaces arrays, maps and objects recursion with frames pushed on stack. Every call to
+   * {@link #step()} advances top frame by a single item, entry or field; values classification and scalars writing are
+   * inherited from {@link Serializer}.
+   *
+   * @author Iulian Rotaru
+   */
+  private final class Traversal extends Serializer
+  {
+    /** Root value. */
+    private final Object value;
+
+    /** Suspended containers, innermost on top. */
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    /** True after root value serialization was started. */
+    private boolean started;
+
+    /**
+     * Create traversal for root value. Serialized characters are written to pending characters.
+     *
+     * @param value root value.
+     */
+    Traversal(Object value)
+    {
+      this.value = value;
+      open(pending);
+    }
+
+    /**
+     * Test if root value was serialized entirely.
+     *
+     * @return true if traversal is complete.
+     */
+    boolean isComplete()
+    {
+      return started && frames.isEmpty();
+    }
+
+    /**
+     * Start root value serialization or advance top frame, then move serialized characters to pending characters.
+     *
+     * @throws IOException never thrown since pending characters are stored in memory.
+     */
+    void step() throws IOException
+    {
+      if(!started) {
+        started = true;
+        serialize(value);
+      }
+      else if(!frames.peek().step()) {
+        frames.pop();
+        exit();
+      }
+      flush();
+    }
+
+    @Override
+    public void reset()
+    {
+      super.reset();
+      frames.clear();
+    }
+
+    @Override
+    protected void serializeArray(Object value) throws IOException
+    {
+      write('[');
+      push(value, new ArrayFrame(Types.asIterable(value).iterator()));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void serializeMap(Object value) throws IOException
+    {
+      write('{');
+      push(value, new MapFrame(((Map<Object, Object>)value).entrySet().iterator()));
+    }
+
+    @Override
+    protected void serializeObject(Object value) throws IOException
+    {
+      write('{');
+      push(value, new ObjectFrame(value, serializableFields(value.getClass()).iterator()));
+    }
+
+    /**
+     * Push frame for container value. Container stays on circular dependencies stack till frame completes.
+     *
+     * @param value container value,
+     * @param frame container frame.
+     */
+    private void push(Object value, Frame frame)
+    {
+      enter(value);
+      frames.push(frame);
+    }
+
+    /**
+     * Suspended container serialization.
+     *
+     * @author Iulian Rotaru
+     */
+    private abstract class Frame
+    {
+      /** Number of items, entries or fields already started. */
+      int index;
+
+      /**
+       * Serialize next child or closing character. Child serialization may push its own frame.
+       *
+       * @return false if closing character was written and frame is complete.
+       * @throws IOException never thrown since pending characters are stored in memory.
+       */
+      abstract boolean step() throws IOException;
+    }
+
+    /**
+     * Array or collection items.
+     *
+     * @author Iulian Rotaru
+     */
+    private final class ArrayFrame extends Frame
+    {
+      private final Iterator<?> items;
+
+      ArrayFrame(Iterator<?> items)
+      {
+        this.items = items;
+      }
+
+      @Override
+      boolean step() throws IOException
+      {
+        if(!items.hasNext()) {
+          write(']');
+          return false;
+        }
+        if(index++ > 0) {
+          write(',');
+        }
+        serialize(items.next());
+        return true;
+      }
+    }
+
+    /**
+     * Map entries. Entry key may be a container on its turn, so entry value is serialized on the step that follows key
+     * completion.
+     *
+     * @author Iulian Rotaru
+     */
+    private final class MapFrame extends Frame
+    {
+      private final Iterator<Map.Entry<Object, Object>> entries;
+
+      /** Entry whose key was serialized and value not yet, or null. */
+      private Map.Entry<Object, Object> entry;
+
+      MapFrame(Iterator<Map.Entry<Object, Object>> entries)
+      {
+        this.entries = entries;
+      }
+
+      @Override
+      boolean step() throws IOException
+      {
+        if(entry != null) {
+          write(':');
+          Object value = entry.getValue();
+          entry = null;
+          serialize(value);
+          return true;
+        }
+        if(!entries.hasNext()) {
+          write('}');
+          return false;
+        }
+        if(index++ > 0) {
+          write(',');
+        }
+        entry = entries.next();
+        serialize(entry.getKey());
+        return true;
+      }
+    }
+
+    /**
+     * Object fields, in {@link Serializer#serializableFields(Class)} order.
+     *
+     * @author Iulian Rotaru
+     */
+    private final class ObjectFrame extends Frame
+    {
+      private final Object value;
+      private final Iterator<Field> fields;
+
+      ObjectFrame(Object value, Iterator<Field> fields)
+      {
+        this.value = value;
+        this.fields = fields;
+      }
+
+      @Override
+      boolean step() throws IOException
+      {
+        if(!fields.hasNext()) {
+          write('}');
+          return false;
+        }
+        if(index++ > 0) {
+          write(',');
+        }
+        serializeField(value, fields.next());
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Serialized characters waiting to be encoded. Consumed characters are removed from buffer head.
+   *
+   * @author Iulian Rotaru
+   */
+  private static final class PendingChars extends Writer
+  {
+    private char[] chars = new char[1024];
+    private int length;
+
+    @Override
+    public void write(char[] buffer, int offset, int count)
+    {
+      if(chars.length - length < count) {
+        chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + count));
+      }
+      System.arraycopy(buffer, offset, chars, length, count);
+      length += count;
+    }
+
+    /**
+     * Remove consumed characters from buffer head.
+     *
+     * @param count number of consumed characters.
+     */
+    void consume(int count)
+    {
+      length -= count;
+      System.arraycopy(chars, count, chars, 0, length);
+    }
+
+    @Override
+    public void flush()
+    {
+    }
+
+    @Override
+    public void close()
+    {
+    }
+  }
+}
@@ -3,6 +3,8 @@ package com.jslib.json;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
 
 import com.jslib.converter.Converter;
 import com.jslib.util.Classes;
@@ -23,12 +25,37 @@ public final class CollectionValue implements Value
   /** The actual type of collection parameterized type. */
   private final Type type;
 
+  /**
+   * Existing random access list whose items are overwritten in place, by index, or null. Not null only when parsing into
+   * an existing list, see {@link #CollectionValue(Converter, Type, Collection)}.
+   */
+  private final List<Object> list;
+
+  /** Number of items collected so far. */
+  private int index;
+
   /**
    * Construct parser collection with elements of given type.
    * 
    * @param type collection elements type.
    */
   public CollectionValue(Converter converter, Type type)
+  {
+    this(converter, type, null);
+  }
+
+  /**
+   * Construct parser collection that parses into an existing collection. Random access lists are updated in place:
+   * existing items are overwritten by index and reused as targets for nested objects, collections and maps, and surplus
+   * items are removed at the end. Other collections are cleared and refilled. If given instance is null a new
+   * collection is created.
+   * 
+   * @param converter value converter,
+   * @param type parameterized collection type,
+   * @param instance existing collection, null accepted.
+   */
+  @SuppressWarnings("unchecked")
+  CollectionValue(Converter converter, Type type, Collection<Object> instance)
   {
     if(!(type instanceof ParameterizedType)) {
       throw new JsonParserException("JSON parser mandates generic collections usage but got |%s|.", type);
@@ -36,22 +63,50 @@ public final class CollectionValue implements Value
 
     this.converter = converter;
     ParameterizedType parameterizedType = (ParameterizedType)type;
-    this.instance = Classes.newCollection(parameterizedType.getRawType());
     this.type = parameterizedType.getActualTypeArguments()[0];
+
+    if(instance == null) {
+      this.instance = Classes.newCollection(parameterizedType.getRawType());
+      this.list = null;
+    }
+    else {
+      this.instance = instance;
+      if(instance instanceof List && instance instanceof RandomAccess) {
+        this.list = (List<Object>)instance;
+      }
+      else {
+        this.list = null;
+        instance.clear();
+      }
+    }
   }
 
   /**
    * Get collection instance. Since this method is invoked after {@link #set(Object)} returned collection is initialized
-   * from JSON characters stream.
+   * from JSON characters stream. When updating an existing list, items past the last parsed item are removed.
    * 
    * @return collection instance.
    */
   @Override
   public Object instance()
   {
+    if(list != null && index < list.size()) {
+      list.subList(index, list.size()).clear();
+    }
     return instance;
   }
 
+  /**
+   * Get existing list item at the index of the next item, when updating an existing list.
+   * 
+   * @return existing item or null.
+   */
+  @Override
+  public Object reusableInstance()
+  {
+    return list != null && index < list.size() ? list.get(index) : null;
+  }
+
   /**
    * Get the actual type of this collection parameterized type.
    * 
@@ -72,16 +127,48 @@ public final class CollectionValue implements Value
   public void set(Object value)
   {
     if(value == null) {
-      instance.add(null);
+      add(null);
     }
     else if(value instanceof String) {
       if(!(type instanceof Class)) {
         throw new IllegalStateException(String.format("Expect primitive value as String but got type |%s| is parameterized.", type));
       }
-      instance.add(converter.asObject((String)value, (Class<?>)type));
+      add(converter.asObject((String)value, (Class<?>)type));
+    }
+    else {
+      add(value);
+    }
+  }
+
+  /**
+   * Collect item from lexer token, using token numeric value if the case.
+   * 
+   * @param token collection item token.
+   */
+  @Override
+  public void setToken(Token token)
+  {
+    Object number = type instanceof Class ? token.asNumber((Class<?>)type) : null;
+    if(number != null) {
+      add(number);
+      return;
+    }
+    set(token.value());
+  }
+
+  /**
+   * Add item to collection or overwrite existing list item at current index.
+   * 
+   * @param item collection item.
+   */
+  private void add(Object item)
+  {
+    if(list != null && index < list.size()) {
+      list.set(index, item);
     }
     else {
-      instance.add(value);
+      instance.add(item);
     }
+    ++index;
   }
 }
@@ -0,0 +1,226 @@
+package com.jslib.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Demand driven iterator over elements of a JSON array or of a newline delimited JSON stream. Elements are parsed one at
+ * a time, on {@link #hasNext()}, and lexer does not advance past the element returned by {@link #next()}; a consumer
+ * that stops calling {@link #next()} stops reading from characters stream. There is no buffering of elements, so memory
+ * usage does not depend on the number of elements.
+ *
+ * <pre>
+ * try (ElementIterator&lt;Order&gt; orders = json.parseElements(reader, Order.class)) {
+ *   while(orders.hasNext()) {
+ *     process(orders.next());
+ *   }
+ * }
+ * </pre>
+ * <p>
+ * In array mode characters stream should contain a single JSON array; in lines mode it should contain JSON values
+ * separated by white spaces, usually new lines. Elements are bound with the same rules as {@link Parser}. Since
+ * {@link Iterator} methods cannot throw checked exceptions, IO errors are reported as {@link UncheckedIOException}.
+ * <p>
+ * Iterator instance is not thread safe. Closing iterator closes characters stream.
+ *
+ * @author Iulian Rotaru
+ * @param <T> element type.
+ */
+public final class ElementIterator<T> implements Iterator<T>, Closeable
+{
+  /** Characters stream, closed by {@link #close()}. */
+  private final Reader reader;
+
+  /** Elements type. */
+  private final Type type;
+
+  /** True for JSON array and false for newline delimited JSON values. */
+  private final boolean array;
+
+  /** Parser used to bind elements, sharing its lexer with this iterator. */
+  private final ElementParser parser;
+
+  /** Element parsed by {@link #hasNext()} and not yet returned by {@link #next()}. */
+  private T element;
+
+  /** True if {@link #element} is parsed and not yet returned. */
+  private boolean ready;
+
+  /** True if array start was read. Unused for lines mode. */
+  private boolean started;
+
+  /** True if there are no more elements. */
+  private boolean done;
+
+  /**
+   * Create iterator over characters stream elements.
+   *
+   * @param reader characters stream,
+   * @param type elements type,
+   * @param array true for JSON array and false for newline delimited JSON values,
+   * @param limits resource limits applied to every element; characters limit applies to the entire stream.
+   */
+  ElementIterator(Reader reader, Type type, boolean array, JsonLimits limits)
+  {
+    this.reader = reader;
+    this.type = type;
+    this.array = array;
+    this.parser = new ElementParser(reader, limits);
+  }
+
+  /**
+   * Test if there are more elements, parsing next element if not already parsed.
+   *
+   * @return true if there are more elements.
+   * @throws JsonParserException if JSON stream is not well formed or element cannot be bound.
+   * @throws UncheckedIOException if reading from characters stream fails.
+   */
+  @Override
+  public boolean hasNext() throws JsonParserException, UncheckedIOException
+  {
+    if(ready) {
+      return true;
+    }
+    if(done) {
+      return false;
+    }
+    try {
+      ready = array ? parser.nextItem() : parser.nextLine();
+      done = !ready;
+      return ready;
+    }
+    catch(IOException e) {
+      done = true;
+      throw new UncheckedIOException(e);
+    }
+    catch(JsonParserException e) {
+      done = true;
+      throw e.attach(parser.errorReporter());
+    }
+    catch(Throwable t) {
+      done = true;
+      throw new JsonParserException(t).attach(parser.errorReporter());
+    }
+  }
+
+  /**
+   * Get next element.
+   *
+   * @return next element.
+   * @throws NoSuchElementException if there are no more elements.
+   * @throws JsonParserException if JSON stream is not well formed or element cannot be bound.
+   * @throws UncheckedIOException if reading from characters stream fails.
+   */
+  @Override
+  public T next() throws NoSuchElementException, JsonParserException, UncheckedIOException
+  {
+    if(!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    ready = false;
+    T element = this.element;
+    this.element = null;
+    return element;
+  }
+
+  /**
+   * Close characters stream. Remaining elements are not read.
+   *
+   * @throws IOException if closing characters stream fails.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    done = true;
+    ready = false;
+    element = null;
+    reader.close();
+  }
+
+  /**
+   * Parser extension that parses elements one by one, using parser value binding.
+   *
+   * @author Iulian Rotaru
+   */
+  private final class ElementParser extends Parser
+  {
+    /**
+     * Create parser with its own lexer bound to characters stream.
+     *
+     * @param reader characters stream,
+     * @param limits resource limits.
+     */
+    ElementParser(Reader reader, JsonLimits limits)
+    {
+      setLimits(limits);
+      this.lexer = new Lexer(reader);
+      this.lexer.limits(limits);
+    }
+
+    /**
+     * Parse next array item, if any.
+     *
+     * @return true if an item was parsed or false if array end was reached.
+     * @throws IOException if reading from characters stream fails.
+     * @throws JsonParserException if JSON stream is not well formed.
+     */
+    boolean nextItem() throws IOException, JsonParserException
+    {
+      Token token = lexer.read();
+      if(!started) {
+        if(token.ordinal() != Token.LEFT_SQUARE) {
+          throw new JsonParserException("Expected LEFT_SQUARE but got %s.", token);
+        }
+        started = true;
+        token = lexer.read();
+        if(token.ordinal() == Token.RIGHT_SQUARE) {
+          return false;
+        }
+      }
+      else {
+        if(token.ordinal() == Token.RIGHT_SQUARE) {
+          return false;
+        }
+        if(token.ordinal() != Token.COMMA) {
+          throw new JsonParserException("Expected RIGHT_SQUARE but got %s. Maybe missing comma.", token);
+        }
+        token = lexer.read();
+      }
+      lexer.unread(token);
+      element = _parse(type);
+      return true;
+    }
+
+    /**
+     * Parse next newline delimited value, if any.
+     *
+     * @return true if a value was parsed or false if characters stream end was reached.
+     * @throws IOException if reading from characters stream fails.
+     * @throws JsonParserException if JSON stream is not well formed.
+     */
+    boolean nextLine() throws IOException, JsonParserException
+    {
+      lexer.peek();
+      if(lexer.eof()) {
+        return false;
+      }
+      element = _parse(type);
+      return true;
+    }
+
+    /**
+     * Get lexer error reporter.
+     *
+     * @return error reporter.
+     */
+    ErrorReporter errorReporter()
+    {
+      return lexer.errorReporter();
+    }
+  }
+}
@@ -2,27 +2,14 @@ package com.jslib.json;
 
 /**
  * Store information about JSON parsing process like index of character where error occurred.
+ * <p>
+ * Every {@link CharReader} owns its error reporter instance, updated while retrieving characters. Error reporter is not
+ * stored in thread local storage; when parsing fails {@link Parser} attaches error reporter information to
+ * {@link JsonParserException}.
  * 
  * @author Iulian Rotaru
  */
 public final class ErrorReporter {
-	/** Thread storage for error reporter instances. */
-	private static ThreadLocal<ErrorReporter> tls = new ThreadLocal<ErrorReporter>();
-
-	/**
-	 * Get error reporter instance. Every thread keeps its own error reporter instance created lazily.
-	 * 
-	 * @return thread error reporter instance.
-	 */
-	public static synchronized ErrorReporter getInstance() {
-		ErrorReporter instance = tls.get();
-		if (instance == null) {
-			instance = new ErrorReporter();
-			tls.set(instance);
-		}
-		return instance;
-	}
-
 	/** Circular buffer size. */
 	private static final int BUFFER_SIZE = 64;
 
@@ -33,16 +20,15 @@ public final class ErrorReporter {
 	private int index;
 
 	/**
-	 * Reset error reporter internal state. Since error reporter instance is global per thread needs to be reseted every time a
-	 * new parsing process starts.
+	 * Reset error reporter internal state. Since error reporter instance is reused with its character reader needs to be reseted
+	 * every time a new parsing process starts.
 	 */
 	public void reset() {
 		index = 0;
 	}
 
 	/**
-	 * Update error reporter circular buffer with character from JSON characters stream. This method is called by
-	 * {@link CharReader#next()}.
+	 * Update error reporter circular buffer with character from JSON characters stream.
 	 * 
 	 * @param c character from JSON stream.
 	 */
@@ -51,6 +37,24 @@ public final class ErrorReporter {
 		index++;
 	}
 
+	/**
+	 * Update error reporter circular buffer with a range of characters from JSON characters stream. Only the last characters
+	 * that fit circular buffer are actually copied but character index is updated for the entire range. This method is called
+	 * by {@link CharReader} before discarding its internal buffer content.
+	 * 
+	 * @param chars characters buffer,
+	 * @param offset index of the first character to store,
+	 * @param count number of characters to store.
+	 */
+	void store(char[] chars, int offset, int count) {
+		int skip = count > BUFFER_SIZE ? count - BUFFER_SIZE : 0;
+		index += skip;
+		for (int i = offset + skip, end = offset + count; i < end; ++i) {
+			buffer[index % BUFFER_SIZE] = chars[i];
+			index++;
+		}
+	}
+
 	/**
 	 * Get character index where exception occurred.
 	 * 
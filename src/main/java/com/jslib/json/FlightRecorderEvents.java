@@ -0,0 +1,278 @@
+package com.jslib.json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.lang.BugError;
+
+/**
+ * Instrumentation that emits JDK Flight Recorder events for parse, stringify and type reflective scan operations, so
+ * that JSON cost can be correlated with GC and CPU activity from recordings, without attaching a profiler.
+ *
+ * <pre>
+ * JsonInstrumentation.install(new FlightRecorderEvents());
+ * </pre>
+ * <p>
+ * Emitted events, all in <code>JSON</code> category and without stack traces:
+ * <ul>
+ * <li><code>com.jslib.json.JsonParse</code> - type, chars, tokens, objects, arrays, depth, elapsed, error,
+ * <li><code>com.jslib.json.JsonSerialize</code> - type, chars, objects, arrays, depth, elapsed, error,
+ * <li><code>com.jslib.json.JsonReflectionScan</code> - type, fields, elapsed.
+ * </ul>
+ * Error field is the class name of the exception that aborted operation, null on success.
+ * <p>
+ * This library runs on Java 8 so event classes cannot extend <code>jdk.jfr.Event</code>; event types are defined at
+ * runtime with <code>jdk.jfr.EventFactory</code> and accessed through method handles. Events are committed after
+ * operation completes, with operation elapsed time in <code>elapsed</code> field; built-in event duration is zero and
+ * recording thresholds do not apply. While no recording enables an event type, callbacks cost a single check and do not
+ * allocate. Use {@link #isSupported()} to test if running JVM provides Flight Recorder API.
+ *
+ * @author Iulian Rotaru
+ */
+public final class FlightRecorderEvents extends JsonInstrumentation
+{
+  private static final Log log = LogFactory.getLog(FlightRecorderEvents.class);
+
+  /** Flight Recorder classes, null if running JVM does not provide Flight Recorder API. */
+  private static final Class<?> NAME;
+  private static final Class<?> LABEL;
+  private static final Class<?> DESCRIPTION;
+  private static final Class<?> CATEGORY;
+  private static final Class<?> STACK_TRACE;
+  private static final Class<?> TIMESPAN;
+
+  /** Flight Recorder API constructors and methods. */
+  private static final MethodHandle ANNOTATION_ELEMENT;
+  private static final MethodHandle VALUE_DESCRIPTOR;
+  private static final MethodHandle CREATE_FACTORY;
+  private static final MethodHandle GET_EVENT_TYPE;
+  private static final MethodHandle IS_ENABLED;
+  private static final MethodHandle NEW_EVENT;
+  private static final MethodHandle SET;
+  private static final MethodHandle COMMIT;
+
+  static {
+    Class<?>[] classes = new Class<?>[6];
+    MethodHandle[] handles = new MethodHandle[8];
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      classes[0] = Class.forName("jdk.jfr.Name");
+      classes[1] = Class.forName("jdk.jfr.Label");
+      classes[2] = Class.forName("jdk.jfr.Description");
+      classes[3] = Class.forName("jdk.jfr.Category");
+      classes[4] = Class.forName("jdk.jfr.StackTrace");
+      classes[5] = Class.forName("jdk.jfr.Timespan");
+
+      Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+      Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+      Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+      Class<?> eventType = Class.forName("jdk.jfr.EventType");
+      Class<?> event = Class.forName("jdk.jfr.Event");
+
+      handles[0] = lookup.findConstructor(annotationElement, MethodType.methodType(void.class, Class.class, Object.class));
+      handles[1] = lookup.findConstructor(valueDescriptor, MethodType.methodType(void.class, Class.class, String.class, List.class));
+      handles[2] = lookup.findStatic(eventFactory, "create", MethodType.methodType(eventFactory, List.class, List.class));
+      handles[3] = lookup.findVirtual(eventFactory, "getEventType", MethodType.methodType(eventType));
+      handles[4] = lookup.findVirtual(eventType, "isEnabled", MethodType.methodType(boolean.class));
+      handles[5] = lookup.findVirtual(eventFactory, "newEvent", MethodType.methodType(event));
+      handles[6] = lookup.findVirtual(event, "set", MethodType.methodType(void.class, int.class, Object.class));
+      handles[7] = lookup.findVirtual(event, "commit", MethodType.methodType(void.class));
+    }
+    catch(Throwable t) {
+      log.debug("Flight Recorder API not available: {exception}", t);
+      Arrays.fill(classes, null);
+      Arrays.fill(handles, null);
+    }
+
+    NAME = classes[0];
+    LABEL = classes[1];
+    DESCRIPTION = classes[2];
+    CATEGORY = classes[3];
+    STACK_TRACE = classes[4];
+    TIMESPAN = classes[5];
+
+    ANNOTATION_ELEMENT = handles[0];
+    VALUE_DESCRIPTOR = handles[1];
+    CREATE_FACTORY = handles[2];
+    GET_EVENT_TYPE = handles[3];
+    IS_ENABLED = handles[4];
+    NEW_EVENT = handles[5];
+    SET = handles[6];
+    COMMIT = handles[7];
+  }
+
+  /**
+   * Test if running JVM provides Flight Recorder API.
+   *
+   * @return true if Flight Recorder events are supported.
+   */
+  public static boolean isSupported()
+  {
+    return COMMIT != null;
+  }
+
+  private final EventType parseEvent;
+  private final EventType serializeEvent;
+  private final EventType scanEvent;
+
+  /**
+   * Register Flight Recorder event types.
+   *
+   * @throws UnsupportedOperationException if running JVM does not provide Flight Recorder API.
+   * @throws BugError if event types registration fails.
+   */
+  public FlightRecorderEvents()
+  {
+    if(!isSupported()) {
+      throw new UnsupportedOperationException("Flight Recorder API not available on running JVM.");
+    }
+    try {
+      parseEvent = new EventType("com.jslib.json.JsonParse", "JSON Parse", "JSON parse operation.", //
+          field(String.class, "type", "Type"), //
+          field(long.class, "chars", "Characters"), //
+          field(int.class, "tokens", "Tokens"), //
+          field(int.class, "objects", "Objects"), //
+          field(int.class, "arrays", "Arrays"), //
+          field(int.class, "depth", "Depth"), //
+          elapsed(), //
+          field(String.class, "error", "Error"));
+      serializeEvent = new EventType("com.jslib.json.JsonSerialize", "JSON Serialize", "JSON stringify operation.", //
+          field(String.class, "type", "Type"), //
+          field(long.class, "chars", "Characters"), //
+          field(int.class, "objects", "Objects"), //
+          field(int.class, "arrays", "Arrays"), //
+          field(int.class, "depth", "Depth"), //
+          elapsed(), //
+          field(String.class, "error", "Error"));
+      scanEvent = new EventType("com.jslib.json.JsonReflectionScan", "JSON Reflection Scan", "Type reflective scan for parsing.", //
+          field(String.class, "type", "Type"), //
+          field(int.class, "fields", "Fields"), //
+          elapsed());
+    }
+    catch(Throwable t) {
+      throw new BugError("Flight Recorder event types registration fail: %s", t);
+    }
+  }
+
+  @Override
+  public void parsed(Type type, JsonMetrics metrics)
+  {
+    if(parseEvent.isEnabled()) {
+      parseEvent.commit(TypeCounters.typeName(type), metrics.chars, metrics.tokens, metrics.objects, metrics.arrays, metrics.depth, metrics.nanos, error(metrics));
+    }
+  }
+
+  @Override
+  public void serialized(Type type, JsonMetrics metrics)
+  {
+    if(serializeEvent.isEnabled()) {
+      serializeEvent.commit(TypeCounters.typeName(type), metrics.chars, metrics.objects, metrics.arrays, metrics.depth, metrics.nanos, error(metrics));
+    }
+  }
+
+  @Override
+  public void scanned(Type type, int fields, long nanos)
+  {
+    if(scanEvent.isEnabled()) {
+      scanEvent.commit(TypeCounters.typeName(type), fields, nanos);
+    }
+  }
+
+  private static String error(JsonMetrics metrics)
+  {
+    return metrics.error != null ? metrics.error.getClass().getName() : null;
+  }
+
+  /**
+   * Create event field descriptor.
+   *
+   * @param type field type, primitive or string,
+   * @param name field name,
+   * @param label field label.
+   * @return Flight Recorder value descriptor.
+   * @throws Throwable if descriptor creation fails.
+   */
+  private static Object field(Class<?> type, String name, String label) throws Throwable
+  {
+    return VALUE_DESCRIPTOR.invoke(type, name, Arrays.asList(ANNOTATION_ELEMENT.invoke(LABEL, label)));
+  }
+
+  /**
+   * Create operation elapsed time field descriptor. Field name is not <code>duration</code> since that is the name of
+   * Flight Recorder built-in field.
+   *
+   * @return Flight Recorder value descriptor.
+   * @throws Throwable if descriptor creation fails.
+   */
+  private static Object elapsed() throws Throwable
+  {
+    return VALUE_DESCRIPTOR.invoke(long.class, "elapsed", Arrays.asList(ANNOTATION_ELEMENT.invoke(LABEL, "Elapsed"), ANNOTATION_ELEMENT.invoke(TIMESPAN, "NANOSECONDS")));
+  }
+
+  /**
+   * Event type defined at runtime. Event factory is kept reachable for instrumentation lifetime, by bound event
+   * creation handle, since Flight Recorder unregisters event types whose factory is garbage collected.
+   *
+   * @author Iulian Rotaru
+   */
+  private static final class EventType
+  {
+    private final MethodHandle isEnabled;
+    private final MethodHandle newEvent;
+
+    public EventType(String name, String label, String description, Object... fields) throws Throwable
+    {
+      List<Object> annotations = new ArrayList<>();
+      annotations.add(ANNOTATION_ELEMENT.invoke(NAME, name));
+      annotations.add(ANNOTATION_ELEMENT.invoke(LABEL, label));
+      annotations.add(ANNOTATION_ELEMENT.invoke(DESCRIPTION, description));
+      annotations.add(ANNOTATION_ELEMENT.invoke(CATEGORY, new String[] { "JSON" }));
+      annotations.add(ANNOTATION_ELEMENT.invoke(STACK_TRACE, false));
+
+      Object factory = CREATE_FACTORY.invoke(annotations, Arrays.asList(fields));
+      isEnabled = IS_ENABLED.bindTo(GET_EVENT_TYPE.invoke(factory));
+      newEvent = NEW_EVENT.bindTo(factory);
+    }
+
+    /**
+     * Test if event type is enabled by a running recording.
+     *
+     * @return true if event type is enabled.
+     */
+    public boolean isEnabled()
+    {
+      try {
+        return (boolean)isEnabled.invoke();
+      }
+      catch(Throwable t) {
+        throw new BugError("Flight Recorder event type check fail: %s", t);
+      }
+    }
+
+    /**
+     * Create event, set its fields in declaration order and commit it.
+     *
+     * @param values field values, in declaration order.
+     */
+    public void commit(Object... values)
+    {
+      try {
+        Object event = newEvent.invoke();
+        for(int i = 0; i < values.length; ++i) {
+          SET.invoke(event, i, values[i]);
+        }
+        COMMIT.invoke(event);
+      }
+      catch(Throwable t) {
+        throw new BugError("Flight Recorder event commit fail: %s", t);
+      }
+    }
+  }
+}
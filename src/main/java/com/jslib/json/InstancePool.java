@@ -0,0 +1,73 @@
+package com.jslib.json;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Lock free pool of reusable instances, used by {@link JsonImpl} facade to recycle parsers and serializers with their
+ * internal buffers. Pool is striped: it has a fixed number of slots and every thread uses the slot selected by its
+ * thread ID. Acquire takes the instance from slot, if any, or creates a new one; release puts instance back only if
+ * slot is empty, otherwise instance is left to garbage collector.
+ * <p>
+ * This pool does not use thread local storage and does not hold monitors, so it is safe with any number of short lived
+ * threads: pooled instances count is bounded by slots count, not by threads count.
+ *
+ * @author Iulian Rotaru
+ * @param <T> pooled instances type.
+ */
+final class InstancePool<T>
+{
+  /** Pool slots, every slot storing at most one idle instance. */
+  private final AtomicReferenceArray<T> slots;
+
+  /** Mask used to map thread ID to slot index. Slots count is always a power of two. */
+  private final int mask;
+
+  /** Factory for new instances, used when selected slot is empty. */
+  private final Supplier<T> factory;
+
+  /**
+   * Create instances pool with slots count twice the number of available processors, rounded up to a power of two.
+   *
+   * @param factory factory for new instances.
+   */
+  InstancePool(Supplier<T> factory)
+  {
+    int slotsCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(slotsCount);
+    this.mask = slotsCount - 1;
+    this.factory = factory;
+  }
+
+  /**
+   * Take instance from the slot of current thread or create a new instance if slot is empty.
+   *
+   * @return instance ready to use.
+   */
+  T acquire()
+  {
+    T instance = slots.getAndSet(index(), null);
+    return instance != null ? instance : factory.get();
+  }
+
+  /**
+   * Put instance back to the slot of current thread. It is caller responsibility to reset instance state before
+   * releasing it. If slot is not empty instance is discarded.
+   *
+   * @param instance instance to return to pool.
+   */
+  void release(T instance)
+  {
+    slots.compareAndSet(index(), null, instance);
+  }
+
+  /**
+   * Get slot index for current thread.
+   *
+   * @return slot index.
+   */
+  private int index()
+  {
+    return (int)Thread.currentThread().getId() & mask;
+  }
+}
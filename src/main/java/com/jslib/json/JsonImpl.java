@@ -4,12 +4,17 @@ import static com.jslib.util.Params.notNull;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Type;
 
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import com.jslib.api.json.Json;
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
 
 /**
  * JSON serialization / deserialization facade. This facade just delegates {@link Serializer} and {@link Parser}. It
@@ -19,14 +24,147 @@ import com.jslib.api.json.Json;
  * <p>
  * Parsing of not homogeneous arrays is supported but caller should supplies the type of every array item, see
  * {@link #parse(Reader, Type[])}.
+ * <p>
+ * Parser and serializer instances, together with their internal buffers, are recycled between calls using lock free
+ * pools shared by all facade instances.
+ * <p>
+ * Parsing resource limits, see {@link JsonLimits}, and non ASCII characters escaping on serialization are configured
+ * per facade instance; default facade has no limits and writes non ASCII characters as they are.
+ * <p>
+ * Runtime statistics MBean, see {@link JsonStatsMXBean}, is not registered by default. It is registered on facade
+ * class initialization if system property {@value #MBEAN_PROPERTY} is true, or explicitly by
+ * {@link #registerMBean()}.
  * 
  * @author Iulian Rotaru
  */
 public final class JsonImpl implements Json
 {
+  private static final Log log = LogFactory.getLog(JsonImpl.class);
+
+  /** System property that, if true, registers statistics MBean on facade class initialization. */
+  public static final String MBEAN_PROPERTY = "com.jslib.json.mbean";
+
   /** Empty array constant. */
   private static final Object[] EMPTY_ARRAY = new Object[0];
 
+  /** Pool of reusable parser instances. */
+  private static final InstancePool<Parser> parsers = new InstancePool<>(Parser::new);
+
+  /** Pool of reusable serializer instances. */
+  private static final InstancePool<Serializer> serializers = new InstancePool<>(Serializer::new);
+
+  /** Pool of reusable serializer instances escaping non ASCII characters. */
+  private static final InstancePool<Serializer> asciiSerializers = new InstancePool<>(() -> new Serializer(false, true));
+
+  /** Registered statistics MBean or null if not registered. Guarded by class monitor. */
+  private static JsonStats stats;
+
+  static {
+    if(Boolean.getBoolean(MBEAN_PROPERTY)) {
+      try {
+        registerMBean();
+      }
+      catch(IllegalStateException e) {
+        log.error("Statistics MBean not registered: {exception}", e);
+      }
+    }
+  }
+
+  /** Resource limits enforced by parsers used by this facade instance. */
+  private final JsonLimits limits;
+
+  /** Serializers used by this facade instance escape non ASCII characters from string values. */
+  private final boolean escapeNonAscii;
+
+  /** Create JSON facade with no parsing resource limits. */
+  public JsonImpl()
+  {
+    this(JsonLimits.NONE, false);
+  }
+
+  /**
+   * Create JSON facade enforcing given resource limits on all parse operations, see {@link JsonLimits}.
+   * 
+   * @param limits parsing resource limits.
+   * @throws IllegalArgumentException if limits argument is null.
+   */
+  public JsonImpl(JsonLimits limits)
+  {
+    this(limits, false);
+  }
+
+  /**
+   * Create JSON facade enforcing given resource limits on all parse operations and, optionally, escaping non ASCII
+   * characters on all serialize operations, see {@link Serializer#Serializer(boolean, boolean)}. Escaping is useful
+   * when JSON is written to a channel that is not UTF-8 safe.
+   * 
+   * @param limits parsing resource limits,
+   * @param escapeNonAscii true to escape non ASCII characters from serialized string values.
+   * @throws IllegalArgumentException if limits argument is null.
+   */
+  public JsonImpl(JsonLimits limits, boolean escapeNonAscii)
+  {
+    notNull(limits, "Limits");
+    this.limits = limits;
+    this.escapeNonAscii = escapeNonAscii;
+  }
+
+  /**
+   * Register statistics MBean on platform MBean server, under {@link JsonStats#OBJECT_NAME}, and install its
+   * {@link TypeCounters} instrumentation. If an instrumentation is already installed, counters are chained after it.
+   * This method does nothing if MBean is already registered.
+   *
+   * @return registered statistics MBean.
+   * @throws IllegalStateException if MBean registration fails, e.g. name already registered by another class loader.
+   */
+  public static synchronized JsonStats registerMBean()
+  {
+    if(stats != null) {
+      return stats;
+    }
+    JsonStats mbean = new JsonStats(new TypeCounters());
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, new ObjectName(JsonStats.OBJECT_NAME));
+    }
+    catch(JMException e) {
+      throw new IllegalStateException(String.format("Fail to register MBean |%s|: %s", JsonStats.OBJECT_NAME, e), e);
+    }
+
+    JsonInstrumentation installed = JsonInstrumentation.installed();
+    JsonInstrumentation.install(installed != null ? JsonInstrumentation.chain(installed, mbean.counters()) : mbean.counters());
+    stats = mbean;
+    return mbean;
+  }
+
+  /**
+   * Unregister statistics MBean and uninstall its instrumentation, restoring instrumentation installed before
+   * registration, if not replaced meanwhile. This method does nothing if MBean is not registered.
+   */
+  public static synchronized void unregisterMBean()
+  {
+    if(stats == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(JsonStats.OBJECT_NAME));
+    }
+    catch(InstanceNotFoundException ignore) {
+      // MBean was unregistered directly from MBean server
+    }
+    catch(JMException e) {
+      log.error("Fail to unregister statistics MBean: {exception}", e);
+    }
+
+    JsonInstrumentation installed = JsonInstrumentation.installed();
+    if(installed == stats.counters()) {
+      JsonInstrumentation.install(null);
+    }
+    else if(installed instanceof JsonInstrumentation.Chain && ((JsonInstrumentation.Chain)installed).second == stats.counters()) {
+      JsonInstrumentation.install(((JsonInstrumentation.Chain)installed).first);
+    }
+    stats = null;
+  }
+
   /**
    * Serialize value to JSON character stream. Both primitive and aggregated values are allowed. If value is not
    * primitive all fields are scanned reflectively, less static and transient. If a field is aggregated on its turn,
@@ -44,8 +182,13 @@ public final class JsonImpl implements Json
   public void stringify(Writer writer, Object value) throws IOException
   {
     notNull(writer, "JSON stream writer");
-    Serializer serializer = new Serializer();
-    serializer.serialize(writer, value);
+    Serializer serializer = acquireSerializer();
+    try {
+      serializer.serialize(writer, value);
+    }
+    finally {
+      release(serializer);
+    }
   }
 
   /**
@@ -69,8 +212,13 @@ public final class JsonImpl implements Json
   public <T> T parse(Reader reader, Type type) throws IllegalArgumentException, IOException, JsonParserException, ClassCastException
   {
     notNull(reader, "JSON stream reader");
-    Parser parser = new Parser();
-    return parser.parse(reader, type);
+    Parser parser = acquireParser();
+    try {
+      return parser.parse(reader, type);
+    }
+    finally {
+      release(parser);
+    }
   }
 
   /**
@@ -98,12 +246,18 @@ public final class JsonImpl implements Json
     if(types.length == 0) {
       return EMPTY_ARRAY;
     }
-    Parser parser = new Parser();
-    return parser.parse(reader, types);
+    Parser parser = acquireParser();
+    try {
+      return parser.parse(reader, types);
+    }
+    finally {
+      release(parser);
+    }
   }
 
   /**
-   * Handy method for value object serialization to JSON formatted string.
+   * Handy method for value object serialization to JSON formatted string. Serializer collects characters into its own
+   * reusable buffer and creates the string with a single copy, see {@link Serializer#serializeToString(Object)}.
    * 
    * @param value primitive or aggregate value, null accepted.
    * @return value JSON string representation.
@@ -111,14 +265,12 @@ public final class JsonImpl implements Json
   @Override
   public String stringify(Object value)
   {
-    try (StringWriter writer = new StringWriter()) {
-      Serializer serializer = new Serializer();
-      serializer.serialize(writer, value);
-      return writer.toString();
+    Serializer serializer = acquireSerializer();
+    try {
+      return serializer.serializeToString(value);
     }
-    catch(IOException e) {
-      // there is no reason to have IO write operation fail on string beside hardware or system resources shortage
-      throw new RuntimeException(e);
+    finally {
+      release(serializer);
     }
   }
 
@@ -128,7 +280,8 @@ public final class JsonImpl implements Json
    * is caller responsibility to ensure requested <code>type</code> is cast compatible with type of variable to assign
    * to.
    * <p>
-   * Internally this method uses {@link Parser#parse(Reader, Type)} and observes the same best effort behavior.
+   * Internally this method uses {@link Parser#parseSequence(CharSequence, Type)} that reads the string directly, with no
+   * intermediate reader, and observes the same best effort behavior as {@link Parser#parse(Reader, Type)}.
    * 
    * @param value JSON encode value,
    * @param type desired value type.
@@ -144,15 +297,263 @@ public final class JsonImpl implements Json
       return null;
     }
     notNull(type, "Type");
-    StringReader reader = new StringReader(value);
-    Parser parser = new Parser();
+    Parser parser = acquireParser();
     try {
-      return parser.parse(reader, type);
+      return parser.parseSequence(value, type);
     }
-    catch(IOException e) {
-      // there is no reason to have IO read operation fail on string beside hardware or system resources shortage
-      throw new RuntimeException(e);
+    finally {
+      release(parser);
     }
-    // do not bother to close reader since its scope is local and is not bound to target host resources
+  }
+
+  /**
+   * Parse JSON encoded value binding only the JSON paths selected by projection; everything else is skipped without
+   * decoding. Fields not selected by projection are left to their default values. Otherwise this method has the same
+   * behavior as {@link #parse(String, Type)}.
+   *
+   * @param value JSON encode value,
+   * @param type desired value type,
+   * @param projection JSON paths to bind, see {@link Projection#of(String...)}.
+   * @param <T> type to auto cast on return, cast compatible with <code>type</code> argument.
+   * @return newly created instance or null if <code>value</code> argument is null.
+   * @throws IllegalArgumentException if <code>type</code> or <code>projection</code> argument is null.
+   * @throws JsonParserException if given string value is not valid JSON format.
+   */
+  public <T> T parse(String value, Type type, Projection projection) throws IllegalArgumentException, JsonParserException
+  {
+    if(value == null) {
+      return null;
+    }
+    notNull(type, "Type");
+    notNull(projection, "Projection");
+    Parser parser = acquireParser();
+    try {
+      return parser.parseSequence(value, type, projection);
+    }
+    finally {
+      release(parser);
+    }
+  }
+
+  /**
+   * Deserialize value of expected type from character stream, binding only the JSON paths selected by projection. See
+   * {@link #parse(String, Type, Projection)}. After parsing completion used <code>reader</code> remains opened.
+   *
+   * @param reader character stream to read from,
+   * @param type expected type,
+   * @param projection JSON paths to bind.
+   * @param <T> type to auto cast on return, cast compatible with <code>type</code> argument.
+   * @return instance of expected type initialized from JSON character stream.
+   * @throws IllegalArgumentException if <code>reader</code> or <code>projection</code> argument is null.
+   * @throws IOException if read operation fails.
+   * @throws JsonParserException if parsing process fails perhaps due to syntax violation on input.
+   */
+  public <T> T parse(Reader reader, Type type, Projection projection) throws IllegalArgumentException, IOException, JsonParserException
+  {
+    notNull(reader, "JSON stream reader");
+    notNull(projection, "Projection");
+    Parser parser = acquireParser();
+    try {
+      return parser.parse(reader, type, projection);
+    }
+    finally {
+      release(parser);
+    }
+  }
+
+  /**
+   * Parse JSON encoded value into an existing object instance, overwriting fields present into JSON and reusing nested
+   * objects, collections and maps already present, see {@link Parser#updateSequence(CharSequence, Type, Object)}. Instance
+   * class is used as type; for generic collections and maps use {@link #update(String, Type, Object)}.
+   *
+   * @param value JSON encoded value,
+   * @param instance existing instance.
+   * @param <T> instance type.
+   * @return updated instance or null if <code>value</code> argument is null.
+   * @throws IllegalArgumentException if <code>instance</code> argument is null or is not an object, collection or map.
+   * @throws JsonParserException if given string value is not valid JSON format.
+   */
+  public <T> T update(String value, T instance) throws IllegalArgumentException, JsonParserException
+  {
+    notNull(instance, "Instance");
+    return update(value, instance.getClass(), instance);
+  }
+
+  /**
+   * Parse JSON encoded value into an existing instance of given type, see {@link Parser#updateSequence(CharSequence, Type, Object)}.
+   *
+   * @param value JSON encoded value,
+   * @param type instance type, possibly parameterized,
+   * @param instance existing instance.
+   * @param <T> instance type.
+   * @return updated instance or null if <code>value</code> argument is null.
+   * @throws IllegalArgumentException if <code>type</code> or <code>instance</code> argument is null or instance cannot
+   *           be updated.
+   * @throws JsonParserException if given string value is not valid JSON format.
+   */
+  public <T> T update(String value, Type type, T instance) throws IllegalArgumentException, JsonParserException
+  {
+    if(value == null) {
+      return null;
+    }
+    Parser parser = acquireParser();
+    try {
+      return parser.updateSequence(value, type, instance);
+    }
+    finally {
+      release(parser);
+    }
+  }
+
+  /**
+   * Parse JSON character stream into an existing object instance. See {@link #update(String, Object)}. After parsing
+   * completion used <code>reader</code> remains opened.
+   *
+   * @param reader character stream to read from,
+   * @param instance existing instance.
+   * @param <T> instance type.
+   * @return updated instance.
+   * @throws IllegalArgumentException if <code>reader</code> or <code>instance</code> argument is null or instance is
+   *           not an object, collection or map.
+   * @throws IOException if read operation fails.
+   * @throws JsonParserException if parsing process fails perhaps due to syntax violation on input.
+   */
+  public <T> T update(Reader reader, T instance) throws IllegalArgumentException, IOException, JsonParserException
+  {
+    notNull(instance, "Instance");
+    return update(reader, instance.getClass(), instance);
+  }
+
+  /**
+   * Parse JSON character stream into an existing instance of given type, see {@link Parser#update(Reader, Type, Object)}.
+   * After parsing completion used <code>reader</code> remains opened.
+   *
+   * @param reader character stream to read from,
+   * @param type instance type, possibly parameterized,
+   * @param instance existing instance.
+   * @param <T> instance type.
+   * @return updated instance.
+   * @throws IllegalArgumentException if any argument is null or instance cannot be updated.
+   * @throws IOException if read operation fails.
+   * @throws JsonParserException if parsing process fails perhaps due to syntax violation on input.
+   */
+  public <T> T update(Reader reader, Type type, T instance) throws IllegalArgumentException, IOException, JsonParserException
+  {
+    notNull(reader, "JSON stream reader");
+    Parser parser = acquireParser();
+    try {
+      return parser.update(reader, type, instance);
+    }
+    finally {
+      release(parser);
+    }
+  }
+
+  /**
+   * Create iterator over items of the JSON array from characters stream. Items are parsed on demand, one at a time, see
+   * {@link ElementIterator}. Closing returned iterator closes the reader.
+   *
+   * @param reader characters stream containing a JSON array,
+   * @param type items type.
+   * @param <T> items type.
+   * @return items iterator.
+   * @throws IllegalArgumentException if <code>reader</code> or <code>type</code> argument is null.
+   */
+  public <T> ElementIterator<T> parseElements(Reader reader, Type type) throws IllegalArgumentException
+  {
+    notNull(reader, "JSON stream reader");
+    notNull(type, "Type");
+    return new ElementIterator<>(reader, type, true, limits);
+  }
+
+  /**
+   * Create iterator over newline delimited JSON values from characters stream, also known as NDJSON. Values are parsed
+   * on demand, one at a time, see {@link ElementIterator}. Closing returned iterator closes the reader.
+   *
+   * @param reader characters stream containing JSON values separated by new lines,
+   * @param type values type.
+   * @param <T> values type.
+   * @return values iterator.
+   * @throws IllegalArgumentException if <code>reader</code> or <code>type</code> argument is null.
+   */
+  public <T> ElementIterator<T> parseLines(Reader reader, Type type) throws IllegalArgumentException
+  {
+    notNull(reader, "JSON stream reader");
+    notNull(type, "Type");
+    return new ElementIterator<>(reader, type, false, limits);
+  }
+
+  /**
+   * Parse value of requested type from a range of JSON characters array. Characters array is read in place, with no
+   * copy; it is caller responsibility to not change array content while parsing. Otherwise this method has the same
+   * behavior as {@link #parse(String, Type)}.
+   * 
+   * @param json JSON characters array,
+   * @param offset index of the first character to parse,
+   * @param length number of characters to parse,
+   * @param type desired value type.
+   * @param <T> type to auto cast on return, cast compatible with <code>type</code> argument.
+   * @return newly created instance.
+   * @throws IllegalArgumentException if <code>json</code> or <code>type</code> argument is null or range is not valid.
+   * @throws JsonParserException if given characters array is not valid JSON format.
+   */
+  public <T> T parse(char[] json, int offset, int length, Type type) throws IllegalArgumentException, JsonParserException
+  {
+    notNull(json, "JSON characters array");
+    notNull(type, "Type");
+    if(offset < 0 || length < 0 || offset > json.length - length) {
+      throw new IllegalArgumentException(String.format("Invalid range |%d:%d| for characters array of length |%d|.", offset, length, json.length));
+    }
+    Parser parser = acquireParser();
+    try {
+      return parser.parse(json, offset, length, type);
+    }
+    finally {
+      release(parser);
+    }
+  }
+
+  /**
+   * Take parser from parsers pool and configure it with this facade resource limits.
+   * 
+   * @return parser instance.
+   */
+  private Parser acquireParser()
+  {
+    Parser parser = parsers.acquire();
+    parser.setLimits(limits);
+    return parser;
+  }
+
+  /**
+   * Reset parser state and return it to parsers pool.
+   * 
+   * @param parser parser instance to release.
+   */
+  private static void release(Parser parser)
+  {
+    parser.reset();
+    parsers.release(parser);
+  }
+
+  /**
+   * Take serializer from the serializers pool matching this facade non ASCII characters escaping.
+   * 
+   * @return serializer instance.
+   */
+  private Serializer acquireSerializer()
+  {
+    return escapeNonAscii ? asciiSerializers.acquire() : serializers.acquire();
+  }
+
+  /**
+   * Reset serializer state and return it to the serializers pool it was taken from.
+   * 
+   * @param serializer serializer instance to release.
+   */
+  private void release(Serializer serializer)
+  {
+    serializer.reset();
+    (escapeNonAscii ? asciiSerializers : serializers).release(serializer);
   }
 }
@@ -0,0 +1,154 @@
+package com.jslib.json;
+
+import static com.jslib.util.Params.notNull;
+
+import java.lang.reflect.Type;
+
+/**
+ * Instrumentation hook notified after every parse and stringify operation with the operation metrics, see
+ * {@link JsonMetrics}, and after every type reflective scan. There is a single, process wide, installed
+ * instrumentation; by default none is installed and parser and serializer do not measure elapsed time and do not
+ * report, leaving only a few counters increments per operation.
+ *
+ * <pre>
+ * TypeCounters counters = new TypeCounters();
+ * JsonInstrumentation.install(counters);
+ * ...
+ * TypeCounters.Counters orders = counters.parseCounters(Order.class);
+ * </pre>
+ * <p>
+ * Callbacks are invoked synchronously, on the thread that runs the operation, after operation completes or fails; they
+ * should be fast and thread safe. Metrics instance is owned and reused by parser or serializer and should not be
+ * retained after callback returns. Exceptions thrown by callbacks are logged and ignored.
+ * <p>
+ * Only operations started by {@link Parser} and {@link Serializer} entry points are reported; parsers used internally by
+ * iterators and queries are not.
+ *
+ * @author Iulian Rotaru
+ * @see TypeCounters
+ * @see FlightRecorderEvents
+ */
+public abstract class JsonInstrumentation
+{
+  /** Installed instrumentation or null if none. */
+  private static volatile JsonInstrumentation installed;
+
+  /**
+   * Install process wide instrumentation, replacing previous one. Null argument disables instrumentation. Operations in
+   * progress report to the instrumentation installed when they started.
+   *
+   * @param instrumentation instrumentation to install, null accepted.
+   */
+  public static void install(JsonInstrumentation instrumentation)
+  {
+    installed = instrumentation;
+  }
+
+  /**
+   * Get installed instrumentation.
+   *
+   * @return installed instrumentation or null if none.
+   */
+  public static JsonInstrumentation installed()
+  {
+    return installed;
+  }
+
+  /**
+   * Create instrumentation that forwards every callback to both given instrumentations, in given order. Second
+   * instrumentation is notified even if first one throws.
+   *
+   * @param first first instrumentation,
+   * @param second second instrumentation.
+   * @return chained instrumentation.
+   * @throws IllegalArgumentException if any instrumentation argument is null.
+   */
+  public static JsonInstrumentation chain(JsonInstrumentation first, JsonInstrumentation second)
+  {
+    notNull(first, "First instrumentation");
+    notNull(second, "Second instrumentation");
+    return new Chain(first, second);
+  }
+
+  /**
+   * Parse operation completed or failed. This default implementation does nothing.
+   *
+   * @param type requested type,
+   * @param metrics operation metrics.
+   */
+  public void parsed(Type type, JsonMetrics metrics)
+  {
+  }
+
+  /**
+   * Stringify operation completed or failed. This default implementation does nothing.
+   *
+   * @param type serialized value class or {@link Void} for null value,
+   * @param metrics operation metrics.
+   */
+  public void serialized(Type type, JsonMetrics metrics)
+  {
+  }
+
+  /**
+   * Type reflectively scanned for parsing, that is, parsing plan compiled on first use of a type. This default
+   * implementation does nothing.
+   *
+   * @param type scanned type,
+   * @param fields number of fields, or creator constructor parameters, found on type; zero if type is not an object,
+   * @param nanos scanning elapsed time, in nanoseconds.
+   */
+  public void scanned(Type type, int fields, long nanos)
+  {
+  }
+
+  /**
+   * Instrumentation that forwards callbacks to two instrumentations, see {@link JsonInstrumentation#chain}.
+   *
+   * @author Iulian Rotaru
+   */
+  static final class Chain extends JsonInstrumentation
+  {
+    final JsonInstrumentation first;
+    final JsonInstrumentation second;
+
+    private Chain(JsonInstrumentation first, JsonInstrumentation second)
+    {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public void parsed(Type type, JsonMetrics metrics)
+    {
+      try {
+        first.parsed(type, metrics);
+      }
+      finally {
+        second.parsed(type, metrics);
+      }
+    }
+
+    @Override
+    public void serialized(Type type, JsonMetrics metrics)
+    {
+      try {
+        first.serialized(type, metrics);
+      }
+      finally {
+        second.serialized(type, metrics);
+      }
+    }
+
+    @Override
+    public void scanned(Type type, int fields, long nanos)
+    {
+      try {
+        first.scanned(type, fields, nanos);
+      }
+      finally {
+        second.scanned(type, fields, nanos);
+      }
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.jslib.json;
+
+/**
+ * Parser exception thrown when input exceeds a configured resource limit, see {@link JsonLimits}. Input is not
+ * necessarily malformed; callers may use this exception type to reject oversized requests distinctly from syntax
+ * errors.
+ *
+ * @author Iulian Rotaru
+ */
+public class JsonLimitException extends JsonParserException
+{
+  /** Java serialization version. */
+  private static final long serialVersionUID = -2474106322578315627L;
+
+  /** Exceeded limit. */
+  private final Limit limit;
+
+  /** Configured value of exceeded limit. */
+  private final long maxValue;
+
+  /**
+   * Create limit exception.
+   *
+   * @param limit exceeded limit,
+   * @param maxValue configured value of exceeded limit.
+   */
+  public JsonLimitException(Limit limit, long maxValue)
+  {
+    super("JSON %s exceeds limit of %d.", limit.display, maxValue);
+    this.limit = limit;
+    this.maxValue = maxValue;
+  }
+
+  /**
+   * Get exceeded limit.
+   *
+   * @return exceeded limit.
+   */
+  public Limit limit()
+  {
+    return limit;
+  }
+
+  /**
+   * Get configured value of exceeded limit.
+   *
+   * @return exceeded limit value.
+   */
+  public long maxValue()
+  {
+    return maxValue;
+  }
+
+  /**
+   * Resource limits, see {@link JsonLimits}.
+   *
+   * @author Iulian Rotaru
+   */
+  public enum Limit
+  {
+    DEPTH("nesting depth"), STRING_LENGTH("string length"), ELEMENTS("elements count"), CHARS("input size");
+
+    private final String display;
+
+    private Limit(String display)
+    {
+      this.display = display;
+    }
+  }
+}
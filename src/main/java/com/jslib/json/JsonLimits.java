@@ -0,0 +1,133 @@
+package com.jslib.json;
+
+/**
+ * Immutable resource limits enforced while parsing, so that hostile or broken input fails fast instead of exhausting
+ * memory, stack or CPU. A parser configured with limits throws {@link JsonLimitException} as soon as a limit is
+ * exceeded.
+ * <ul>
+ * <li>max depth - maximum nesting depth of JSON objects and arrays, root container being at depth 1,
+ * <li>max string length - maximum length of a string, property name or number, after escape sequences decoding,
+ * <li>max elements - maximum number of items of an array or properties of an object,
+ * <li>max chars - maximum number of characters consumed from input.
+ * </ul>
+ * Limits are applied to values bound by parser; values skipped by projections or for missing fields are traversed
+ * without decoding and are bounded only by characters limit. Beside {@link JsonImpl} and {@link Parser}, limits are
+ * accepted by {@link PushParser}, {@link JsonNode} and {@link JsonQuery}.
+ *
+ * <pre>
+ * JsonLimits limits = JsonLimits.NONE.withMaxDepth(64).withMaxStringLength(65536).withMaxChars(1048576);
+ * Json json = new JsonImpl(limits);
+ * </pre>
+ * <p>
+ * Limits checks are plain integer comparisons on counters parser already maintains, so enabling them has no measurable
+ * cost on regular payloads.
+ *
+ * @author Iulian Rotaru
+ */
+public final class JsonLimits
+{
+  /** No limits, the default for parsers and JSON facade. */
+  public static final JsonLimits NONE = new JsonLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+  private final int maxDepth;
+  private final int maxStringLength;
+  private final int maxElements;
+  private final long maxChars;
+
+  private JsonLimits(int maxDepth, int maxStringLength, int maxElements, long maxChars)
+  {
+    this.maxDepth = maxDepth;
+    this.maxStringLength = maxStringLength;
+    this.maxElements = maxElements;
+    this.maxChars = maxChars;
+  }
+
+  /**
+   * Create limits with given maximum nesting depth, keeping the other limits.
+   *
+   * @param maxDepth maximum nesting depth, positive.
+   * @return new limits instance.
+   * @throws IllegalArgumentException if limit is not positive.
+   */
+  public JsonLimits withMaxDepth(int maxDepth)
+  {
+    positive(maxDepth, "depth");
+    return new JsonLimits(maxDepth, maxStringLength, maxElements, maxChars);
+  }
+
+  /**
+   * Create limits with given maximum string length, keeping the other limits.
+   *
+   * @param maxStringLength maximum length of strings, names and numbers, positive.
+   * @return new limits instance.
+   * @throws IllegalArgumentException if limit is not positive.
+   */
+  public JsonLimits withMaxStringLength(int maxStringLength)
+  {
+    positive(maxStringLength, "string length");
+    return new JsonLimits(maxDepth, maxStringLength, maxElements, maxChars);
+  }
+
+  /**
+   * Create limits with given maximum number of elements per array or object, keeping the other limits.
+   *
+   * @param maxElements maximum array items or object properties, positive.
+   * @return new limits instance.
+   * @throws IllegalArgumentException if limit is not positive.
+   */
+  public JsonLimits withMaxElements(int maxElements)
+  {
+    positive(maxElements, "elements");
+    return new JsonLimits(maxDepth, maxStringLength, maxElements, maxChars);
+  }
+
+  /**
+   * Create limits with given maximum number of input characters, keeping the other limits.
+   *
+   * @param maxChars maximum input characters, positive.
+   * @return new limits instance.
+   * @throws IllegalArgumentException if limit is not positive.
+   */
+  public JsonLimits withMaxChars(long maxChars)
+  {
+    positive(maxChars, "chars");
+    return new JsonLimits(maxDepth, maxStringLength, maxElements, maxChars);
+  }
+
+  /** @return maximum nesting depth. */
+  public int maxDepth()
+  {
+    return maxDepth;
+  }
+
+  /** @return maximum length of strings, names and numbers. */
+  public int maxStringLength()
+  {
+    return maxStringLength;
+  }
+
+  /** @return maximum number of array items or object properties. */
+  public int maxElements()
+  {
+    return maxElements;
+  }
+
+  /** @return maximum number of input characters. */
+  public long maxChars()
+  {
+    return maxChars;
+  }
+
+  private static void positive(long limit, String name)
+  {
+    if(limit <= 0) {
+      throw new IllegalArgumentException(String.format("Max %s limit should be positive.", name));
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("maxDepth=%d, maxStringLength=%d, maxElements=%d, maxChars=%d", maxDepth, maxStringLength, maxElements, maxChars);
+  }
+}
@@ -0,0 +1,167 @@
+package com.jslib.json;
+
+/**
+ * Metrics of a single parse or stringify operation, reported to {@link JsonInstrumentation}. Instance is owned and
+ * reused by parser or serializer; values are valid only while instrumentation callback is running.
+ * <p>
+ * For parse operations characters count is the number of characters consumed from source and objects and arrays are
+ * the JSON containers parsed. For stringify operations characters count is the number of characters written and
+ * objects and arrays are the values serialized as JSON objects, maps included, and arrays; tokens and skipped fields
+ * are always zero.
+ *
+ * @author Iulian Rotaru
+ */
+public final class JsonMetrics
+{
+  /** Characters consumed or written. */
+  long chars;
+
+  /** Tokens read by lexer. */
+  int tokens;
+
+  /** JSON objects parsed or serialized. */
+  int objects;
+
+  /** JSON arrays parsed or serialized. */
+  int arrays;
+
+  /** Maximum containers nesting depth. */
+  int depth;
+
+  /** Maximum number of items of a JSON array. */
+  int largestArray;
+
+  /** Object properties skipped because target object has no field for them. */
+  int skippedFields;
+
+  /** Operation elapsed time, in nanoseconds. */
+  long nanos;
+
+  /** Exception that aborted operation or null if operation succeeded. */
+  Throwable error;
+
+  /** Lexer of parse operation, used to capture input sample on demand; null for stringify operations. */
+  Lexer lexer;
+
+  /** Prepare metrics for a new operation. */
+  void reset()
+  {
+    chars = 0;
+    tokens = 0;
+    objects = 0;
+    arrays = 0;
+    depth = 0;
+    largestArray = 0;
+    skippedFields = 0;
+    nanos = 0;
+    error = null;
+    lexer = null;
+  }
+
+  /**
+   * Get the number of characters consumed by parser or written by serializer.
+   *
+   * @return characters count.
+   */
+  public long chars()
+  {
+    return chars;
+  }
+
+  /**
+   * Get the number of tokens read by lexer.
+   *
+   * @return tokens count, zero for stringify operations.
+   */
+  public int tokens()
+  {
+    return tokens;
+  }
+
+  /**
+   * Get the number of JSON objects parsed or serialized.
+   *
+   * @return objects count.
+   */
+  public int objects()
+  {
+    return objects;
+  }
+
+  /**
+   * Get the number of JSON arrays parsed or serialized.
+   *
+   * @return arrays count.
+   */
+  public int arrays()
+  {
+    return arrays;
+  }
+
+  /**
+   * Get maximum nesting depth of JSON objects and arrays; zero for primitive values.
+   *
+   * @return maximum nesting depth.
+   */
+  public int depth()
+  {
+    return depth;
+  }
+
+  /**
+   * Get the maximum number of items of a JSON array parsed or serialized. Arrays skipped by parser are not counted.
+   *
+   * @return largest array size, zero if there is no array.
+   */
+  public int largestArray()
+  {
+    return largestArray;
+  }
+
+  /**
+   * Get the number of object properties skipped because target object has no related field.
+   *
+   * @return skipped properties count, zero for stringify operations.
+   */
+  public int skippedFields()
+  {
+    return skippedFields;
+  }
+
+  /**
+   * Get operation elapsed time.
+   *
+   * @return elapsed time, in nanoseconds.
+   */
+  public long nanos()
+  {
+    return nanos;
+  }
+
+  /**
+   * Get the exception that aborted operation.
+   *
+   * @return operation exception or null if operation succeeded.
+   */
+  public Throwable error()
+  {
+    return error;
+  }
+
+  /**
+   * Get a sample of the last characters consumed by parse operation, up to where parsing stopped. Sample is bounded by
+   * parser error reporter buffer and is captured on demand, only when this method is called.
+   *
+   * @return input sample or null for stringify operations.
+   */
+  public String sample()
+  {
+    return lexer != null ? lexer.errorReporter().streamSample() : null;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("chars=%d, tokens=%d, objects=%d, arrays=%d, depth=%d, largestArray=%d, skippedFields=%d, nanos=%d, error=%s", chars, tokens, objects, arrays, depth, largestArray, skippedFields, nanos, error);
+  }
+}
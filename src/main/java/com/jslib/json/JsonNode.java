@@ -0,0 +1,628 @@
+package com.jslib.json;
+
+import static com.jslib.util.Params.notNull;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.jslib.converter.ConverterRegistry;
+import com.jslib.lang.BugError;
+
+/**
+ * Lazy tree model for in memory JSON documents. A node keeps only the boundaries of its value into JSON characters;
+ * values are decoded on access and objects and arrays are scanned only when navigated into. Since scanning a container
+ * does not decode nested containers, inspecting a few fields of a large document costs a fraction of full binding.
+ *
+ * <pre>
+ * JsonNode document = JsonNode.parse(json);
+ * String name = document.get("customer").get("name").asString();
+ * long id = document.get("items").get(0).get("id").asLong();
+ * Order order = document.get("order").as(Order.class);
+ * </pre>
+ * <p>
+ * Root node creation does not scan the document; it only checks that root object or array is closed by the last not white
+ * space character. Structure and content errors are reported when affected node is navigated or decoded. Scalar values
+ * are decoded using lexer value builder and converter, with the same rules as {@link Parser}; a node can be bound to a
+ * Java type, using {@link Parser}, see {@link #as(Type)}.
+ * <p>
+ * Resource limits, see {@link JsonLimits}, are given on root node creation and are enforced by all document nodes:
+ * characters limit on root node creation, depth and elements limits when objects and arrays are scanned and string
+ * length limit when values are decoded. Nodes bound to Java types are parsed with the same limits.
+ * <p>
+ * Node instances are not thread safe. JSON characters array is used in place and should not be changed while nodes are
+ * in use.
+ *
+ * @author Iulian Rotaru
+ */
+public final class JsonNode
+{
+  /**
+   * Create root node for given JSON characters sequence. Characters sequence is copied to an internal array.
+   *
+   * @param json JSON characters sequence.
+   * @return root node.
+   * @throws IllegalArgumentException if JSON characters sequence is null.
+   * @throws JsonParserException if JSON root value is not properly closed.
+   */
+  public static JsonNode parse(CharSequence json) throws IllegalArgumentException, JsonParserException
+  {
+    return parse(json, JsonLimits.NONE);
+  }
+
+  /**
+   * Create root node for given JSON characters sequence, enforcing given resource limits. Characters sequence is copied
+   * to an internal array.
+   *
+   * @param json JSON characters sequence,
+   * @param limits resource limits, {@link JsonLimits#NONE} for no limits.
+   * @return root node.
+   * @throws IllegalArgumentException if any argument is null.
+   * @throws JsonParserException if JSON root value is not properly closed.
+   * @throws JsonLimitException if JSON characters sequence exceeds characters limit.
+   */
+  public static JsonNode parse(CharSequence json, JsonLimits limits) throws IllegalArgumentException, JsonParserException
+  {
+    notNull(json, "JSON characters sequence");
+    notNull(limits, "Limits");
+    // check characters limit before copying characters
+    checkChars(json.length(), limits);
+    char[] chars = json.toString().toCharArray();
+    return parse(chars, 0, chars.length, limits);
+  }
+
+  /**
+   * Create root node for JSON characters array range. Array is used in place, with no copy.
+   *
+   * @param json JSON characters array,
+   * @param offset index of the first JSON character,
+   * @param length number of JSON characters.
+   * @return root node.
+   * @throws IllegalArgumentException if JSON characters array is null or range is not valid.
+   * @throws JsonParserException if JSON root value is not properly closed.
+   */
+  public static JsonNode parse(char[] json, int offset, int length) throws IllegalArgumentException, JsonParserException
+  {
+    return parse(json, offset, length, JsonLimits.NONE);
+  }
+
+  /**
+   * Create root node for JSON characters array range, enforcing given resource limits. Array is used in place, with no
+   * copy.
+   *
+   * @param json JSON characters array,
+   * @param offset index of the first JSON character,
+   * @param length number of JSON characters,
+   * @param limits resource limits, {@link JsonLimits#NONE} for no limits.
+   * @return root node.
+   * @throws IllegalArgumentException if JSON characters array or limits is null or range is not valid.
+   * @throws JsonParserException if JSON root value is not properly closed.
+   * @throws JsonLimitException if JSON characters range exceeds characters limit.
+   */
+  public static JsonNode parse(char[] json, int offset, int length, JsonLimits limits) throws IllegalArgumentException, JsonParserException
+  {
+    notNull(json, "JSON characters array");
+    notNull(limits, "Limits");
+    if(offset < 0 || length < 0 || offset > json.length - length) {
+      throw new IllegalArgumentException(String.format("Invalid range |%d:%d| for characters array of length |%d|.", offset, length, json.length));
+    }
+    checkChars(length, limits);
+
+    int limit = offset + length;
+    int start = StructuralScanner.skipWhiteSpaces(json, offset, limit);
+    if(start == limit) {
+      throw new JsonParserException("Premature end of JSON characters while expecting a value.");
+    }
+    int end = limit;
+    while(CharReader.isWhitespace(json[end - 1])) {
+      --end;
+    }
+
+    // root container is not scanned; only check that its last character closes it
+    char closingChar = 0;
+    switch(json[start]) {
+    case '{':
+      closingChar = '}';
+      break;
+
+    case '[':
+      closingChar = ']';
+      break;
+
+    default:
+      if(StructuralScanner.skipValue(json, start, limit) != end) {
+        throw new JsonParserException("Unexpected characters after JSON root value.");
+      }
+    }
+    if(closingChar != 0 && (end - start < 2 || json[end - 1] != closingChar)) {
+      throw new JsonParserException("Invalid JSON root value. Expected |%s| at index #%d.", closingChar, end - 1);
+    }
+    return new JsonNode(json, start, end, limits, 1);
+  }
+
+  /**
+   * Check JSON characters count does not exceed characters limit.
+   *
+   * @param length JSON characters count,
+   * @param limits resource limits.
+   * @throws JsonLimitException if characters limit is exceeded.
+   */
+  private static void checkChars(long length, JsonLimits limits)
+  {
+    if(length > limits.maxChars()) {
+      throw new JsonLimitException(JsonLimitException.Limit.CHARS, limits.maxChars());
+    }
+  }
+
+  /** JSON characters shared by all nodes from a document. */
+  private final char[] chars;
+
+  /** Index of value first character. */
+  private final int start;
+
+  /** Index of the first character after value. */
+  private final int end;
+
+  /** Node kind detected from value characters. */
+  private final Kind kind;
+
+  /** Resource limits shared by all nodes from a document. */
+  private final JsonLimits limits;
+
+  /** Node nesting depth, root node being at depth 1. */
+  private final int depth;
+
+  /** Object members, in JSON stream order, scanned on first object navigation. */
+  private Map<String, JsonNode> members;
+
+  /** Array items scanned on first array navigation. */
+  private List<JsonNode> items;
+
+  /**
+   * Create node for value found in given characters range.
+   *
+   * @param chars JSON characters,
+   * @param start index of value first character,
+   * @param end index of the first character after value,
+   * @param limits document resource limits,
+   * @param depth node nesting depth.
+   * @throws JsonLimitException if node is an object or array nested deeper than depth limit.
+   */
+  private JsonNode(char[] chars, int start, int end, JsonLimits limits, int depth)
+  {
+    this.chars = chars;
+    this.start = start;
+    this.end = end;
+    this.kind = kind(chars, start, end);
+    this.limits = limits;
+    this.depth = depth;
+    if((kind == Kind.OBJECT || kind == Kind.ARRAY) && depth > limits.maxDepth()) {
+      throw new JsonLimitException(JsonLimitException.Limit.DEPTH, limits.maxDepth());
+    }
+  }
+
+  /**
+   * Get node kind.
+   *
+   * @return node kind.
+   */
+  public Kind kind()
+  {
+    return kind;
+  }
+
+  /**
+   * Test if this node is JSON null.
+   *
+   * @return true if node is null.
+   */
+  public boolean isNull()
+  {
+    return kind == Kind.NULL;
+  }
+
+  /**
+   * Get the number of members, for object node, or items, for array node.
+   *
+   * @return object members or array items count.
+   * @throws BugError if this node is not object or array.
+   */
+  public int size()
+  {
+    if(kind == Kind.OBJECT) {
+      return members().size();
+    }
+    if(kind == Kind.ARRAY) {
+      return items().size();
+    }
+    throw new BugError("Attempt to get size of |%s| node.", kind);
+  }
+
+  /**
+   * Get object member names, in JSON stream order.
+   *
+   * @return object member names.
+   * @throws BugError if this node is not an object.
+   */
+  public Set<String> names()
+  {
+    return Collections.unmodifiableSet(members().keySet());
+  }
+
+  /**
+   * Test if object has named member.
+   *
+   * @param name member name.
+   * @return true if object has named member.
+   * @throws BugError if this node is not an object.
+   */
+  public boolean has(String name)
+  {
+    return members().containsKey(name);
+  }
+
+  /**
+   * Get object member node. On first call object members are scanned but member values are not decoded.
+   *
+   * @param name member name.
+   * @return member node or null if object has no such member.
+   * @throws BugError if this node is not an object.
+   * @throws JsonParserException if object is not well formed.
+   */
+  public JsonNode get(String name)
+  {
+    return members().get(name);
+  }
+
+  /**
+   * Get array item node. On first call array items are scanned but item values are not decoded.
+   *
+   * @param index item index.
+   * @return item node.
+   * @throws BugError if this node is not an array.
+   * @throws IndexOutOfBoundsException if index is not valid.
+   * @throws JsonParserException if array is not well formed.
+   */
+  public JsonNode get(int index)
+  {
+    return items().get(index);
+  }
+
+  /**
+   * Get string value. String node is unescaped; other scalar nodes return value as it is in JSON stream and null node
+   * returns null.
+   *
+   * @return string value, possible null.
+   * @throws BugError if this node is object or array.
+   */
+  public String asString()
+  {
+    switch(kind) {
+    case STRING:
+      return decodeString(start, end);
+
+    case NULL:
+      return null;
+
+    case OBJECT:
+    case ARRAY:
+      throw new BugError("Attempt to get string value of |%s| node.", kind);
+
+    default:
+      checkLength(end - start);
+      return new String(chars, start, end - start);
+    }
+  }
+
+  /**
+   * Get value as long. Integer number nodes are decoded directly; other values are converted from string value.
+   *
+   * @return long value.
+   */
+  public long asLong()
+  {
+    Object number = numberToken().asNumber(long.class);
+    return number != null ? (Long)number : convert(long.class);
+  }
+
+  /**
+   * Get value as double. Number nodes are decoded directly; other values are converted from string value.
+   *
+   * @return double value.
+   */
+  public double asDouble()
+  {
+    Object number = numberToken().asNumber(double.class);
+    return number != null ? (Double)number : convert(double.class);
+  }
+
+  /**
+   * Get value as boolean. Boolean nodes are decoded directly; other values are converted from string value.
+   *
+   * @return boolean value.
+   */
+  public boolean asBoolean()
+  {
+    if(kind == Kind.BOOLEAN) {
+      return chars[start] == 't';
+    }
+    return convert(boolean.class);
+  }
+
+  /**
+   * Bind this node value to an instance of requested type, using {@link Parser}. Only this node characters are parsed.
+   *
+   * @param type expected type.
+   * @param <T> instance type.
+   * @return instance of requested type.
+   * @throws JsonParserException if node value cannot be bound to requested type.
+   */
+  public <T> T as(Type type) throws JsonParserException
+  {
+    Parser parser = new Parser();
+    parser.setLimits(limits);
+    return parser.parse(chars, start, end - start, type);
+  }
+
+  /**
+   * Get JSON representation of this node, as it is in JSON characters.
+   *
+   * @return node JSON representation.
+   */
+  public String toJson()
+  {
+    return new String(chars, start, end - start);
+  }
+
+  @Override
+  public String toString()
+  {
+    return toJson();
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Get object members, scanning them on first call. Member values are located but not decoded.
+   *
+   * @return object members.
+   * @throws BugError if this node is not an object.
+   * @throws JsonParserException if object is not well formed.
+   */
+  private Map<String, JsonNode> members()
+  {
+    if(members != null) {
+      return members;
+    }
+    if(kind != Kind.OBJECT) {
+      throw new BugError("Attempt to navigate |%s| node as object.", kind);
+    }
+
+    // members are published only after successful scan so that a failed scan is repeated on next call
+    Map<String, JsonNode> members = new LinkedHashMap<>();
+    final int limit = end - 1;
+    int index = StructuralScanner.skipWhiteSpaces(chars, start + 1, limit);
+    while(index < limit) {
+      int nameEnd = StructuralScanner.skipValue(chars, index, limit);
+      String name = chars[index] == '"' ? decodeString(index, nameEnd) : new String(chars, index, nameEnd - index);
+
+      index = StructuralScanner.skipWhiteSpaces(chars, nameEnd, limit);
+      if(index == limit || chars[index] != ':') {
+        throw new JsonParserException("Expected COLON after member |%s| at index #%d.", name, index);
+      }
+
+      index = StructuralScanner.skipWhiteSpaces(chars, index + 1, limit);
+      int valueEnd = StructuralScanner.skipValue(chars, index, limit);
+      checkElements(members.size() + 1);
+      members.put(name, new JsonNode(chars, index, valueEnd, limits, depth + 1));
+
+      index = nextElement(valueEnd, limit);
+    }
+    this.members = members;
+    return members;
+  }
+
+  /**
+   * Get array items, scanning them on first call. Item values are located but not decoded.
+   *
+   * @return array items.
+   * @throws BugError if this node is not an array.
+   * @throws JsonParserException if array is not well formed.
+   */
+  private List<JsonNode> items()
+  {
+    if(items != null) {
+      return items;
+    }
+    if(kind != Kind.ARRAY) {
+      throw new BugError("Attempt to navigate |%s| node as array.", kind);
+    }
+
+    List<JsonNode> items = new ArrayList<>();
+    final int limit = end - 1;
+    int index = StructuralScanner.skipWhiteSpaces(chars, start + 1, limit);
+    while(index < limit) {
+      int itemEnd = StructuralScanner.skipValue(chars, index, limit);
+      checkElements(items.size() + 1);
+      items.add(new JsonNode(chars, index, itemEnd, limits, depth + 1));
+      index = nextElement(itemEnd, limit);
+    }
+    this.items = items;
+    return items;
+  }
+
+  /**
+   * Check container elements count does not exceed elements limit.
+   *
+   * @param elements array items or object members count, including the element about to be added.
+   * @throws JsonLimitException if elements limit is exceeded.
+   */
+  private void checkElements(int elements)
+  {
+    if(elements > limits.maxElements()) {
+      throw new JsonLimitException(JsonLimitException.Limit.ELEMENTS, limits.maxElements());
+    }
+  }
+
+  /**
+   * Check decoded value length does not exceed string length limit.
+   *
+   * @param length value length.
+   * @throws JsonLimitException if string length limit is exceeded.
+   */
+  private void checkLength(int length)
+  {
+    if(length > limits.maxStringLength()) {
+      throw new JsonLimitException(JsonLimitException.Limit.STRING_LENGTH, limits.maxStringLength());
+    }
+  }
+
+  /**
+   * Skip separator after a container element.
+   *
+   * @param index index of the first character after element,
+   * @param limit index of container closing character.
+   * @return index of the next element first character or <code>limit</code> if there are no more elements.
+   * @throws JsonParserException if element is not followed by comma or container end.
+   */
+  private int nextElement(int index, int limit)
+  {
+    index = StructuralScanner.skipWhiteSpaces(chars, index, limit);
+    if(index == limit) {
+      return limit;
+    }
+    if(chars[index] != ',') {
+      throw new JsonParserException("Expected COMMA at index #%d. Maybe missing comma.", index);
+    }
+    return StructuralScanner.skipWhiteSpaces(chars, index + 1, limit);
+  }
+
+  /**
+   * Decode quoted string. Characters range includes quotation marks. Strings without escape sequences are created with
+   * a single copy; otherwise lexer value builder is used to process escape sequences.
+   *
+   * @param from index of opening quotation mark,
+   * @param to index of the first character after closing quotation mark.
+   * @return decoded string.
+   */
+  private String decodeString(int from, int to)
+  {
+    ++from;
+    --to;
+    for(int i = from; i < to; ++i) {
+      if(chars[i] == '\\') {
+        LexerValueBuilder builder = new LexerValueBuilder();
+        builder.append(chars, from, i - from);
+        for(; i < to; ++i) {
+          builder.append(chars[i]);
+        }
+        checkLength(builder.length());
+        return builder.toString();
+      }
+    }
+    checkLength(to - from);
+    return new String(chars, from, to - from);
+  }
+
+  /**
+   * Create numeric token for this node value. Not number values create a token with string value.
+   *
+   * @return numeric token.
+   */
+  private Token numberToken()
+  {
+    if(kind != Kind.NUMBER) {
+      return new Token(Token.VALUE, (String)null);
+    }
+    checkLength(end - start);
+    LexerValueBuilder builder = new LexerValueBuilder();
+    for(int i = start; i < end; ++i) {
+      builder.append(chars[i]);
+    }
+    return builder.toToken(Token.VALUE);
+  }
+
+  /**
+   * Convert string value of this node to requested type, using converter.
+   *
+   * @param type requested type.
+   * @param <T> value type.
+   * @return converted value.
+   */
+  private <T> T convert(Class<T> type)
+  {
+    String value = asString();
+    if(value == null) {
+      throw new JsonParserException("Attempt to convert null node to |%s|.", type);
+    }
+    return ConverterRegistry.getConverter().asObject(value, type);
+  }
+
+  /**
+   * Detect kind for value found in given characters range.
+   *
+   * @param chars JSON characters,
+   * @param start index of value first character,
+   * @param end index of the first character after value.
+   * @return value kind.
+   */
+  private static Kind kind(char[] chars, int start, int end)
+  {
+    switch(chars[start]) {
+    case '{':
+      return Kind.OBJECT;
+
+    case '[':
+      return Kind.ARRAY;
+
+    case '"':
+      return Kind.STRING;
+
+    default:
+      if(matches(chars, start, end, "null")) {
+        return Kind.NULL;
+      }
+      if(matches(chars, start, end, "true") || matches(chars, start, end, "false")) {
+        return Kind.BOOLEAN;
+      }
+      return Kind.NUMBER;
+    }
+  }
+
+  /**
+   * Test if characters range equals given keyword.
+   *
+   * @param chars JSON characters,
+   * @param start range start index,
+   * @param end range end index, exclusive,
+   * @param keyword keyword to compare with.
+   * @return true if characters range equals keyword.
+   */
+  private static boolean matches(char[] chars, int start, int end, String keyword)
+  {
+    if(end - start != keyword.length()) {
+      return false;
+    }
+    for(int i = 0; i < keyword.length(); ++i) {
+      if(chars[start + i] != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * JSON node kinds. Not quoted values other than <code>null</code>, <code>true</code> and <code>false</code> are
+   * considered numbers.
+   *
+   * @author Iulian Rotaru
+   */
+  public static enum Kind
+  {
+    OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL
+  }
+}
@@ -6,78 +6,120 @@ import com.jslib.api.json.JsonException;
 
 /**
  * Not checked exception thrown when JSON parsing process fails for some reasons.
- * 
+ * <p>
+ * Exception message is compiled from error reporter information, that is, index of the character where error occurred
+ * and a sample from JSON characters stream, and user defined message. Since error reporter is owned by parser internals
+ * and not reachable from every place where exceptions are created, error reporter information is attached by
+ * {@link Parser} when exception reaches parser entry point, see {@link #attach(ErrorReporter)}.
+ *
  * @author Iulian Rotaru
  */
 public class JsonParserException extends JsonException {
 	/** Java serialization version. */
 	private static final long serialVersionUID = 8175755582232053470L;
 
+	/** Exception message, not including error reporter information. */
+	private final String message;
+
+	/** Index of the character where error occurred or -1 if error reporter was not attached. */
+	private int charIndex = -1;
+
+	/** Sample from JSON characters stream or null if error reporter was not attached. */
+	private String streamSample;
+
 	/**
 	 * Create parser exception with formatted message.
-	 * 
+	 *
 	 * @param message exception formatted message,
 	 * @param args optional formatted arguments.
 	 */
 	public JsonParserException(String message, Object... args) {
-		super(buildMessage(message, args));
+		this(String.format(message, args));
 	}
 
 	/**
-	 * Create parser exception with error reporter and root cause throwable.
-	 * 
+	 * Create parser exception with error reporter and formatted message.
+	 *
+	 * @param errorReporter error reporter,
+	 * @param message exception formatted message,
+	 * @param args optional formatted arguments.
+	 */
+	public JsonParserException(ErrorReporter errorReporter, String message, Object... args) {
+		this(String.format(message, args));
+		attach(errorReporter);
+	}
+
+	/**
+	 * Create parser exception with root cause throwable.
+	 *
 	 * @param t root cause throwable.
 	 */
 	public JsonParserException(Throwable t) {
-		super(buildMessage(t));
+		this(buildMessage(t));
 	}
 
 	/**
-	 * Build exception message from error reporter information and root cause throwable.
-	 * 
-	 * @param t root cause throwable.
-	 * @return compiled exception message.
+	 * Create parser exception with not formatted message.
+	 *
+	 * @param message exception message.
 	 */
-	private static String buildMessage(Throwable t) {
-		if (t instanceof RuntimeException && t.getCause() != null) {
-			t = t.getCause();
-		}
-		if (t instanceof InvocationTargetException) {
-			t = ((InvocationTargetException) t).getTargetException();
-		}
-		String message = t.getMessage();
-		if (message == null) {
-			message = t.getClass().getCanonicalName();
-		}
-		return buildMessage(message);
+	private JsonParserException(String message) {
+		super(message);
+		this.message = message;
 	}
 
 	/**
-	 * Build exception message from error reporter information and formatted user defined message.
-	 * 
-	 * @param message user defined message,
-	 * @param args optional arguments if user defined message is formatted.
-	 * @return compiled exception message.
+	 * Attach error reporter information to this exception. If error reporter was already attached this method does nothing
+	 * so that the information from the place where error occurred is preserved.
+	 *
+	 * @param errorReporter error reporter.
+	 * @return this exception instance.
 	 */
-	private static String buildMessage(String message, Object[] args) {
-		return buildMessage(String.format(message, args));
+	JsonParserException attach(ErrorReporter errorReporter) {
+		if (streamSample == null) {
+			charIndex = errorReporter.charIndex();
+			streamSample = errorReporter.streamSample();
+		}
+		return this;
 	}
 
 	/**
-	 * Compile message from error reporter information and given exception message.
-	 * 
-	 * @param message exception message.
-	 * @return compiled message.
+	 * Get exception message compiled from error reporter information, if attached, and user defined message.
+	 *
+	 * @return exception message.
 	 */
-	private static String buildMessage(String message) {
-		ErrorReporter errorReporter = ErrorReporter.getInstance();
+	@Override
+	public String getMessage() {
+		if (streamSample == null) {
+			return message;
+		}
 		StringBuilder sb = new StringBuilder();
 		sb.append("JSON parser error on char index #");
-		sb.append(errorReporter.charIndex());
+		sb.append(charIndex);
 		sb.append(" near ...");
-		sb.append(errorReporter.streamSample());
+		sb.append(streamSample);
 		sb.append(". ");
 		sb.append(message);
 		return sb.toString();
 	}
+
+	/**
+	 * Build exception message from root cause throwable.
+	 *
+	 * @param t root cause throwable.
+	 * @return compiled exception message.
+	 */
+	private static String buildMessage(Throwable t) {
+		if (t instanceof RuntimeException && t.getCause() != null) {
+			t = t.getCause();
+		}
+		if (t instanceof InvocationTargetException) {
+			t = ((InvocationTargetException) t).getTargetException();
+		}
+		String message = t.getMessage();
+		if (message == null) {
+			message = t.getClass().getCanonicalName();
+		}
+		return message;
+	}
 }
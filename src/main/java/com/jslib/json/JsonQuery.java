@@ -0,0 +1,787 @@
+package com.jslib.json;
+
+import static com.jslib.util.Params.notNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.jslib.lang.BugError;
+
+/**
+ * Compiled JSONPath like query evaluated in streaming mode. Query walks lexer tokens and binds only matching values,
+ * using the same value helpers as {@link Parser}; everything else is skipped structurally, see
+ * {@link Lexer#skipValue()}. There is no tree built for the whole document so that memory usage does not depend on JSON
+ * stream size, and matching values are delivered to consumer as soon as they are parsed.
+ *
+ * <pre>
+ * JsonQuery query = JsonQuery.compile("$.items[?(&#64;.price &gt; 10)].name");
+ * query.run(reader, String.class, name -&gt; System.out.println(name));
+ * </pre>
+ * <p>
+ * Supported syntax is a subset of JSONPath:
+ * <ul>
+ * <li><code>$</code> - root value, optional,
+ * <li><code>.name</code> or <code>['name']</code> - object member,
+ * <li><code>.*</code> or <code>[*]</code> - all object members or array items,
+ * <li><code>[2]</code> - array item by index,
+ * <li><code>[?(&#64;.path op literal)]</code> - array items for which filter holds, where operator is one of
+ * <code>==</code>, <code>!=</code>, <code>&lt;</code>, <code>&lt;=</code>, <code>&gt;</code>, <code>&gt;=</code> and
+ * literal is a number, a quoted string, <code>true</code>, <code>false</code> or <code>null</code>,
+ * <li><code>[?(&#64;.path)]</code> - array items having given member.
+ * </ul>
+ * Recursive descent, slices and unions are not supported. Filter needs item content before deciding, so a filtered
+ * item is captured and evaluated as a {@link JsonNode}; memory is bounded by the largest item, not by document size.
+ * <p>
+ * Resource limits, see {@link JsonLimits}, are configured with {@link #withLimits(JsonLimits)} and enforced on walked
+ * containers, bound values and filtered items; default query has no limits.
+ * <p>
+ * Query instance is immutable and thread safe; it is meant to be compiled once and run many times.
+ *
+ * @author Iulian Rotaru
+ */
+public final class JsonQuery
+{
+  /**
+   * Compile query expression.
+   *
+   * @param expression query expression.
+   * @return compiled query.
+   * @throws IllegalArgumentException if expression is null or not valid.
+   */
+  public static JsonQuery compile(String expression) throws IllegalArgumentException
+  {
+    notNull(expression, "Query expression");
+    return new JsonQuery(expression, new Compiler(expression).steps(), JsonLimits.NONE);
+  }
+
+  /** Query source expression. */
+  private final String expression;
+
+  /** Query steps, in evaluation order. */
+  private final Step[] steps;
+
+  /** Resource limits enforced while running this query. */
+  private final JsonLimits limits;
+
+  /**
+   * Create compiled query.
+   *
+   * @param expression query source expression,
+   * @param steps query steps,
+   * @param limits resource limits.
+   */
+  private JsonQuery(String expression, Step[] steps, JsonLimits limits)
+  {
+    this.expression = expression;
+    this.steps = steps;
+    this.limits = limits;
+  }
+
+  /**
+   * Create query with the same steps as this one, enforcing given resource limits. Nesting depth is checked separately
+   * for walked containers and for every bound value.
+   *
+   * @param limits resource limits, {@link JsonLimits#NONE} for no limits.
+   * @return new query instance.
+   * @throws IllegalArgumentException if limits argument is null.
+   */
+  public JsonQuery withLimits(JsonLimits limits) throws IllegalArgumentException
+  {
+    notNull(limits, "Limits");
+    return new JsonQuery(expression, steps, limits);
+  }
+
+  /**
+   * Run this query on JSON characters stream and deliver every matching value, bound to requested type, to consumer.
+   * Values are delivered in JSON stream order, while stream is read. Reader is not closed.
+   *
+   * @param reader JSON characters stream,
+   * @param type type of matching values,
+   * @param consumer consumer for matching values.
+   * @param <T> matching values type.
+   * @throws IllegalArgumentException if any argument is null.
+   * @throws IOException if reading from characters stream fails.
+   * @throws JsonParserException if JSON stream is not well formed or a matching value cannot be bound.
+   */
+  public <T> void run(Reader reader, Type type, Consumer<? super T> consumer) throws IllegalArgumentException, IOException, JsonParserException
+  {
+    notNull(reader, "JSON stream reader");
+    Walker walker = new Walker();
+    walker.lexer.reset(reader);
+    walker.run(type, consumer);
+  }
+
+  /**
+   * Run this query on JSON characters sequence, e.g. a string. See {@link #run(Reader, Type, Consumer)}.
+   *
+   * @param json JSON characters sequence,
+   * @param type type of matching values,
+   * @param consumer consumer for matching values.
+   * @param <T> matching values type.
+   * @throws IllegalArgumentException if any argument is null.
+   * @throws JsonParserException if JSON is not well formed or a matching value cannot be bound.
+   */
+  public <T> void run(CharSequence json, Type type, Consumer<? super T> consumer) throws IllegalArgumentException, JsonParserException
+  {
+    notNull(json, "JSON characters sequence");
+    Walker walker = new Walker();
+    walker.lexer.reset(json);
+    try {
+      walker.run(type, consumer);
+    }
+    catch(IOException e) {
+      throw new BugError("IO exception on in memory characters sequence: %s", e);
+    }
+  }
+
+  /**
+   * Run this query on JSON characters sequence and collect matching values into a list.
+   *
+   * @param json JSON characters sequence,
+   * @param type type of matching values.
+   * @param <T> matching values type.
+   * @return matching values, in JSON order, possible empty.
+   * @throws IllegalArgumentException if any argument is null.
+   * @throws JsonParserException if JSON is not well formed or a matching value cannot be bound.
+   */
+  public <T> List<T> select(CharSequence json, Type type) throws IllegalArgumentException, JsonParserException
+  {
+    List<T> values = new ArrayList<>();
+    this.<T> run(json, type, values::add);
+    return values;
+  }
+
+  @Override
+  public String toString()
+  {
+    return expression;
+  }
+
+  /**
+   * Evaluate query steps on a lazy tree node. Used for query remainder after a filter step.
+   *
+   * @param node current node,
+   * @param index index of the step to evaluate on node,
+   * @param type type of matching values,
+   * @param consumer consumer for matching values.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> void select(JsonNode node, int index, Type type, Consumer<? super T> consumer)
+  {
+    if(index == steps.length) {
+      consumer.accept((T)node.as(type));
+      return;
+    }
+    Step step = steps[index];
+    switch(node.kind()) {
+    case OBJECT:
+      if(step.kind == StepKind.ANY) {
+        for(String name : node.names()) {
+          select(node.get(name), index + 1, type, consumer);
+        }
+      }
+      else if(step.kind == StepKind.NAME) {
+        JsonNode member = node.get(step.name);
+        if(member != null) {
+          select(member, index + 1, type, consumer);
+        }
+      }
+      break;
+
+    case ARRAY:
+      for(int i = 0, size = node.size(); i < size; ++i) {
+        if(step.kind == StepKind.INDEX && step.index != i) {
+          continue;
+        }
+        if(step.kind == StepKind.ANY || step.kind == StepKind.INDEX || (step.kind == StepKind.FILTER && step.filter.test(node.get(i)))) {
+          select(node.get(i), index + 1, type, consumer);
+        }
+      }
+      break;
+
+    default:
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Streaming query evaluator. It is a parser extension in order to reuse parser value binding for matching values.
+   *
+   * @author Iulian Rotaru
+   */
+  private final class Walker extends Parser
+  {
+    /** Characters of filtered array item, reused for all items. */
+    private final StringBuilder item = new StringBuilder();
+
+    /** Nesting depth of walked containers. */
+    private int depth;
+
+    /** Create walker with its own lexer, not yet bound to a source, configured with query limits. */
+    Walker()
+    {
+      this.lexer = new Lexer((Reader)null);
+      setLimits(limits);
+      this.lexer.limits(limits);
+    }
+
+    /**
+     * Walk JSON stream from root value.
+     *
+     * @param type type of matching values,
+     * @param consumer consumer for matching values.
+     * @throws IOException if reading from characters stream fails.
+     * @throws JsonParserException if JSON stream is not well formed.
+     */
+    <T> void run(Type type, Consumer<? super T> consumer) throws IOException, JsonParserException
+    {
+      notNull(type, "Type");
+      notNull(consumer, "Consumer");
+      try {
+        lexer.peek();
+        if(!lexer.eof()) {
+          walk(0, type, consumer);
+        }
+      }
+      catch(JsonParserException e) {
+        throw e.attach(lexer.errorReporter());
+      }
+      finally {
+        lexer.reset((Reader)null);
+      }
+    }
+
+    /**
+     * Evaluate query step on the value next in JSON stream. Value is bound if all steps were consumed, walked into if
+     * step matches value kind or skipped otherwise.
+     *
+     * @param index index of the step to evaluate,
+     * @param type type of matching values,
+     * @param consumer consumer for matching values.
+     * @throws IOException if reading from characters stream fails.
+     * @throws JsonParserException if JSON stream is not well formed.
+     */
+    private <T> void walk(int index, Type type, Consumer<? super T> consumer) throws IOException, JsonParserException
+    {
+      if(index == steps.length) {
+        T value = _parse(type);
+        consumer.accept(value);
+        return;
+      }
+
+      Step step = steps[index];
+      char c = lexer.peek();
+      if(c == '{' && (step.kind == StepKind.NAME || step.kind == StepKind.ANY)) {
+        walkObject(index, type, consumer);
+      }
+      else if(c == '[' && step.kind != StepKind.NAME) {
+        walkArray(index, type, consumer);
+      }
+      else {
+        lexer.skipValue();
+      }
+    }
+
+    /**
+     * Walk object next in JSON stream, evaluating query step on its members. Not matching members are skipped.
+     *
+     * @param index index of the step to evaluate,
+     * @param type type of matching values,
+     * @param consumer consumer for matching values.
+     * @throws IOException if reading from characters stream fails.
+     * @throws JsonParserException if object is not well formed.
+     */
+    private <T> void walkObject(int index, Type type, Consumer<? super T> consumer) throws IOException, JsonParserException
+    {
+      Step step = steps[index];
+      lexer.read();
+      enter();
+      Token token = lexer.read();
+      if(token.ordinal() == Token.RIGHT_BRACE) {
+        --depth;
+        return;
+      }
+      for(int members = 1;; ++members) {
+        checkElements(members);
+        if(token.ordinal() != Token.NAME) {
+          throw new JsonParserException("Invalid token |%s| while waiting for a name.", token);
+        }
+        String name = token.value();
+        token = lexer.read();
+        if(token.ordinal() != Token.COLON) {
+          throw new JsonParserException("Expected COLON but got |%s|.", token);
+        }
+        if(step.kind == StepKind.ANY || step.name.equals(name)) {
+          walk(index + 1, type, consumer);
+        }
+        else {
+          lexer.skipValue();
+        }
+
+        token = lexer.read();
+        if(token.ordinal() == Token.RIGHT_BRACE) {
+          --depth;
+          return;
+        }
+        if(token.ordinal() != Token.COMMA) {
+          throw new JsonParserException("Expected RIGHT_BRACE but got %s. Maybe missing comma.", token);
+        }
+        token = lexer.read();
+      }
+    }
+
+    /**
+     * Walk array next in JSON stream, evaluating query step on its items. Not matching items are skipped; filtered items
+     * are captured and evaluated on lazy tree, see {@link JsonQuery#select(JsonNode, int, Type, Consumer)}.
+     *
+     * @param index index of the step to evaluate,
+     * @param type type of matching values,
+     * @param consumer consumer for matching values.
+     * @throws IOException if reading from characters stream fails.
+     * @throws JsonParserException if array is not well formed.
+     */
+    private <T> void walkArray(int index, Type type, Consumer<? super T> consumer) throws IOException, JsonParserException
+    {
+      Step step = steps[index];
+      lexer.read();
+      enter();
+      if(lexer.peek() == ']') {
+        lexer.read();
+        --depth;
+        return;
+      }
+      for(int i = 0;; ++i) {
+        checkElements(i + 1);
+        switch(step.kind) {
+        case ANY:
+          walk(index + 1, type, consumer);
+          break;
+
+        case INDEX:
+          if(i == step.index) {
+            walk(index + 1, type, consumer);
+          }
+          else {
+            lexer.skipValue();
+          }
+          break;
+
+        case FILTER:
+          item.setLength(0);
+          lexer.captureValue(item);
+          JsonNode node = JsonNode.parse(item, limits);
+          if(step.filter.test(node)) {
+            select(node, index + 1, type, consumer);
+          }
+          break;
+
+        default:
+          throw new BugError("Unexpected array step |%s|.", step.kind);
+        }
+
+        Token token = lexer.read();
+        if(token.ordinal() == Token.RIGHT_SQUARE) {
+          --depth;
+          return;
+        }
+        if(token.ordinal() != Token.COMMA) {
+          throw new JsonParserException("Expected RIGHT_SQUARE but got %s. Maybe missing comma.", token);
+        }
+      }
+    }
+
+    /**
+     * Enter walked container and check nesting depth does not exceed depth limit.
+     *
+     * @throws JsonLimitException if depth limit is exceeded.
+     */
+    private void enter()
+    {
+      if(++depth > limits.maxDepth()) {
+        throw new JsonLimitException(JsonLimitException.Limit.DEPTH, limits.maxDepth());
+      }
+    }
+
+    /**
+     * Check walked container elements count does not exceed elements limit.
+     *
+     * @param elements array items or object members count, including the element about to be walked.
+     * @throws JsonLimitException if elements limit is exceeded.
+     */
+    private void checkElements(int elements)
+    {
+      if(elements > limits.maxElements()) {
+        throw new JsonLimitException(JsonLimitException.Limit.ELEMENTS, limits.maxElements());
+      }
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Query step kind.
+   *
+   * @author Iulian Rotaru
+   */
+  private static enum StepKind
+  {
+    /** Named object member. */
+    NAME,
+    /** All object members or array items. */
+    ANY,
+    /** Array item by index. */
+    INDEX,
+    /** Array items accepted by filter. */
+    FILTER
+  }
+
+  /**
+   * Immutable query step.
+   *
+   * @author Iulian Rotaru
+   */
+  private static final class Step
+  {
+    final StepKind kind;
+    final String name;
+    final int index;
+    final Filter filter;
+
+    Step(StepKind kind, String name, int index, Filter filter)
+    {
+      this.kind = kind;
+      this.name = name;
+      this.index = index;
+      this.filter = filter;
+    }
+  }
+
+  /**
+   * Filter comparison operator.
+   *
+   * @author Iulian Rotaru
+   */
+  private static enum Operator
+  {
+    EXISTS(""), EQ("=="), NE("!="), LE("<="), GE(">="), LT("<"), GT(">");
+
+    final String symbol;
+
+    Operator(String symbol)
+    {
+      this.symbol = symbol;
+    }
+  }
+
+  /**
+   * Array item filter comparing item member with a literal value.
+   *
+   * @author Iulian Rotaru
+   */
+  private static final class Filter
+  {
+    /** Member path relative to filtered item. */
+    private final String[] path;
+    /** Comparison operator. */
+    private final Operator operator;
+    /** Literal value: a {@link Double}, a {@link String}, a {@link Boolean} or null. */
+    private final Object literal;
+
+    Filter(String[] path, Operator operator, Object literal)
+    {
+      this.path = path;
+      this.operator = operator;
+      this.literal = literal;
+    }
+
+    /**
+     * Test filtered item.
+     *
+     * @param item filtered item.
+     * @return true if item is accepted.
+     */
+    boolean test(JsonNode item)
+    {
+      JsonNode node = item;
+      for(String name : path) {
+        if(node.kind() != JsonNode.Kind.OBJECT) {
+          return false;
+        }
+        node = node.get(name);
+        if(node == null) {
+          return false;
+        }
+      }
+      if(operator == Operator.EXISTS) {
+        return true;
+      }
+
+      int comparison;
+      if(literal == null) {
+        if(!node.isNull()) {
+          return operator == Operator.NE;
+        }
+        comparison = 0;
+      }
+      else if(literal instanceof Double) {
+        if(node.kind() != JsonNode.Kind.NUMBER) {
+          return operator == Operator.NE;
+        }
+        comparison = Double.compare(node.asDouble(), (Double)literal);
+      }
+      else if(literal instanceof String) {
+        if(node.kind() != JsonNode.Kind.STRING) {
+          return operator == Operator.NE;
+        }
+        comparison = node.asString().compareTo((String)literal);
+      }
+      else {
+        if(node.kind() != JsonNode.Kind.BOOLEAN) {
+          return operator == Operator.NE;
+        }
+        comparison = Boolean.compare(node.asBoolean(), (Boolean)literal);
+      }
+
+      switch(operator) {
+      case EQ:
+        return comparison == 0;
+      case NE:
+        return comparison != 0;
+      case LT:
+        return comparison < 0;
+      case LE:
+        return comparison <= 0;
+      case GT:
+        return comparison > 0;
+      case GE:
+        return comparison >= 0;
+      default:
+        throw new BugError("Unexpected filter operator |%s|.", operator);
+      }
+    }
+  }
+
+  /**
+   * Query expression compiler. It is a recursive descent parser working directly on expression characters.
+   *
+   * @author Iulian Rotaru
+   */
+  private static final class Compiler
+  {
+    private final String expression;
+    private int position;
+
+    Compiler(String expression)
+    {
+      this.expression = expression;
+    }
+
+    /**
+     * Compile query expression into steps list.
+     *
+     * @return query steps.
+     * @throws IllegalArgumentException if expression is not valid.
+     */
+    Step[] steps() throws IllegalArgumentException
+    {
+      if(expression.isEmpty()) {
+        throw error("Empty expression");
+      }
+      List<Step> steps = new ArrayList<>();
+      if(consume('$')) {
+        if(position == expression.length()) {
+          return new Step[0];
+        }
+      }
+      else if(position < expression.length() && expression.charAt(position) != '[') {
+        // leading dot is optional when root symbol is missing
+        steps.add(dotStep());
+      }
+
+      while(position < expression.length()) {
+        if(consume('.')) {
+          if(peek() == '.') {
+            throw error("Recursive descent is not supported");
+          }
+          steps.add(dotStep());
+        }
+        else if(consume('[')) {
+          steps.add(bracketStep());
+        }
+        else {
+          throw error("Expected dot or left square");
+        }
+      }
+      return steps.toArray(new Step[steps.size()]);
+    }
+
+    private Step dotStep()
+    {
+      if(consume('*')) {
+        return new Step(StepKind.ANY, null, 0, null);
+      }
+      return new Step(StepKind.NAME, name(), 0, null);
+    }
+
+    private Step bracketStep()
+    {
+      Step step;
+      char c = peek();
+      if(consume('*')) {
+        step = new Step(StepKind.ANY, null, 0, null);
+      }
+      else if(c == '\'' || c == '"') {
+        step = new Step(StepKind.NAME, quoted(), 0, null);
+      }
+      else if(consume('?')) {
+        require('(');
+        step = new Step(StepKind.FILTER, null, 0, filter());
+        require(')');
+      }
+      else {
+        int start = position;
+        while(position < expression.length() && Character.isDigit(expression.charAt(position))) {
+          ++position;
+        }
+        if(start == position) {
+          throw error("Expected index, wildcard, quoted name or filter");
+        }
+        step = new Step(StepKind.INDEX, null, Integer.parseInt(expression.substring(start, position)), null);
+      }
+      require(']');
+      return step;
+    }
+
+    private Filter filter()
+    {
+      skipSpaces();
+      require('@');
+      List<String> path = new ArrayList<>();
+      while(consume('.')) {
+        path.add(name());
+      }
+      if(path.isEmpty()) {
+        throw error("Expected filter member path");
+      }
+      String[] names = path.toArray(new String[path.size()]);
+
+      skipSpaces();
+      if(peek() == ')') {
+        return new Filter(names, Operator.EXISTS, null);
+      }
+      Operator operator = null;
+      for(Operator candidate : Operator.values()) {
+        if(candidate != Operator.EXISTS && expression.startsWith(candidate.symbol, position)) {
+          operator = candidate;
+          position += candidate.symbol.length();
+          break;
+        }
+      }
+      if(operator == null) {
+        throw error("Expected comparison operator");
+      }
+      skipSpaces();
+      Object literal = literal();
+      if(literal instanceof Boolean || literal == null) {
+        if(operator != Operator.EQ && operator != Operator.NE) {
+          throw error("Only equality operators are supported for boolean and null");
+        }
+      }
+      skipSpaces();
+      return new Filter(names, operator, literal);
+    }
+
+    private Object literal()
+    {
+      char c = peek();
+      if(c == '\'' || c == '"') {
+        return quoted();
+      }
+      if(expression.startsWith("true", position)) {
+        position += 4;
+        return Boolean.TRUE;
+      }
+      if(expression.startsWith("false", position)) {
+        position += 5;
+        return Boolean.FALSE;
+      }
+      if(expression.startsWith("null", position)) {
+        position += 4;
+        return null;
+      }
+      int start = position;
+      while(position < expression.length() && "+-.eE0123456789".indexOf(expression.charAt(position)) != -1) {
+        ++position;
+      }
+      try {
+        return Double.parseDouble(expression.substring(start, position));
+      }
+      catch(NumberFormatException e) {
+        position = start;
+        throw error("Expected literal value");
+      }
+    }
+
+    private String name()
+    {
+      int start = position;
+      while(position < expression.length() && ".[]()*?@ '\"=!<>".indexOf(expression.charAt(position)) == -1) {
+        ++position;
+      }
+      if(start == position) {
+        throw error("Expected member name");
+      }
+      return expression.substring(start, position);
+    }
+
+    private String quoted()
+    {
+      char quote = expression.charAt(position++);
+      int end = expression.indexOf(quote, position);
+      if(end == -1) {
+        throw error("Not terminated quoted name");
+      }
+      String value = expression.substring(position, end);
+      position = end + 1;
+      return value;
+    }
+
+    private void skipSpaces()
+    {
+      while(position < expression.length() && expression.charAt(position) == ' ') {
+        ++position;
+      }
+    }
+
+    private char peek()
+    {
+      return position < expression.length() ? expression.charAt(position) : 0;
+    }
+
+    private boolean consume(char c)
+    {
+      if(peek() == c) {
+        ++position;
+        return true;
+      }
+      return false;
+    }
+
+    private void require(char c)
+    {
+      if(!consume(c)) {
+        throw error(String.format("Expected |%c|", c));
+      }
+    }
+
+    private IllegalArgumentException error(String message)
+    {
+      return new IllegalArgumentException(String.format("%s at index #%d in query |%s|.", message, position, expression));
+    }
+  }
+}
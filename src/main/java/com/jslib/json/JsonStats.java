@@ -0,0 +1,285 @@
+package com.jslib.json;
+
+import static com.jslib.util.Params.notNull;
+
+import java.beans.ConstructorProperties;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * JSON runtime statistics MBean. Caches statistics are read from parse plans and names caches; operations statistics
+ * are read from a {@link TypeCounters} instrumentation, so there is no counting beside instrumentation striped counters
+ * and every attribute read is a snapshot computed on demand.
+ *
+ * @author Iulian Rotaru
+ */
+public final class JsonStats implements JsonStatsMXBean
+{
+  /** MBean object name used by {@link JsonImpl#registerMBean()}. */
+  public static final String OBJECT_NAME = "com.jslib.json:type=JsonStats";
+
+  private final TypeCounters counters;
+
+  /**
+   * Create statistics MBean reading operations counters from given instrumentation.
+   *
+   * @param counters per type counters instrumentation.
+   * @throws IllegalArgumentException if counters argument is null.
+   */
+  public JsonStats(TypeCounters counters)
+  {
+    notNull(counters, "Type counters");
+    this.counters = counters;
+  }
+
+  /**
+   * Get operations counters this MBean reads from.
+   *
+   * @return per type counters instrumentation.
+   */
+  public TypeCounters counters()
+  {
+    return counters;
+  }
+
+  @Override
+  public int getParsePlansCacheSize()
+  {
+    return ParsePlan.size();
+  }
+
+  @Override
+  public double getParsePlansCacheHitRatio()
+  {
+    return ratio(ParsePlan.hits(), ParsePlan.misses());
+  }
+
+  @Override
+  public int getMemberNamesCacheSize()
+  {
+    return NamesCache.memberNames().size();
+  }
+
+  @Override
+  public double getMemberNamesCacheHitRatio()
+  {
+    return ratio(NamesCache.memberNames().hits(), NamesCache.memberNames().misses());
+  }
+
+  @Override
+  public int getDashedNamesCacheSize()
+  {
+    return NamesCache.dashedNames().size();
+  }
+
+  @Override
+  public double getDashedNamesCacheHitRatio()
+  {
+    return ratio(NamesCache.dashedNames().hits(), NamesCache.dashedNames().misses());
+  }
+
+  @Override
+  public long getParseOperations()
+  {
+    long operations = 0;
+    for(TypeCounters.Counters c : counters.parseCounters().values()) {
+      operations += c.operations();
+    }
+    return operations;
+  }
+
+  @Override
+  public long getParseErrors()
+  {
+    long errors = 0;
+    for(TypeCounters.Counters c : counters.parseCounters().values()) {
+      errors += c.errors();
+    }
+    return errors;
+  }
+
+  @Override
+  public long getParseChars()
+  {
+    long chars = 0;
+    for(TypeCounters.Counters c : counters.parseCounters().values()) {
+      chars += c.chars();
+    }
+    return chars;
+  }
+
+  @Override
+  public long getSerializeOperations()
+  {
+    long operations = 0;
+    for(TypeCounters.Counters c : counters.serializeCounters().values()) {
+      operations += c.operations();
+    }
+    return operations;
+  }
+
+  @Override
+  public long getSerializeErrors()
+  {
+    long errors = 0;
+    for(TypeCounters.Counters c : counters.serializeCounters().values()) {
+      errors += c.errors();
+    }
+    return errors;
+  }
+
+  @Override
+  public long getSerializeChars()
+  {
+    long chars = 0;
+    for(TypeCounters.Counters c : counters.serializeCounters().values()) {
+      chars += c.chars();
+    }
+    return chars;
+  }
+
+  @Override
+  public List<TypeStatistics> getParseTypes()
+  {
+    return statistics(counters.parseCounters().values());
+  }
+
+  @Override
+  public List<TypeStatistics> getSerializeTypes()
+  {
+    return statistics(counters.serializeCounters().values());
+  }
+
+  @Override
+  public List<TypeStatistics> topParseTypes(int count)
+  {
+    return top(getParseTypes(), count);
+  }
+
+  @Override
+  public List<TypeStatistics> topSerializeTypes(int count)
+  {
+    return top(getSerializeTypes(), count);
+  }
+
+  /**
+   * Compute cache hit ratio.
+   *
+   * @param hits cache hits count,
+   * @param misses cache misses count.
+   * @return hit ratio or zero if there was no lookup.
+   */
+  private static double ratio(long hits, long misses)
+  {
+    long lookups = hits + misses;
+    return lookups > 0 ? (double)hits / lookups : 0;
+  }
+
+  /**
+   * Take snapshot of every counters from collection, preserving collection order.
+   *
+   * @param counters counters collection.
+   * @return counters snapshots.
+   */
+  private static List<TypeStatistics> statistics(Collection<TypeCounters.Counters> counters)
+  {
+    List<TypeStatistics> statistics = new ArrayList<>(counters.size());
+    for(TypeCounters.Counters c : counters) {
+      statistics.add(new TypeStatistics(c.typeName(), c.operations(), c.errors(), c.chars(), c.nanos(), c.latencyHistogram()));
+    }
+    return statistics;
+  }
+
+  /**
+   * Sort statistics by cumulative time, descending, and keep at most requested count.
+   *
+   * @param statistics statistics to sort,
+   * @param count maximum number of returned statistics.
+   * @return top statistics.
+   * @throws IllegalArgumentException if count is negative.
+   */
+  private static List<TypeStatistics> top(List<TypeStatistics> statistics, int count)
+  {
+    if(count < 0) {
+      throw new IllegalArgumentException("Negative count.");
+    }
+    statistics.sort(Comparator.comparingLong(TypeStatistics::getNanos).reversed());
+    return statistics.size() > count ? new ArrayList<>(statistics.subList(0, count)) : statistics;
+  }
+
+  /**
+   * Immutable snapshot of a type counters, mapped to open data by MXBean framework.
+   *
+   * @author Iulian Rotaru
+   */
+  public static final class TypeStatistics
+  {
+    private final String typeName;
+    private final long operations;
+    private final long errors;
+    private final long chars;
+    private final long nanos;
+    private final long[] latencyHistogram;
+
+    @ConstructorProperties({ "typeName", "operations", "errors", "chars", "nanos", "latencyHistogram" })
+    public TypeStatistics(String typeName, long operations, long errors, long chars, long nanos, long[] latencyHistogram)
+    {
+      this.typeName = typeName;
+      this.operations = operations;
+      this.errors = errors;
+      this.chars = chars;
+      this.nanos = nanos;
+      this.latencyHistogram = latencyHistogram;
+    }
+
+    /** @return type name. */
+    public String getTypeName()
+    {
+      return typeName;
+    }
+
+    /** @return number of operations, failed included. */
+    public long getOperations()
+    {
+      return operations;
+    }
+
+    /** @return number of failed operations. */
+    public long getErrors()
+    {
+      return errors;
+    }
+
+    /** @return characters consumed or written. */
+    public long getChars()
+    {
+      return chars;
+    }
+
+    /** @return cumulative operations elapsed time, in nanoseconds. */
+    public long getNanos()
+    {
+      return nanos;
+    }
+
+    /** @return mean operation elapsed time, in nanoseconds, zero if there was no operation. */
+    public long getMeanNanos()
+    {
+      return operations > 0 ? nanos / operations : 0;
+    }
+
+    /** @return operations count for every power of two latency bucket, see {@link TypeCounters}. */
+    public long[] getLatencyHistogram()
+    {
+      return latencyHistogram.clone();
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format("%s: operations=%d, errors=%d, chars=%d, nanos=%d", typeName, operations, errors, chars, nanos);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.jslib.json;
+
+import java.util.List;
+
+/**
+ * Management interface for JSON runtime statistics, registered on platform MBean server under
+ * {@link JsonStats#OBJECT_NAME}, see {@link JsonImpl#registerMBean()}. Characters are counted instead of bytes since
+ * parser and serializer work on character streams.
+ *
+ * @author Iulian Rotaru
+ */
+public interface JsonStatsMXBean
+{
+  /** @return number of cached parse plans. */
+  int getParsePlansCacheSize();
+
+  /** @return ratio of parse plans served from cache, zero if there was no lookup. */
+  double getParsePlansCacheHitRatio();
+
+  /** @return number of cached JSON property names to Java member names translations. */
+  int getMemberNamesCacheSize();
+
+  /** @return ratio of member names translations served from cache, zero if there was no lookup. */
+  double getMemberNamesCacheHitRatio();
+
+  /** @return number of cached Java member names to dashed names translations. */
+  int getDashedNamesCacheSize();
+
+  /** @return ratio of dashed names translations served from cache, zero if there was no lookup. */
+  double getDashedNamesCacheHitRatio();
+
+  /** @return number of parse operations, failed included. */
+  long getParseOperations();
+
+  /** @return number of failed parse operations. */
+  long getParseErrors();
+
+  /** @return characters consumed by parse operations. */
+  long getParseChars();
+
+  /** @return number of stringify operations, failed included. */
+  long getSerializeOperations();
+
+  /** @return number of failed stringify operations. */
+  long getSerializeErrors();
+
+  /** @return characters written by stringify operations. */
+  long getSerializeChars();
+
+  /** @return parse statistics for every parsed type, sorted by type name. */
+  List<JsonStats.TypeStatistics> getParseTypes();
+
+  /** @return stringify statistics for every serialized value class, sorted by class name. */
+  List<JsonStats.TypeStatistics> getSerializeTypes();
+
+  /**
+   * Get types with the greatest cumulative parse time.
+   *
+   * @param count maximum number of returned types.
+   * @return parse statistics sorted by cumulative time, descending.
+   */
+  List<JsonStats.TypeStatistics> topParseTypes(int count);
+
+  /**
+   * Get value classes with the greatest cumulative stringify time.
+   *
+   * @param count maximum number of returned classes.
+   * @return stringify statistics sorted by cumulative time, descending.
+   */
+  List<JsonStats.TypeStatistics> topSerializeTypes(int count);
+}
@@ -2,7 +2,8 @@ package com.jslib.json;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 /**
  * Morphological parser. This class deals with words, aka. tokens; reads from characters stream and return specific
@@ -16,12 +17,12 @@ import java.util.Stack;
  */
 public final class Lexer {
 	private static final Token TOKEN_EOF = new Token(Token.EOF);
-	private static final Token TOKEN_LEFT_BRACE = new Token(Token.LEFT_BRACE);
-	private static final Token TOKEN_RIGHT_BRACE = new Token(Token.RIGHT_BRACE);
-	private static final Token TOKEN_LEFT_SQUARE = new Token(Token.LEFT_SQUARE);
-	private static final Token TOKEN_RIGHT_SQUARE = new Token(Token.RIGHT_SQUARE);
-	private static final Token TOKEN_COLON = new Token(Token.COLON);
-	private static final Token TOKEN_COMMA = new Token(Token.COMMA);
+	static final Token TOKEN_LEFT_BRACE = new Token(Token.LEFT_BRACE);
+	static final Token TOKEN_RIGHT_BRACE = new Token(Token.RIGHT_BRACE);
+	static final Token TOKEN_LEFT_SQUARE = new Token(Token.LEFT_SQUARE);
+	static final Token TOKEN_RIGHT_SQUARE = new Token(Token.RIGHT_SQUARE);
+	static final Token TOKEN_COLON = new Token(Token.COLON);
+	static final Token TOKEN_COMMA = new Token(Token.COMMA);
 
 	/** Character reader instance created outside lexer. */
 	private CharReader reader;
@@ -30,14 +31,20 @@ public final class Lexer {
 	private State state = State.PRIMITIVE;
 
 	/** Stack for current processing token before entering inner objects and arrays. */
-	private Stack<State> statesStack = new Stack<State>();
+	private final Deque<State> statesStack = new ArrayDeque<>();
 
 	/** Stack of unreaded tokens. */
-	private Stack<Token> unreadTokens = new Stack<Token>();
+	private final Deque<Token> unreadTokens = new ArrayDeque<>();
 
 	/** Token value builder. */
 	private LexerValueBuilder builder = new LexerValueBuilder();
 
+	/** Number of tokens read since last reset, unread tokens counted once. */
+	private int tokens;
+
+	/** Maximum length of collected values, preserved between parsing processes. */
+	private int maxStringLength = Integer.MAX_VALUE;
+
 	/**
 	 * Package private constructor.
 	 * 
@@ -47,6 +54,79 @@ public final class Lexer {
 		this.reader = new CharReader(reader);
 	}
 
+	/**
+	 * Reset lexer internal state and bind it to a new characters stream. Allocated buffers are preserved so that lexer
+	 * instance can be reused. Null <code>reader</code> is accepted in order to release reference to previous characters
+	 * stream.
+	 * 
+	 * @param reader input characters stream, possible null.
+	 */
+	public void reset(Reader reader) {
+		this.reader.reset(reader);
+		resetState();
+	}
+
+	/**
+	 * Reset lexer internal state and bind it to a characters sequence, e.g. a string. Characters sequence is read directly,
+	 * without a reader.
+	 * 
+	 * @param sequence input characters sequence.
+	 */
+	public void reset(CharSequence sequence) {
+		this.reader.reset(sequence);
+		resetState();
+	}
+
+	/**
+	 * Reset lexer internal state and bind it to a characters array. Array is read in place, with no copy.
+	 * 
+	 * @param chars input characters array,
+	 * @param offset index of the first character to read,
+	 * @param length number of characters to read.
+	 */
+	public void reset(char[] chars, int offset, int length) {
+		this.reader.reset(chars, offset, length);
+		resetState();
+	}
+
+	/**
+	 * Configure resource limits enforced by this lexer: string length and input characters. Limits are preserved
+	 * between parsing processes; it is caller responsibility to configure limits before binding characters source.
+	 * 
+	 * @param limits resource limits.
+	 */
+	void limits(JsonLimits limits) {
+		maxStringLength = limits.maxStringLength();
+		reader.maxChars(limits.maxChars());
+	}
+
+	/** Reset lexer automata state, stacks and value builder. */
+	private void resetState() {
+		state = State.PRIMITIVE;
+		statesStack.clear();
+		unreadTokens.clear();
+		builder.reset();
+		tokens = 0;
+	}
+
+	/**
+	 * Get the number of tokens read since last reset. A token put back by {@link #unread(Token)} is counted once.
+	 * 
+	 * @return tokens count.
+	 */
+	int tokens() {
+		return tokens;
+	}
+
+	/**
+	 * Get the number of characters consumed from characters source since last reset.
+	 * 
+	 * @return consumed characters count.
+	 */
+	long consumed() {
+		return reader.consumed();
+	}
+
 	/**
 	 * Read next token from characters stream.
 	 * 
@@ -61,6 +141,7 @@ public final class Lexer {
 		if (!unreadTokens.isEmpty()) {
 			return unreadTokens.pop();
 		}
+		++tokens;
 
 		// excerpt for json.org: Whitespace can be inserted between any pair of tokens.
 		char c = nextNonWhiteSpace();
@@ -98,28 +179,79 @@ public final class Lexer {
 			return TOKEN_COMMA;
 
 		default:
-			String string = collect(c);
-			Token token = null;
+			collect(c);
+			int ordinal;
 			switch (state) {
 			case NAME:
-				token = new Token(Token.NAME, string);
-				return token;
+				ordinal = Token.NAME;
+				break;
 
 			case PRIMITIVE:
 			case VALUE:
-				token = new Token(Token.VALUE, string);
-				return token;
+				ordinal = Token.VALUE;
+				break;
 
 			case ITEM:
-				token = new Token(Token.ITEM, string);
-				return token;
+				ordinal = Token.ITEM;
+				break;
 
 			default:
 				throw new JsonParserException("Invalid lexer state |%s| when collecting string.", this.state);
 			}
+			// only not quoted values can be numbers
+			if (c == '"' || ordinal == Token.NAME) {
+				return new Token(ordinal, builder.toString());
+			}
+			return builder.toToken(ordinal);
 		}
 	}
 
+	/**
+	 * Skip next value from characters stream without creating tokens or strings. Used by parser to ignore values of
+	 * properties with no related field; lexer state is the same as after reading a value token.
+	 * 
+	 * @throws IOException if reading from input characters stream fails.
+	 * @throws JsonParserException if there is no value to skip or value is not terminated.
+	 */
+	public void skipValue() throws IOException, JsonParserException {
+		if (!unreadTokens.isEmpty()) {
+			throw new IllegalStateException("Attempt to skip value while there are unread tokens.");
+		}
+		reader.skipValue();
+	}
+
+	/**
+	 * Get next not white space character without consuming it, or undefined if stream end was reached. Lets callers decide
+	 * between reading and skipping next value.
+	 * 
+	 * @return next not white space character.
+	 * @throws IOException if reading from input characters stream fails.
+	 */
+	char peek() throws IOException {
+		if (!unreadTokens.isEmpty()) {
+			throw new IllegalStateException("Attempt to peek character while there are unread tokens.");
+		}
+		char c = reader.nextNonWhiteSpace();
+		if (!reader.eof()) {
+			reader.unread(c);
+		}
+		return c;
+	}
+
+	/**
+	 * Skip next value, like {@link #skipValue()}, and append its JSON characters to given builder.
+	 * 
+	 * @param builder target for value JSON characters.
+	 * @throws IOException if reading from input characters stream fails.
+	 * @throws JsonParserException if there is no value to skip or value is not terminated.
+	 */
+	void captureValue(StringBuilder builder) throws IOException, JsonParserException {
+		if (!unreadTokens.isEmpty()) {
+			throw new IllegalStateException("Attempt to capture value while there are unread tokens.");
+		}
+		reader.captureValue(builder);
+	}
+
 	/**
 	 * Put back the token on characters stream. Actually token is pushed to {@link #unreadTokens} stack but overall lexer
 	 * behavior is like pushing back to reader.
@@ -130,6 +262,15 @@ public final class Lexer {
 		unreadTokens.push(token);
 	}
 
+	/**
+	 * Get error reporter updated while reading characters stream.
+	 * 
+	 * @return error reporter instance.
+	 */
+	ErrorReporter errorReporter() {
+		return reader.errorReporter();
+	}
+
 	/**
 	 * Predicate to test if input characters stream is ended.
 	 * 
@@ -146,50 +287,51 @@ public final class Lexer {
 	 * @throws IOException if IO read operation fails.
 	 */
 	private char nextNonWhiteSpace() throws IOException {
-		char c = 0;
-		do {
-			c = reader.next();
-		} while (Character.isWhitespace(c));
-		return c;
+		return reader.nextNonWhiteSpace();
 	}
 
 	/**
 	 * Start collecting token value characters, blocking till value complete. This method is invoked with first character from
-	 * token value then enter an internal loop collecting all value characters. Uses {@link #builder} to accumulate characters.
+	 * token value then enter an internal loop collecting all value characters. Uses {@link #builder} to accumulate characters;
+	 * token is created from value builder by caller.
 	 * 
 	 * @param c first token value character.
-	 * @return token value.
 	 * @throws IOException if IO read operation fails.
 	 */
-	private String collect(char c) throws IOException {
+	private void collect(char c) throws IOException {
 		builder.clear();
 		c = reader.require(c);
 
 		if (c == '"') {
-		    // collect till value builder signals end of string by returning false
+			// copy unescaped runs in bulk and process quotation mark and escape sequences one character at a time
+			// collect till value builder signals end of string by returning false
 			for (;;) {
-				if(!builder.append(reader.require())) {
-				  break;
+				reader.collectQuoted(builder, maxStringLength);
+				checkLength();
+				if (!builder.append(reader.require())) {
+					break;
 				}
 			}
 			reader.skipWhiteSpaces();
-			return builder.toString();
+			return;
 		}
 
 		if (this.state == State.PRIMITIVE) {
 			// here we have a primitive value other than string, processed above; collect all till end of stream
 			// primitive values cannot contain white spaces
 			// at this point c variable holds first character from primitive value - is guaranteed to not be white space
-			for (; !reader.eof() && !Character.isWhitespace(c);) {
+			for (; !reader.eof() && !CharReader.isWhitespace(c);) {
 				builder.append(c);
+				reader.collectUnquoted(builder, maxStringLength);
+				checkLength();
 				c = reader.next();
 			}
-			return builder.toString();
+			return;
 		}
 
 		// collect till next right brace, right square, colon or comma; unread the string end mark
 		FOR_LOOP: for (boolean whitespaceFound = false;;) {
-			if (Character.isWhitespace(c)) {
+			if (CharReader.isWhitespace(c)) {
 				whitespaceFound = true;
 				c = reader.require();
 				continue;
@@ -207,10 +349,22 @@ public final class Lexer {
 					throw new JsonParserException("Invalid primitive value with white space.");
 				}
 				builder.append(c);
+				reader.collectUnquoted(builder, maxStringLength);
+				checkLength();
 				c = reader.require();
 			}
 		}
-		return builder.toString();
+	}
+
+	/**
+	 * Check collected value length does not exceed string length limit.
+	 * 
+	 * @throws JsonLimitException if string length limit is exceeded.
+	 */
+	private void checkLength() {
+		if (builder.length() > maxStringLength) {
+			throw new JsonLimitException(JsonLimitException.Limit.STRING_LENGTH, maxStringLength);
+		}
 	}
 
 	/**
@@ -3,19 +3,50 @@ package com.jslib.json;
 /**
  * Lexer value builder with escape and unicode processing. This helper class is used by {@link Lexer} to collect values as Java
  * strings. Is parser job to convert strings into instances.
+ * <p>
+ * Unicode escape sequences are decoded arithmetically, with no intermediate strings. Surrogate pairs are validated: a high
+ * surrogate escape should be followed by a low surrogate escape and a low surrogate escape is not accepted alone;
+ * otherwise {@link JsonParserException} is thrown.
  * 
  * @author Iulian Rotaru
  */
 public final class LexerValueBuilder {
+	/** Maximum capacity of internal string builder preserved by {@link #reset()}. */
+	private static final int MAX_RETAINED_CAPACITY = 8192;
+
+	/** Maximum number of significant digits accumulated into number mantissa; 18 digits always fit Java long. */
+	private static final int MAX_MANTISSA_DIGITS = 18;
+
+	/** Maximum mantissa value that is exactly representable as double. */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/** Powers of ten exactly representable as double, used by decimal numbers fast path. */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
 	/** Internal string builder. */
 	private StringBuilder builder = new StringBuilder();
 
-	/** Unicode value builder. */
-	private StringBuilder unicode = new StringBuilder(4);
+	/** Code unit value decoded so far from unicode escape sequence. */
+	private int unicode;
+
+	/** Number of hexadecimal digits collected for current unicode escape sequence. */
+	private int unicodeDigits;
+
+	/** High surrogate decoded from previous unicode escape sequence, waiting for its low surrogate pair, or zero. */
+	private char highSurrogate;
 
 	/** Value builder state machine. */
 	private LexerValueBuilder.State state = State.CHAR;
 
+	/**
+	 * Get the number of characters collected so far.
+	 * 
+	 * @return value length.
+	 */
+	int length() {
+		return builder.length();
+	}
+
 	/**
 	 * Append character to this string value builder.
 	 * 
@@ -24,6 +55,9 @@ public final class LexerValueBuilder {
 	public boolean append(char c) {
 		switch (state) {
 		case CHAR:
+			if (highSurrogate != 0 && c != '\\') {
+				throw unpairedSurrogate(highSurrogate);
+			}
 		    if( c == '"') {
 		      return false;
 		    }
@@ -35,10 +69,14 @@ public final class LexerValueBuilder {
 			break;
 
 		case ESCAPE:
+			if (highSurrogate != 0 && c != 'u') {
+				throw unpairedSurrogate(highSurrogate);
+			}
 			switch (c) {
 			case 'u':
 				state = State.UNICODE;
-				unicode.setLength(0);
+				unicode = 0;
+				unicodeDigits = 0;
 				return true;
 
 			case '"':
@@ -80,9 +118,9 @@ public final class LexerValueBuilder {
 			break;
 
 		case UNICODE:
-			unicode.append(c);
-			if (unicode.length() == 4) {
-				builder.append((char) Integer.parseInt(unicode.toString(), 16));
+			unicode = (unicode << 4) | hexDigit(c);
+			if (++unicodeDigits == 4) {
+				appendCodeUnit((char) unicode);
 				state = State.CHAR;
 			}
 			break;
@@ -93,10 +131,228 @@ public final class LexerValueBuilder {
 		return true;
 	}
 
+	/**
+	 * Append a range of characters to this string value builder. If builder is processing an escape sequence, characters
+	 * are processed by {@link #append(char)} till escape sequence end; the rest of the range is appended in bulk. It is
+	 * caller responsibility to ensure given range does not contain quotation mark or reverse solidus.
+	 * 
+	 * @param chars characters buffer,
+	 * @param offset index of the first character to append,
+	 * @param count number of characters to append.
+	 */
+	public void append(char[] chars, int offset, int count) {
+		int index = offset;
+		final int end = offset + count;
+		// pending high surrogate is processed by single character append that rejects not escaped characters
+		while ((state != State.CHAR || highSurrogate != 0) && index < end) {
+			append(chars[index++]);
+		}
+		if (index < end) {
+			builder.append(chars, index, end - index);
+		}
+	}
+
 	public void clear() {
 		builder.setLength(0);
 	}
 
+	/**
+	 * Reset this value builder for reuse. Beside clearing collected characters, takes care to release internal string builder
+	 * if it grew too large while processing a huge value.
+	 */
+	public void reset() {
+		if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+			builder = new StringBuilder();
+		}
+		builder.setLength(0);
+		state = State.CHAR;
+		unicode = 0;
+		unicodeDigits = 0;
+		highSurrogate = 0;
+	}
+
+	/**
+	 * Append code unit decoded from unicode escape sequence, taking care of surrogate pairs. A high surrogate is kept
+	 * pending till its low surrogate pair is decoded.
+	 * 
+	 * @param unit decoded code unit.
+	 * @throws JsonParserException if code unit breaks a surrogate pair.
+	 */
+	private void appendCodeUnit(char unit) {
+		if (highSurrogate != 0) {
+			if (!Character.isLowSurrogate(unit)) {
+				throw unpairedSurrogate(highSurrogate);
+			}
+			builder.append(highSurrogate);
+			builder.append(unit);
+			highSurrogate = 0;
+			return;
+		}
+		if (Character.isHighSurrogate(unit)) {
+			highSurrogate = unit;
+			return;
+		}
+		if (Character.isLowSurrogate(unit)) {
+			throw unpairedSurrogate(unit);
+		}
+		builder.append(unit);
+	}
+
+	/**
+	 * Create exception for surrogate code unit not part of a valid surrogate pair.
+	 * 
+	 * @param unit unpaired surrogate.
+	 * @return parser exception.
+	 */
+	private static JsonParserException unpairedSurrogate(char unit) {
+		return new JsonParserException("Bad JSON syntax. Unpaired surrogate |\\u%04x|", (int) unit);
+	}
+
+	/**
+	 * Create value token for collected not quoted characters. If collected characters are a JSON number return a numeric
+	 * token, see {@link Token#isInteger()} and {@link Token#isDecimal()}; otherwise return token with string value.
+	 * <p>
+	 * Numbers are recognized strictly, accordingly JSON grammar: optional minus sign, integer part without leading zeros,
+	 * optional fraction and optional exponent. Integer value is computed without creating a string if it has at most 18
+	 * digits. Decimal value is computed exactly, with a single floating point operation, if mantissa fits 53 bits and
+	 * decimal exponent is in [-22, 22] range - the Clinger fast path; otherwise falls back to
+	 * {@link Double#parseDouble(String)}. As for integers, string value of fast path decimals without exponent is created
+	 * on demand, see {@link Token#value()}. Anything else, e.g. hexadecimal numbers, negative zero or integers with more
+	 * than 18 digits, is not recognized as number and is left to converter.
+	 * 
+	 * @param ordinal token ordinal.
+	 * @return value token.
+	 */
+	public Token toToken(int ordinal) {
+		final StringBuilder builder = this.builder;
+		final int length = builder.length();
+		int index = 0;
+
+		boolean negative = false;
+		if (index < length && builder.charAt(index) == '-') {
+			negative = true;
+			++index;
+		}
+
+		long mantissa = 0;
+		int mantissaDigits = 0;
+		boolean truncated = false;
+		int exponent = 0;
+		boolean plain = true;
+
+		final int integerStart = index;
+		for (; index < length; ++index) {
+			char c = builder.charAt(index);
+			if (c < '0' || c > '9') {
+				break;
+			}
+			if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+				mantissa = mantissa * 10 + (c - '0');
+				++mantissaDigits;
+			} else {
+				truncated = true;
+			}
+		}
+		final int integerDigits = index - integerStart;
+		if (integerDigits == 0 || (integerDigits > 1 && builder.charAt(integerStart) == '0')) {
+			return new Token(ordinal, toString());
+		}
+
+		if (index == length) {
+			if (truncated || (negative && mantissa == 0)) {
+				return new Token(ordinal, toString());
+			}
+			return new Token(ordinal, negative ? -mantissa : mantissa);
+		}
+
+		if (builder.charAt(index) == '.') {
+			final int fractionStart = ++index;
+			for (; index < length; ++index) {
+				char c = builder.charAt(index);
+				if (c < '0' || c > '9') {
+					break;
+				}
+				if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+					mantissa = mantissa * 10 + (c - '0');
+					if (mantissa != 0) {
+						++mantissaDigits;
+					}
+					--exponent;
+				} else {
+					truncated = true;
+				}
+			}
+			if (index == fractionStart) {
+				return new Token(ordinal, toString());
+			}
+		}
+
+		if (index < length && (builder.charAt(index) == 'e' || builder.charAt(index) == 'E')) {
+			plain = false;
+			++index;
+			boolean negativeExponent = false;
+			if (index < length && (builder.charAt(index) == '-' || builder.charAt(index) == '+')) {
+				negativeExponent = builder.charAt(index) == '-';
+				++index;
+			}
+			final int exponentStart = index;
+			int exponentValue = 0;
+			for (; index < length; ++index) {
+				char c = builder.charAt(index);
+				if (c < '0' || c > '9') {
+					break;
+				}
+				if (exponentValue < 10000) {
+					exponentValue = exponentValue * 10 + (c - '0');
+				} else {
+					truncated = true;
+				}
+			}
+			if (index == exponentStart) {
+				return new Token(ordinal, toString());
+			}
+			exponent += negativeExponent ? -exponentValue : exponentValue;
+		}
+
+		if (index != length) {
+			return new Token(ordinal, toString());
+		}
+
+		if (truncated || mantissa > MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+			String value = builder.toString();
+			return new Token(ordinal, value, Double.parseDouble(value));
+		}
+		double number = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		if (negative) {
+			number = -number;
+		}
+		if (plain) {
+			// plain decimal has all its digits into mantissa and fraction digits count is the negated exponent
+			return new Token(ordinal, mantissa, -exponent, number);
+		}
+		return new Token(ordinal, builder.toString(), number);
+	}
+
+	/**
+	 * Get the value of hexadecimal digit from unicode escape sequence.
+	 * 
+	 * @param c hexadecimal digit.
+	 * @return digit value.
+	 * @throws JsonParserException if character is not a hexadecimal digit.
+	 */
+	private static int hexDigit(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		throw new JsonParserException("Bad JSON syntax. Invalid unicode escape digit |%s|", c);
+	}
+
 	@Override
 	public String toString() {
 		String s = builder.toString();
@@ -111,4 +367,4 @@ public final class LexerValueBuilder {
 	private static enum State {
 		NONE, CHAR, ESCAPE, UNICODE
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
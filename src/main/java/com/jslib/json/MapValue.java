@@ -35,6 +35,18 @@ public final class MapValue extends ObjectValue {
 	 *             missing.
 	 */
 	public MapValue(Converter converter, Type type) {
+		this(converter, type, null);
+	}
+
+	/**
+	 * Construct map value helper that parses into an existing map. Existing map is cleared and refilled from JSON stream. If
+	 * given instance is null a new map is created, see {@link #MapValue(Converter, Type)}.
+	 * 
+	 * @param type parameterized map type,
+	 * @param instance existing map, null accepted.
+	 * @throws JsonParserException if <code>type</code> is not a valid map type.
+	 */
+	MapValue(Converter converter, Type type, Map<Object, Object> instance) {
 		super(converter);
 		if (!(type instanceof ParameterizedType)) {
 			throw new JsonParserException("This JSON parser mandates generic maps usage but got |%s|.", type);
@@ -50,7 +62,12 @@ public final class MapValue extends ObjectValue {
 
 		this.keyType = (Class<?>) actualTypeArguments[0];
 		this.valueType = (Class<?>) actualTypeArguments[1];
-		this.instance = Classes.newMap(rawType);
+		if (instance != null) {
+			instance.clear();
+			this.instance = instance;
+		} else {
+			this.instance = Classes.newMap(rawType);
+		}
 	}
 
 	/**
@@ -102,4 +119,15 @@ public final class MapValue extends ObjectValue {
 		}
 		((Map) instance).put(key, value);
 	}
+
+	/**
+	 * Add map entry with value from lexer token, using token numeric value if the case.
+	 * 
+	 * @param token map value token.
+	 */
+	@Override
+	public void setValueToken(Token token) {
+		Object number = token.asNumber(valueType);
+		setValue(number != null ? number : token.value());
+	}
 }
@@ -37,4 +37,8 @@ public class MissingFieldValue extends ObjectValue {
 	@Override
 	public void setValue(Object value) {
 	}
+
+	@Override
+	public void setValueToken(Token token) {
+	}
 }
@@ -0,0 +1,166 @@
+package com.jslib.json;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.jslib.util.Strings;
+
+/**
+ * Bounded, concurrent cache for names translation between JSON property names and Java member names. JSON streams
+ * frequently use dashed property names, e.g. <code>order-id</code>, that parser translates to Java member names,
+ * <code>orderId</code>, for every property of every object. Since the set of distinct names is small compared with the
+ * number of translations, this class keeps translated names in a map shared by all parser instances.
+ * <p>
+ * There are two global caches: {@link #memberNames()} used by parser to convert JSON property names to Java member names
+ * and {@link #dashedNames()} used by serializer, when configured for dashed output, for the inverse translation.
+ * <p>
+ * Cache size is bounded to {@link #MAX_SIZE} entries. After capacity is reached new names are still translated but not
+ * stored, so that hostile JSON streams with random property names cannot grow the cache indefinitely. Every cache
+ * instance keeps hit and miss counters that can be inspected at runtime.
+ *
+ * @author Iulian Rotaru
+ */
+public final class NamesCache
+{
+  /** Maximum number of entries stored by a cache instance. */
+  private static final int MAX_SIZE = 4096;
+
+  /** Cache for JSON property names translated to Java member names. */
+  private static final NamesCache MEMBER_NAMES = new NamesCache(false);
+
+  /** Cache for Java member names translated to dashed JSON property names. */
+  private static final NamesCache DASHED_NAMES = new NamesCache(true);
+
+  /**
+   * Get global cache for JSON property names to Java member names translation.
+   *
+   * @return member names cache.
+   */
+  public static NamesCache memberNames()
+  {
+    return MEMBER_NAMES;
+  }
+
+  /**
+   * Get global cache for Java member names to dashed JSON property names translation.
+   *
+   * @return dashed names cache.
+   */
+  public static NamesCache dashedNames()
+  {
+    return DASHED_NAMES;
+  }
+
+  /** Original names mapped to their translated names. */
+  private final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>();
+
+  /** Translation direction, true if this cache converts member names to dashed names. */
+  private final boolean dashed;
+
+  /** Number of translations served from cache. */
+  private final LongAdder hits = new LongAdder();
+
+  /** Number of translations computed because name was not cached. */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Create names cache for given translation direction.
+   *
+   * @param dashed true for member to dashed names translation.
+   */
+  private NamesCache(boolean dashed)
+  {
+    this.dashed = dashed;
+  }
+
+  /**
+   * Get translated name, from cache if present or computed and cached otherwise. Null name is returned as it is.
+   *
+   * @param name name to translate, null accepted.
+   * @return translated name, possible null.
+   */
+  public String get(String name)
+  {
+    if(name == null) {
+      return null;
+    }
+    String translatedName = names.get(name);
+    if(translatedName != null) {
+      hits.increment();
+      return translatedName;
+    }
+
+    misses.increment();
+    translatedName = dashed ? toDashedName(name) : Strings.toMemberName(name);
+    if(names.size() < MAX_SIZE) {
+      names.putIfAbsent(name, translatedName);
+    }
+    return translatedName;
+  }
+
+  /**
+   * Get the number of translations served from cache.
+   *
+   * @return cache hits count.
+   */
+  public long hits()
+  {
+    return hits.sum();
+  }
+
+  /**
+   * Get the number of translations computed because name was not already cached.
+   *
+   * @return cache misses count.
+   */
+  public long misses()
+  {
+    return misses.sum();
+  }
+
+  /**
+   * Get the number of names currently stored in this cache.
+   *
+   * @return cache size.
+   */
+  public int size()
+  {
+    return names.size();
+  }
+
+  /** Remove all cached names and reset hit and miss counters. For tests only, since caches are process wide. */
+  void clear()
+  {
+    names.clear();
+    hits.reset();
+    misses.reset();
+  }
+
+  /**
+   * Convert Java member name to dashed name, e.g. <code>orderId</code> to <code>order-id</code>. Every upper case
+   * character is replaced by dash followed by its lower case counterpart.
+   *
+   * @param memberName Java member name.
+   * @return dashed name.
+   */
+  private static String toDashedName(String memberName)
+  {
+    StringBuilder builder = null;
+    for(int i = 0; i < memberName.length(); ++i) {
+      char c = memberName.charAt(i);
+      if(Character.isUpperCase(c)) {
+        if(builder == null) {
+          builder = new StringBuilder(memberName.length() + 4);
+          builder.append(memberName, 0, i);
+        }
+        builder.append('-');
+        builder.append(Character.toLowerCase(c));
+        continue;
+      }
+      if(builder != null) {
+        builder.append(c);
+      }
+    }
+    return builder != null ? builder.toString() : memberName;
+  }
+}
@@ -11,9 +11,7 @@ import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
 import com.jslib.converter.Converter;
 import com.jslib.lang.BugError;
-import com.jslib.lang.GType;
 import com.jslib.util.Classes;
-import com.jslib.util.Strings;
 
 /**
  * Generic object value handler. This class helps parser to create object instance of proper type and set its fields
@@ -34,15 +32,30 @@ public class ObjectValue implements Value
 
   private Class<?> declaringClass;
 
+  /** Parsing plan for object declaring type, null for subclasses that are not plain objects. */
+  private ParsePlan plan;
+
   /** Object instance. */
   protected Object instance;
 
+  /** True if parsing into an existing instance, in which case nested values reuse current field values. */
+  private boolean updating;
+
+  /**
+   * Field values buffered for creator constructor, indexed by {@link ParsePlan.FieldPlan#slot()}. Not null only while
+   * object of a type with creator constructor is not yet created, see {@link #instance()}.
+   */
+  private Object[] arguments;
+
   /**
    * Temporarily store currently working field name. This field name is stored by {@link #setFieldName(String)} and used
    * by {@link #setValue(Object)}. It is caller responsibility to ensure proper setters invocation order.
    */
   private String fieldName;
 
+  /** Field identified by {@link #fieldName}, resolved by {@link #setFieldName(String)}, or null if there is no such field. */
+  private ParsePlan.FieldPlan field;
+
   /** Inherited constructor just takes care to initialize converter instance. */
   protected ObjectValue(Converter converter)
   {
@@ -55,21 +68,60 @@ public class ObjectValue implements Value
    * @param clazz object class.
    */
   public ObjectValue(Converter converter, Type type)
+  {
+    this(converter, ParsePlan.of(type));
+  }
+
+  /**
+   * Create object value instance from declaring type parsing plan. Plan provides default constructor and fields table.
+   * 
+   * @param converter value converter,
+   * @param plan declaring type parsing plan.
+   */
+  ObjectValue(Converter converter, ParsePlan plan)
+  {
+    this(converter, plan, null);
+  }
+
+  /**
+   * Create object value that parses into an existing object instance. Only fields present into JSON stream are
+   * overwritten; nested objects, collections and maps are parsed into current field values, if any. If given instance
+   * is null a new one is created using plan default constructor.
+   * <p>
+   * If plan has a creator constructor instance creation is delayed: field values are buffered into creator arguments
+   * and instance is created by {@link #instance()}. Existing instance is not supported in this case.
+   * 
+   * @param converter value converter,
+   * @param plan declaring type parsing plan,
+   * @param instance existing object instance, null accepted.
+   */
+  ObjectValue(Converter converter, ParsePlan plan, Object instance)
   {
     this(converter);
-    this.declaringType = type;
-    this.declaringClass = Classes.forType(type);
-    this.instance = Classes.newInstance(this.declaringClass);
+    this.declaringType = plan.type();
+    this.declaringClass = plan.rawClass();
+    this.plan = plan;
+    if(plan.hasCreator()) {
+      this.arguments = plan.newArguments();
+      return;
+    }
+    this.updating = instance != null;
+    this.instance = instance != null ? instance : plan.newInstance();
   }
 
   /**
-   * Get wrapped object instance.
+   * Get wrapped object instance. For types with creator constructor, instance is created on first call from buffered
+   * field values; it is caller responsibility to invoke this method after all fields were set.
    * 
    * @return object instance.
    */
   @Override
   public Object instance()
   {
+    if(arguments != null) {
+      instance = plan.newInstance(arguments);
+      arguments = null;
+    }
     return instance;
   }
 
@@ -97,6 +149,7 @@ public class ObjectValue implements Value
       throw new UnsupportedOperationException(String.format("Object value setter is not supported. Possible for JSON stream not consistent with type |%s|.", declaringType));
     }
     instance = null;
+    arguments = null;
   }
 
   /**
@@ -116,7 +169,7 @@ public class ObjectValue implements Value
    * </pre>
    * <p>
    * If field is a parameterized type, be it object, collection or map, ensure all type arguments are resolved using the
-   * same {@link #resolveTypeVariable(Type, Type)} and return a new {@link GType} instance with field raw type and
+   * same {@link #resolveTypeVariable(Type, Type)} and return a new {@link com.jslib.lang.GType} instance with field raw type and
    * resolved type arguments.
    * 
    * <pre>
@@ -134,80 +187,121 @@ public class ObjectValue implements Value
    * Implemented solution for parameterized types allows for not limited nesting hierarchy. It is legal to have a grand
    * father, with father and child, all parameterized. At every level this method return <code>GType</code> with type
    * argument initialized from field declaring class type parameters.
+   * <p>
+   * Resolved type is computed once per field and declaring type and cached by parsing plan, see
+   * {@link ParsePlan.FieldPlan#valueType()}.
    * 
    * @return field type or null.
    */
   public Type getValueType()
   {
-    Field field;
-    try {
-      field = Classes.getFieldEx(declaringClass, fieldName);
-    }
-    catch(NoSuchFieldException e) {
-      return null;
-    }
+    return field != null ? field.valueType() : null;
+  }
 
-    Type fieldType = field.getGenericType();
-    if(fieldType instanceof Class) {
-      return fieldType;
+  /**
+   * Get current value of the field identified by {@link #fieldName}, if parsing into an existing instance.
+   * 
+   * @return current field value or null if not updating or field is missing.
+   */
+  @Override
+  public Object reusableInstance()
+  {
+    if(!updating || field == null) {
+      return null;
     }
-
-    if(fieldType instanceof TypeVariable) {
-      // here we have a type variable and need to find out the actual type argument from declaring class
-      return resolveTypeVariable(declaringType, fieldType);
+    try {
+      return field.field().get(instance);
     }
-
-    if(fieldType instanceof ParameterizedType) {
-      Type[] fieldTypeArguments = ((ParameterizedType)fieldType).getActualTypeArguments();
-      for(int i = 0; i < fieldTypeArguments.length; ++i) {
-        if(fieldTypeArguments[i] instanceof Class) {
-          continue;
-        }
-        fieldTypeArguments[i] = resolveTypeVariable(declaringType, fieldTypeArguments[i]);
-      }
-      return new GType(((ParameterizedType)fieldType).getRawType(), fieldTypeArguments);
+    catch(IllegalAccessException e) {
+      throw new BugError(e);
     }
-
-    throw new BugError("Unsupported type |%s|.", fieldType);
   }
 
   /**
-   * Store the name for currently working field. Given <code>fieldName</code> is not checked for existence but just
-   * stored into {@link #fieldName}.
+   * Store the name for currently working field and resolve the field, so that following value type and value setters
+   * do not search it again. Missing field is not an error; in this case {@link #getValueType()} returns null. Dashed JSON
+   * property names are translated to Java member names using the shared {@link NamesCache#memberNames()} cache.
+   * <p>
+   * Field is searched into declaring type plan fields table that includes superclass hierarchy too.
    * 
    * @param fieldName current working field name.
    */
   public final void setFieldName(String fieldName)
   {
-    this.fieldName = Strings.toMemberName(fieldName);
+    this.fieldName = NamesCache.memberNames().get(fieldName);
+    // missing field is detected by value type and value setters
+    this.field = plan != null ? plan.field(this.fieldName) : null;
   }
 
   /**
    * Set value for the field identified by {@link #fieldName} stored by a previous call to
    * {@link #setFieldName(String)}. If named field is missing log to debug and abort this setter.
-   * <p>
-   * This setter uses {@link Classes#getFieldEx(Class, String)} to access declaring class field and benefit from
-   * searching on superclass hierarchy too.
    * 
    * @param value field value, null accepted.
    */
   public void setValue(Object value)
+  {
+    ParsePlan.FieldPlan field = field();
+    if(field != null) {
+      setValue(field, value);
+    }
+  }
+
+  /**
+   * Set value for the field identified by {@link #fieldName} from lexer token. If token is a number and field type is
+   * <code>int</code>, <code>long</code> or <code>double</code> - or their boxing classes, token numeric value is used
+   * directly; otherwise this setter behaves like {@link #setValue(Object)} with token string value.
+   * 
+   * @param token value token.
+   */
+  public void setValueToken(Token token)
+  {
+    ParsePlan.FieldPlan field = field();
+    if(field == null) {
+      return;
+    }
+    if((token.isInteger() || token.isDecimal()) && setNumber(field, token)) {
+      return;
+    }
+    setValue(field, token.value());
+  }
+
+  /**
+   * Get field identified by {@link #fieldName}, resolved by {@link #setFieldName(String)}. If field is missing log to
+   * debug and return null.
+   * 
+   * @return named field or null if missing.
+   */
+  private ParsePlan.FieldPlan field()
   {
     if(fieldName == null) {
       throw new BugError("Field name is not initialized. Please call #setFieldName(String) before invoking this method.");
     }
+    if(field == null) {
+      log.debug("Missing field |{java_field}| from class |{java_type}|. Ignore JSON value.", fieldName, declaringClass);
+    }
+    return field;
+  }
 
+  /**
+   * Set field value, converting string value to field type.
+   * 
+   * @param fieldPlan instance field plan,
+   * @param value field value, null accepted.
+   */
+  private void setValue(ParsePlan.FieldPlan fieldPlan, Object value)
+  {
+    Field field = fieldPlan.field();
     try {
-      Field field = Classes.getFieldEx(declaringClass, fieldName);
-
-      Type fieldType = field.getGenericType();
-      if(fieldType instanceof TypeVariable) {
-        fieldType = resolveTypeVariable(declaringType, fieldType);
-      }
-      Class<?> fieldClass = Classes.forType(fieldType);
+      Class<?> fieldClass = fieldPlan.valueClass();
 
       if(value == null && fieldClass.isPrimitive()) {
-        log.warn("Attempt to assing null value to primitive field |{java_type}#{java_field}|. Ignore it.", instance.getClass(), field.getName());
+        log.warn("Attempt to assing null value to primitive field |{java_type}#{java_field}|. Ignore it.", declaringClass, fieldName);
+        return;
+      }
+      if(arguments != null) {
+        // creator argument type is checked by constructor handle when instance is created
+        arguments[fieldPlan.slot()] = value instanceof String ? converter.asObject((String)value, fieldClass) : value;
         return;
       }
       if(value == null) {
@@ -220,9 +314,6 @@ public class ObjectValue implements Value
         field.set(instance, value);
       }
     }
-    catch(NoSuchFieldException e) {
-      log.debug("Missing field |{java_field}| from class |{java_type}|. Ignore JSON value.", fieldName, declaringClass);
-    }
     catch(IllegalArgumentException e) {
       log.error("Illegal argument |{java_type}| while trying to set field |{java_field}| from class |{java_type}|.", value.getClass(), fieldName, declaringType);
     }
@@ -231,6 +322,58 @@ public class ObjectValue implements Value
     }
   }
 
+  /**
+   * Set field value from numeric token, without converter. Primitive fields are set without boxing.
+   * 
+   * @param fieldPlan instance field plan,
+   * @param token numeric token.
+   * @return true if field was set or false if field type is not supported or token value does not fit it.
+   */
+  private boolean setNumber(ParsePlan.FieldPlan fieldPlan, Token token)
+  {
+    if(arguments != null) {
+      Object number = token.asNumber(fieldPlan.valueClass());
+      if(number == null) {
+        return false;
+      }
+      arguments[fieldPlan.slot()] = number;
+      return true;
+    }
+
+    Field field = fieldPlan.field();
+    Class<?> fieldClass = field.getType();
+    try {
+      if(fieldClass == int.class) {
+        if(!token.isInteger() || token.longValue() != (int)token.longValue()) {
+          return false;
+        }
+        field.setInt(instance, (int)token.longValue());
+        return true;
+      }
+      if(fieldClass == long.class) {
+        if(!token.isInteger()) {
+          return false;
+        }
+        field.setLong(instance, token.longValue());
+        return true;
+      }
+      if(fieldClass == double.class) {
+        field.setDouble(instance, token.doubleValue());
+        return true;
+      }
+
+      Object number = token.asNumber(fieldClass);
+      if(number == null) {
+        return false;
+      }
+      field.set(instance, number);
+      return true;
+    }
+    catch(IllegalAccessException e) {
+      throw new BugError(e);
+    }
+  }
+
   // ----------------------------------------------------------------------------------------------
 
   /**
@@ -260,7 +403,7 @@ public class ObjectValue implements Value
    * @param typeVariable type variable, child of declaring class.
    * @return concrete type, class or parameterized type.
    */
-  private static Type resolveTypeVariable(Type declaringType, Type typeVariable)
+  static Type resolveTypeVariable(Type declaringType, Type typeVariable)
   {
     if(typeVariable instanceof GenericArrayType) {
       typeVariable = ((GenericArrayType)typeVariable).getGenericComponentType();
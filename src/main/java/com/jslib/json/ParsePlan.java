@@ -0,0 +1,974 @@
+package com.jslib.json;
+
+import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.converter.Converter;
+import com.jslib.converter.ConverterRegistry;
+import com.jslib.lang.BugError;
+import com.jslib.lang.GType;
+import com.jslib.util.Classes;
+import com.jslib.util.Types;
+
+/**
+ * Parsing plan compiled once per type. Parser needs to classify every value type it creates a value helper for - array,
+ * collection, primitive, map or object, and object value helper needs to locate fields by name, resolve their types and
+ * create instances. A plan does all this work on first use and stores the result: value kind, default constructor and
+ * fields table keyed by Java member name, with field value type resolved against plan type arguments.
+ * <p>
+ * Plans for classes are attached to their classes using a {@link ClassValue}, so that a cached plan does not prevent
+ * class loader unloading, e.g. on web application redeploy. Plans for other types are cached in bounded, concurrent
+ * maps attached, in the same way, to the type anchor class: the referenced class with the most specific class loader,
+ * so that a plan for <code>List&lt;Order&gt;</code> lives as long as <code>Order</code> class. After capacity is reached
+ * new plans are still compiled but not stored; types referencing classes from unrelated class loaders have no anchor
+ * and are not cached. Other types are wrapped in a structural key, see {@link TypeKey}, because parameterized type
+ * implementations, e.g. {@link GType}, do not necessarily implement equality and a new instance is usually created for
+ * every parsing call.
+ * <p>
+ * Value kind depends on converters registered into {@link ConverterRegistry} when plan is compiled; converters should
+ * be registered before parsing.
+ * <p>
+ * Objects without default constructor can be created by a creator constructor: record canonical constructor or a
+ * constructor annotated with {@link ConstructorProperties}. Default constructor takes precedence over annotated
+ * constructor, so that classes generating both, e.g. Lombok data classes, keep binding all their fields and remain
+ * updatable. For objects created by a creator constructor the fields table is built from constructor
+ * parameters, every field plan having the index of its argument slot, and object value helper buffers field values
+ * into arguments array then creates the instance, once, via a cached method handle. Records are detected reflectively,
+ * when running on a Java runtime that supports them.
+ *
+ * @author Iulian Rotaru
+ */
+final class ParsePlan
+{
+  private static final Log log = LogFactory.getLog(ParsePlan.class);
+
+  /** Maximum number of cached plans for types other than classes, per anchor class. */
+  private static final int MAX_SIZE = 4096;
+
+  /**
+   * Compiled plans attached to their classes. Computing a value here means plan was not cached, so cache hit counted by
+   * {@link #of(Type)} is turned into a miss.
+   */
+  private static final ClassValue<ParsePlan> CLASS_PLANS = new ClassValue<ParsePlan>()
+  {
+    @Override
+    protected ParsePlan computeValue(Class<?> type)
+    {
+      HITS.decrement();
+      MISSES.increment();
+      CLASS_PLANS_COUNT.incrementAndGet();
+      return compile(type);
+    }
+  };
+
+  /** Number of plans attached to classes, including plans of classes unloaded meanwhile. */
+  private static final AtomicInteger CLASS_PLANS_COUNT = new AtomicInteger();
+
+  /** Compiled plans for types other than classes, mapped to {@link TypeKey} and attached to type anchor class. */
+  private static final ClassValue<Map<TypeKey, ParsePlan>> TYPE_PLANS = new ClassValue<Map<TypeKey, ParsePlan>>()
+  {
+    @Override
+    protected Map<TypeKey, ParsePlan> computeValue(Class<?> anchor)
+    {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  /** Number of plans cached for types other than classes, including plans of anchor classes unloaded meanwhile. */
+  private static final AtomicInteger TYPE_PLANS_COUNT = new AtomicInteger();
+
+  /** Number of plans served from cache. */
+  private static final LongAdder HITS = new LongAdder();
+
+  /** Number of plans compiled because type was not cached. */
+  private static final LongAdder MISSES = new LongAdder();
+
+  /** Record components getter from {@link Class}, <code>getRecordComponents()</code>, or null if records are not supported. */
+  private static final Method RECORD_COMPONENTS;
+
+  /** Record component name getter, null if records are not supported. */
+  private static final Method COMPONENT_NAME;
+
+  /** Record component generic type getter, null if records are not supported. */
+  private static final Method COMPONENT_TYPE;
+
+  static {
+    Method recordComponents = null;
+    Method componentName = null;
+    Method componentType = null;
+    try {
+      recordComponents = Class.class.getMethod("getRecordComponents");
+      Class<?> componentClass = Class.forName("java.lang.reflect.RecordComponent");
+      componentName = componentClass.getMethod("getName");
+      componentType = componentClass.getMethod("getGenericType");
+    }
+    catch(ClassNotFoundException | NoSuchMethodException e) {
+      // Java runtime without records support
+      recordComponents = null;
+    }
+    RECORD_COMPONENTS = recordComponents;
+    COMPONENT_NAME = componentName;
+    COMPONENT_TYPE = componentType;
+  }
+
+  /**
+   * Get plan for given type, compiling and caching it on first use.
+   *
+   * @param type value type, not null.
+   * @return value type plan.
+   */
+  static ParsePlan of(Type type)
+  {
+    if(type instanceof Class) {
+      HITS.increment();
+      return CLASS_PLANS.get((Class<?>)type);
+    }
+    Class<?> anchor = anchor(type, Object.class);
+    if(anchor == null) {
+      MISSES.increment();
+      return compile(type);
+    }
+    Map<TypeKey, ParsePlan> plans = TYPE_PLANS.get(anchor);
+    TypeKey key = new TypeKey(type);
+    ParsePlan plan = plans.get(key);
+    if(plan != null) {
+      HITS.increment();
+    }
+    else {
+      MISSES.increment();
+      plan = compile(type);
+      if(plans.size() < MAX_SIZE && plans.putIfAbsent(key, plan) == null) {
+        TYPE_PLANS_COUNT.incrementAndGet();
+      }
+    }
+    return plan;
+  }
+
+  /**
+   * Get the class, referenced by given type, with the most specific class loader, that is, the class loader having the
+   * loaders of all other referenced classes as ancestors. Returns null if referenced classes are loaded by unrelated
+   * class loaders or type implementation is not known.
+   *
+   * @param type requested type,
+   * @param anchor anchor of type parts already visited, null if they have no anchor.
+   * @return type anchor class, possibly null.
+   */
+  private static Class<?> anchor(Type type, Class<?> anchor)
+  {
+    if(anchor == null) {
+      return null;
+    }
+    if(type instanceof Class) {
+      return anchor(anchor, (Class<?>)type);
+    }
+    if(type instanceof ParameterizedType) {
+      ParameterizedType parameterizedType = (ParameterizedType)type;
+      anchor = anchor(parameterizedType.getRawType(), anchor);
+      for(Type argument : parameterizedType.getActualTypeArguments()) {
+        anchor = anchor(argument, anchor);
+      }
+      return anchor;
+    }
+    if(type instanceof GenericArrayType) {
+      return anchor(((GenericArrayType)type).getGenericComponentType(), anchor);
+    }
+    if(type instanceof WildcardType) {
+      WildcardType wildcardType = (WildcardType)type;
+      for(Type bound : wildcardType.getUpperBounds()) {
+        anchor = anchor(bound, anchor);
+      }
+      for(Type bound : wildcardType.getLowerBounds()) {
+        anchor = anchor(bound, anchor);
+      }
+      return anchor;
+    }
+    if(type instanceof TypeVariable) {
+      // type variable bounds are resolved by its declaring class loader
+      GenericDeclaration declaration = ((TypeVariable<?>)type).getGenericDeclaration();
+      if(declaration instanceof Class) {
+        return anchor(anchor, (Class<?>)declaration);
+      }
+      if(declaration instanceof Member) {
+        return anchor(anchor, ((Member)declaration).getDeclaringClass());
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the class with the most specific class loader or null if class loaders are not related.
+   *
+   * @param anchor anchor of type parts already visited,
+   * @param type referenced class.
+   * @return anchor class, possibly null.
+   */
+  private static Class<?> anchor(Class<?> anchor, Class<?> type)
+  {
+    ClassLoader anchorLoader = anchor.getClassLoader();
+    ClassLoader typeLoader = type.getClassLoader();
+    if(isAncestor(typeLoader, anchorLoader)) {
+      return anchor;
+    }
+    if(isAncestor(anchorLoader, typeLoader)) {
+      return type;
+    }
+    return null;
+  }
+
+  /**
+   * Test if a class loader is the same as or an ancestor of another class loader. Bootstrap class loader, represented by
+   * null, is ancestor of all class loaders.
+   *
+   * @param ancestor ancestor candidate, null for bootstrap class loader,
+   * @param loader tested class loader, null for bootstrap class loader.
+   * @return true if <code>ancestor</code> is in <code>loader</code> parents chain.
+   */
+  private static boolean isAncestor(ClassLoader ancestor, ClassLoader loader)
+  {
+    if(ancestor == null) {
+      return true;
+    }
+    for(; loader != null; loader = loader.getParent()) {
+      if(loader == ancestor) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Create plan for given type, that is, reflectively scan type, and report scan to installed instrumentation, if any.
+   *
+   * @param type requested type.
+   * @return newly created plan.
+   */
+  private static ParsePlan compile(Type type)
+  {
+    JsonInstrumentation instrumentation = JsonInstrumentation.installed();
+    if(instrumentation == null) {
+      return new ParsePlan(type);
+    }
+    long startTime = System.nanoTime();
+    ParsePlan plan = new ParsePlan(type);
+    try {
+      instrumentation.scanned(type, plan.fields.size(), System.nanoTime() - startTime);
+    }
+    catch(Throwable t) {
+      log.error("Instrumentation |{java_type}| failure: {exception}", instrumentation.getClass(), t);
+    }
+    return plan;
+  }
+
+  /**
+   * Get the number of cached plans. Plans attached to classes, directly or through anchor classes, are counted when
+   * cached and are not discounted when their classes are unloaded, so the value is an upper bound.
+   *
+   * @return cached plans count.
+   */
+  static int size()
+  {
+    return CLASS_PLANS_COUNT.get() + TYPE_PLANS_COUNT.get();
+  }
+
+  /**
+   * Get the number of plans served from cache.
+   *
+   * @return cache hits count.
+   */
+  static long hits()
+  {
+    return HITS.sum();
+  }
+
+  /**
+   * Get the number of plans compiled because type was not cached.
+   *
+   * @return cache misses count.
+   */
+  static long misses()
+  {
+    return MISSES.sum();
+  }
+
+  /**
+   * Value kind, used to select value helper, see {@link #newValue(Converter)}.
+   *
+   * @author Iulian Rotaru
+   */
+  private static enum Kind
+  {
+    ARRAY, COLLECTION, PRIMITIVE, MAP, OBJECT
+  }
+
+  /** Plan type. */
+  private final Type type;
+
+  /** Value kind detected from plan type. */
+  private final Kind kind;
+
+  /** Plan type raw class. */
+  private final Class<?> rawClass;
+
+  /** Object fields mapped to Java member names, including inherited fields. Empty if plan is not for an object. */
+  private final Map<String, FieldPlan> fields;
+
+  /** Default constructor, loaded on first instance creation. */
+  private volatile Constructor<?> constructor;
+
+  /**
+   * Creator constructor handle taking all arguments spread from an objects array and returning the new instance, or
+   * null if object is created by default constructor.
+   */
+  private final MethodHandle creator;
+
+  /** Creator arguments initial values: default values for primitive parameters and null for others. */
+  private final Object[] creatorArguments;
+
+  /**
+   * Compile plan for given type.
+   *
+   * @param type value type.
+   */
+  private ParsePlan(Type type)
+  {
+    this.type = type;
+    this.kind = kind(type);
+    this.rawClass = Classes.forType(type);
+
+    Constructor<?> creator = kind == Kind.OBJECT ? creator(rawClass) : null;
+    if(creator == null) {
+      this.fields = kind == Kind.OBJECT ? fields(rawClass) : Collections.<String, FieldPlan> emptyMap();
+      this.creator = null;
+      this.creatorArguments = null;
+      return;
+    }
+
+    String[] names = creatorNames(creator);
+    Type[] types = creatorTypes(creator);
+    Class<?>[] classes = creator.getParameterTypes();
+    this.fields = new HashMap<>();
+    this.creatorArguments = new Object[classes.length];
+    for(int i = 0; i < classes.length; ++i) {
+      this.fields.put(names[i], new FieldPlan(types[i], i));
+      // default value for primitive, e.g. 0 for int; null for objects
+      this.creatorArguments[i] = classes[i].isPrimitive() ? Array.get(Array.newInstance(classes[i], 1), 0) : null;
+    }
+    try {
+      creator.setAccessible(true);
+      MethodHandle handle = MethodHandles.lookup().unreflectConstructor(creator);
+      this.creator = handle.asSpreader(Object[].class, classes.length).asType(MethodType.methodType(Object.class, Object[].class));
+    }
+    catch(IllegalAccessException e) {
+      throw new BugError(e);
+    }
+  }
+
+  /**
+   * Get creator constructor for given class: record canonical constructor or, if class has no default constructor, the
+   * first constructor annotated with {@link ConstructorProperties}. Return null if class has none, in which case default
+   * constructor is used.
+   *
+   * @param clazz object class.
+   * @return creator constructor or null.
+   */
+  private static Constructor<?> creator(Class<?> clazz)
+  {
+    Object[] components = recordComponents(clazz);
+    if(components != null) {
+      Class<?>[] parameterTypes = new Class<?>[components.length];
+      for(int i = 0; i < components.length; ++i) {
+        parameterTypes[i] = Classes.forType(invoke(COMPONENT_TYPE, components[i]));
+      }
+      try {
+        return clazz.getDeclaredConstructor(parameterTypes);
+      }
+      catch(NoSuchMethodException e) {
+        throw new BugError("Missing canonical constructor for record |%s|.", clazz);
+      }
+    }
+
+    Constructor<?>[] constructors = clazz.getDeclaredConstructors();
+    for(Constructor<?> constructor : constructors) {
+      if(constructor.getParameterCount() == 0) {
+        return null;
+      }
+    }
+    for(Constructor<?> constructor : constructors) {
+      ConstructorProperties properties = constructor.getAnnotation(ConstructorProperties.class);
+      if(properties == null) {
+        continue;
+      }
+      if(properties.value().length != constructor.getParameterCount()) {
+        throw new BugError("Constructor properties count does not match parameters count on constructor |%s|.", constructor);
+      }
+      return constructor;
+    }
+    return null;
+  }
+
+  /**
+   * Get JSON property names for creator constructor parameters, in parameters order.
+   *
+   * @param creator creator constructor.
+   * @return property names.
+   */
+  private static String[] creatorNames(Constructor<?> creator)
+  {
+    Object[] components = recordComponents(creator.getDeclaringClass());
+    if(components == null) {
+      return creator.getAnnotation(ConstructorProperties.class).value();
+    }
+    String[] names = new String[components.length];
+    for(int i = 0; i < components.length; ++i) {
+      names[i] = invoke(COMPONENT_NAME, components[i]);
+    }
+    return names;
+  }
+
+  /**
+   * Get generic types for creator constructor parameters, in parameters order. Record components types are used for
+   * records since canonical constructor could miss generic signature.
+   *
+   * @param creator creator constructor.
+   * @return parameter types.
+   */
+  private static Type[] creatorTypes(Constructor<?> creator)
+  {
+    Object[] components = recordComponents(creator.getDeclaringClass());
+    if(components == null) {
+      Type[] types = creator.getGenericParameterTypes();
+      // generic parameter types could miss synthetic parameters, e.g. outer instance for inner classes
+      return types.length == creator.getParameterCount() ? types : creator.getParameterTypes();
+    }
+    Type[] types = new Type[components.length];
+    for(int i = 0; i < components.length; ++i) {
+      types[i] = invoke(COMPONENT_TYPE, components[i]);
+    }
+    return types;
+  }
+
+  /**
+   * Get record components or null if class is not a record or Java runtime does not support records.
+   *
+   * @param clazz object class.
+   * @return record components or null.
+   */
+  private static Object[] recordComponents(Class<?> clazz)
+  {
+    return RECORD_COMPONENTS != null ? invoke(RECORD_COMPONENTS, clazz) : null;
+  }
+
+  /**
+   * Invoke reflective getter with no arguments.
+   *
+   * @param getter getter method,
+   * @param object object instance.
+   * @param <T> auto-cast type.
+   * @return getter value.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> T invoke(Method getter, Object object)
+  {
+    try {
+      return (T)getter.invoke(object);
+    }
+    catch(Exception e) {
+      throw new BugError(e);
+    }
+  }
+
+  /**
+   * Detect value kind for given type. Classification order is important: it is the same as the order of value helpers
+   * selection used by parser before plans.
+   *
+   * @param type value type.
+   * @return value kind.
+   */
+  private static Kind kind(Type type)
+  {
+    if(Types.isArray(type)) {
+      return Kind.ARRAY;
+    }
+    if(Types.isCollection(type)) {
+      return Kind.COLLECTION;
+    }
+    if(type instanceof Class<?> && ConverterRegistry.hasType(type)) {
+      return Kind.PRIMITIVE;
+    }
+    if(Types.isPrimitiveLike(type)) {
+      return Kind.PRIMITIVE;
+    }
+    if(Types.isMap(type)) {
+      return Kind.MAP;
+    }
+    return Kind.OBJECT;
+  }
+
+  /**
+   * Create fields table for given class. Superclass hierarchy is included; a field hides superclass fields with the same
+   * name, as with {@link Classes#getFieldEx(Class, String)}. Static fields are not part of object state and are
+   * ignored, as by serializer. Hierarchy scanning stops at Java runtime classes, whose fields are not accessible on a
+   * modular runtime; a field that still cannot be made accessible is logged and ignored.
+   *
+   * @param clazz object class.
+   * @return fields table.
+   */
+  private Map<String, FieldPlan> fields(Class<?> clazz)
+  {
+    Map<String, FieldPlan> fields = new HashMap<>();
+    for(Class<?> c = clazz; c != null && !isRuntimeClass(c); c = c.getSuperclass()) {
+      for(Field field : c.getDeclaredFields()) {
+        if(Modifier.isStatic(field.getModifiers()) || fields.containsKey(field.getName())) {
+          continue;
+        }
+        try {
+          field.setAccessible(true);
+        }
+        catch(RuntimeException e) {
+          // InaccessibleObjectException on Java 9+ for fields of not opened modules
+          log.debug("Ignore not accessible field |{java_field}|: {exception}", field, e);
+          continue;
+        }
+        fields.put(field.getName(), new FieldPlan(field));
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Test if class is part of Java runtime, that is, its package is <code>java.</code> or <code>javax.</code>.
+   *
+   * @param clazz class to test.
+   * @return true if class is a Java runtime class.
+   */
+  private static boolean isRuntimeClass(Class<?> clazz)
+  {
+    String name = clazz.getName();
+    return name.startsWith("java.") || name.startsWith("javax.");
+  }
+
+  /**
+   * Get plan type.
+   *
+   * @return plan type.
+   */
+  Type type()
+  {
+    return type;
+  }
+
+  /**
+   * Get plan type raw class.
+   *
+   * @return raw class.
+   */
+  Class<?> rawClass()
+  {
+    return rawClass;
+  }
+
+  /**
+   * Create value helper for plan type. This is the value helper factory used by {@link Parser#getValueInstance(Type)};
+   * value kind is not computed again.
+   *
+   * @param converter value converter.
+   * @return newly created value helper.
+   */
+  Value newValue(Converter converter)
+  {
+    switch(kind) {
+    case ARRAY:
+      return new ArrayValue(converter, type);
+
+    case COLLECTION:
+      return new CollectionValue(converter, type);
+
+    case PRIMITIVE:
+      return new PrimitiveValue(converter, rawClass);
+
+    case MAP:
+      return new MapValue(converter, type);
+
+    default:
+      return new ObjectValue(converter, this);
+    }
+  }
+
+  /**
+   * Test if values of plan type can be parsed into an existing instance, that is, plan is for an object, collection or
+   * map. Arrays have fixed length and primitives and objects created by a creator constructor are immutable.
+   *
+   * @return true if plan type instances can be updated.
+   */
+  boolean updatable()
+  {
+    return (kind == Kind.OBJECT && creator == null) || kind == Kind.COLLECTION || kind == Kind.MAP;
+  }
+
+  /**
+   * Create value helper that parses into an existing instance. If instance is null, is not an instance of plan raw class
+   * or plan type is not {@link #updatable()} this method falls back to {@link #newValue(Converter)}.
+   *
+   * @param converter value converter,
+   * @param instance existing instance, null accepted.
+   * @return newly created value helper.
+   */
+  @SuppressWarnings("unchecked")
+  Value newValue(Converter converter, Object instance)
+  {
+    if(!rawClass.isInstance(instance)) {
+      return newValue(converter);
+    }
+    switch(kind) {
+    case COLLECTION:
+      return new CollectionValue(converter, type, (Collection<Object>)instance);
+
+    case MAP:
+      return new MapValue(converter, type, (Map<Object, Object>)instance);
+
+    case OBJECT:
+      return creator == null ? new ObjectValue(converter, this, instance) : newValue(converter);
+
+    default:
+      return newValue(converter);
+    }
+  }
+
+  /**
+   * Get field plan by Java member name or null if object has no such field.
+   *
+   * @param memberName Java member name.
+   * @return field plan or null.
+   */
+  FieldPlan field(String memberName)
+  {
+    return fields.get(memberName);
+  }
+
+  /**
+   * Test if objects of plan type are created by a creator constructor, from buffered arguments.
+   *
+   * @return true if plan has a creator constructor.
+   * @see #newInstance(Object[])
+   */
+  boolean hasCreator()
+  {
+    return creator != null;
+  }
+
+  /**
+   * Create arguments array for creator constructor, initialized with parameters default values. Arguments slots are
+   * identified by {@link FieldPlan#slot()}.
+   *
+   * @return new arguments array.
+   */
+  Object[] newArguments()
+  {
+    return creatorArguments.clone();
+  }
+
+  /**
+   * Create new instance using creator constructor.
+   *
+   * @param arguments creator arguments, see {@link #newArguments()}.
+   * @return new instance.
+   * @throws JsonParserException if creator constructor fails, e.g. on arguments validation.
+   */
+  Object newInstance(Object[] arguments) throws JsonParserException
+  {
+    try {
+      return (Object)creator.invokeExact(arguments);
+    }
+    catch(Throwable t) {
+      throw new JsonParserException(t);
+    }
+  }
+
+  /**
+   * Create new instance using default constructor, cached on first call.
+   *
+   * @return new instance.
+   * @throws BugError if instance creation fails.
+   */
+  Object newInstance()
+  {
+    try {
+      Constructor<?> constructor = this.constructor;
+      if(constructor == null) {
+        constructor = rawClass.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        this.constructor = constructor;
+      }
+      return constructor.newInstance();
+    }
+    catch(Exception e) {
+      throw new BugError(e);
+    }
+  }
+
+  /**
+   * Object field plan. Holds field with its value type resolved against declaring plan type; value type is resolved on
+   * first use since type variables resolution could fail for raw usage of parameterized classes. For objects created by
+   * a creator constructor field plan describes a constructor parameter, identified by its argument slot.
+   *
+   * @author Iulian Rotaru
+   */
+  final class FieldPlan
+  {
+    /** Object field, accessible, or null for creator constructor parameter. */
+    private final Field field;
+
+    /** Field generic type or creator constructor parameter generic type. */
+    private final Type genericType;
+
+    /** Creator constructor argument index or -1 if this plan is for a field. */
+    private final int slot;
+
+    /** Field value type with type variables resolved, initialized on first use. */
+    private volatile Type valueType;
+
+    /** Field value class. */
+    private volatile Class<?> valueClass;
+
+    /**
+     * Create field plan.
+     *
+     * @param field object field.
+     */
+    private FieldPlan(Field field)
+    {
+      this.field = field;
+      this.genericType = field.getGenericType();
+      this.slot = -1;
+    }
+
+    /**
+     * Create field plan for creator constructor parameter.
+     *
+     * @param genericType parameter generic type,
+     * @param slot parameter index.
+     */
+    private FieldPlan(Type genericType, int slot)
+    {
+      this.field = null;
+      this.genericType = genericType;
+      this.slot = slot;
+    }
+
+    /**
+     * Get object field.
+     *
+     * @return object field or null for creator constructor parameter.
+     */
+    Field field()
+    {
+      return field;
+    }
+
+    /**
+     * Get creator constructor argument index.
+     *
+     * @return argument index or -1 if this plan is for a field.
+     */
+    int slot()
+    {
+      return slot;
+    }
+
+    /**
+     * Get field value type, with type variables resolved. See {@link ObjectValue#getValueType()}.
+     *
+     * @return field value type.
+     */
+    Type valueType()
+    {
+      Type valueType = this.valueType;
+      if(valueType == null) {
+        valueType = resolve(genericType);
+        this.valueType = valueType;
+      }
+      return valueType;
+    }
+
+    /**
+     * Get field value class, that is, the raw class of field value type.
+     *
+     * @return field value class.
+     */
+    Class<?> valueClass()
+    {
+      Class<?> valueClass = this.valueClass;
+      if(valueClass == null) {
+        Type fieldType = genericType;
+        if(fieldType instanceof TypeVariable) {
+          fieldType = ObjectValue.resolveTypeVariable(type, fieldType);
+        }
+        valueClass = Classes.forType(fieldType);
+        this.valueClass = valueClass;
+      }
+      return valueClass;
+    }
+
+    /**
+     * Resolve type variables from field type against plan type.
+     *
+     * @param fieldType field generic type.
+     * @return resolved field type.
+     */
+    private Type resolve(Type fieldType)
+    {
+      if(fieldType instanceof Class) {
+        return fieldType;
+      }
+
+      if(fieldType instanceof TypeVariable) {
+        return ObjectValue.resolveTypeVariable(type, fieldType);
+      }
+
+      if(fieldType instanceof ParameterizedType) {
+        Type[] fieldTypeArguments = ((ParameterizedType)fieldType).getActualTypeArguments();
+        for(int i = 0; i < fieldTypeArguments.length; ++i) {
+          if(fieldTypeArguments[i] instanceof Class) {
+            continue;
+          }
+          fieldTypeArguments[i] = ObjectValue.resolveTypeVariable(type, fieldTypeArguments[i]);
+        }
+        return new GType(((ParameterizedType)fieldType).getRawType(), fieldTypeArguments);
+      }
+
+      throw new BugError("Unsupported type |%s|.", fieldType);
+    }
+  }
+
+  /**
+   * Structural cache key for types other than classes. Two keys are equal if their types have the same structure: same
+   * raw type and equal type arguments for parameterized types and equal component type for generic arrays, no matter
+   * the implementation classes. Owner type is not considered. Other types, e.g. type variables, use their own equality.
+   *
+   * @author Iulian Rotaru
+   */
+  static final class TypeKey
+  {
+    /** Wrapped type. */
+    private final Type type;
+
+    /** Structural hash code, computed once. */
+    private final int hashCode;
+
+    /**
+     * Create key for given type.
+     *
+     * @param type wrapped type.
+     */
+    TypeKey(Type type)
+    {
+      this.type = type;
+      this.hashCode = hash(type);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if(this == obj) return true;
+      if(!(obj instanceof TypeKey)) return false;
+      TypeKey other = (TypeKey)obj;
+      return hashCode == other.hashCode && equal(type, other.type);
+    }
+
+    @Override
+    public String toString()
+    {
+      return type.getTypeName();
+    }
+
+    /**
+     * Compute structural hash code for given type.
+     *
+     * @param type type, null accepted.
+     * @return type hash code.
+     */
+    private static int hash(Type type)
+    {
+      if(type instanceof ParameterizedType) {
+        ParameterizedType parameterizedType = (ParameterizedType)type;
+        int hash = hash(parameterizedType.getRawType());
+        for(Type argument : parameterizedType.getActualTypeArguments()) {
+          hash = 31 * hash + hash(argument);
+        }
+        return hash;
+      }
+      if(type instanceof GenericArrayType) {
+        return 31 * hash(((GenericArrayType)type).getGenericComponentType()) + 1;
+      }
+      return type != null ? type.hashCode() : 0;
+    }
+
+    /**
+     * Test if given types have the same structure.
+     *
+     * @param type1 first type, null accepted,
+     * @param type2 second type, null accepted.
+     * @return true if types are structurally equal.
+     */
+    private static boolean equal(Type type1, Type type2)
+    {
+      if(type1 == type2) {
+        return true;
+      }
+      if(type1 instanceof ParameterizedType && type2 instanceof ParameterizedType) {
+        ParameterizedType parameterizedType1 = (ParameterizedType)type1;
+        ParameterizedType parameterizedType2 = (ParameterizedType)type2;
+        if(!equal(parameterizedType1.getRawType(), parameterizedType2.getRawType())) {
+          return false;
+        }
+        Type[] arguments1 = parameterizedType1.getActualTypeArguments();
+        Type[] arguments2 = parameterizedType2.getActualTypeArguments();
+        if(arguments1.length != arguments2.length) {
+          return false;
+        }
+        for(int i = 0; i < arguments1.length; ++i) {
+          if(!equal(arguments1[i], arguments2[i])) {
+            return false;
+          }
+        }
+        return true;
+      }
+      if(type1 instanceof GenericArrayType && type2 instanceof GenericArrayType) {
+        return equal(((GenericArrayType)type1).getGenericComponentType(), ((GenericArrayType)type2).getGenericComponentType());
+      }
+      if(type1 instanceof ParameterizedType || type2 instanceof ParameterizedType || type1 instanceof GenericArrayType || type2 instanceof GenericArrayType) {
+        return false;
+      }
+      return type1 != null && type1.equals(type2);
+    }
+  }
+}
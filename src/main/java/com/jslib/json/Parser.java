@@ -1,5 +1,7 @@
 package com.jslib.json;
 
+import static com.jslib.util.Params.notNull;
+
 import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.Type;
@@ -9,8 +11,8 @@ import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
 import com.jslib.converter.Converter;
 import com.jslib.converter.ConverterRegistry;
+import com.jslib.lang.BugError;
 import com.jslib.lang.OrdinalEnum;
-import com.jslib.util.Types;
 
 /**
  * Syntactic parser. Scans token generated by {@link Lexer} and initialize primitive values, object fields, array items
@@ -46,6 +48,12 @@ import com.jslib.util.Types;
  * the same name field into target object, parser just warn on log and ignore. Also, fields from target object with no
  * values into JSON stream are set to default.
  * 
+ * <h6>Reuse</h6>
+ * <p>
+ * Parser instance is not thread safe but can be reused for sequential parsing processes. Every parse method resets
+ * internal state while preserving lexer buffers; after parsing completes caller may invoke {@link #reset()} in order
+ * to release reference to characters stream.
+ * 
  * @author Iulian Rotaru
  */
 public class Parser
@@ -59,11 +67,96 @@ public class Parser
   /** Current state for parser automaton. */
   private State state;
 
+  /** Projection for current parsing process, default to {@link Projection#ALL}. */
+  private Projection projection = Projection.ALL;
+
+  /** Resource limits, preserved between parsing processes, default to {@link JsonLimits#NONE}. */
+  private JsonLimits limits = JsonLimits.NONE;
+
+  /** Instrumentation installed when current parsing process started or null if not instrumented. */
+  private JsonInstrumentation instrumentation;
+
+  /** Current parsing process start time, in nanoseconds, valid only if instrumented. */
+  private long startTime;
+
+  /** Metrics reported to instrumentation, created on first instrumented parsing process. */
+  private JsonMetrics metrics;
+
+  /** Number of JSON objects parsed by current parsing process. */
+  private int objects;
+
+  /** Number of JSON arrays parsed by current parsing process. */
+  private int arrays;
+
+  /** Number of object properties skipped by current parsing process because there is no related field. */
+  private int skippedFields;
+
+  /** Current values nesting depth, incremented on every nested value. */
+  private int depth;
+
+  /** Maximum values nesting depth reached by current parsing process. */
+  private int maxDepth;
+
+  /** Maximum number of items of a JSON array parsed by current parsing process. */
+  private int largestArray;
+
   /** Create parser instance and initialize automaton state. */
   public Parser()
   {
     this.state = State.NONE;
-    ErrorReporter.getInstance().reset();
+  }
+
+  /**
+   * Set resource limits enforced by this parser; limits are preserved between parsing processes, see {@link #reset()}.
+   * 
+   * @param limits resource limits, {@link JsonLimits#NONE} for no limits.
+   * @throws IllegalArgumentException if limits argument is null.
+   */
+  public void setLimits(JsonLimits limits)
+  {
+    notNull(limits, "Limits");
+    this.limits = limits;
+  }
+
+  /**
+   * Reset parser internal state and release reference to characters stream from previous parsing process. Lexer is
+   * preserved with its allocated buffers. Resource limits are preserved too.
+   */
+  public void reset()
+  {
+    state = State.NONE;
+    projection = Projection.ALL;
+    instrumentation = null;
+    if(lexer != null) {
+      lexer.reset((Reader)null);
+    }
+  }
+
+  /**
+   * Prepare parser for a new parsing process. Create lexer on first use; it is caller responsibility to bind returned
+   * lexer to characters source.
+   * 
+   * @return parser lexer.
+   */
+  private Lexer open()
+  {
+    state = State.NONE;
+    projection = Projection.ALL;
+    objects = 0;
+    arrays = 0;
+    skippedFields = 0;
+    depth = 0;
+    maxDepth = 0;
+    largestArray = 0;
+    instrumentation = JsonInstrumentation.installed();
+    if(instrumentation != null) {
+      startTime = System.nanoTime();
+    }
+    if(lexer == null) {
+      lexer = new Lexer((Reader)null);
+    }
+    lexer.limits(limits);
+    return lexer;
   }
 
   /**
@@ -81,18 +174,243 @@ public class Parser
    */
   public <T> T parse(Reader reader, Type type) throws IOException, JsonParserException, ClassCastException
   {
-    lexer = new Lexer(reader);
+    open().reset(reader);
+    return parseValue(type, null);
+  }
+
+  /**
+   * Parse value of requested type from JSON stream, binding only properties selected by projection. Not selected
+   * properties are skipped without decoding; related fields from target object are left to their default values.
+   * 
+   * @param reader input JSON character stream,
+   * @param type expected type for value from JSON stream,
+   * @param projection JSON paths to bind.
+   * @return value instance initialized from JSON stream.
+   * @throws IOException if reading from input character stream fails.
+   * @throws JsonParserException if JSON stream is not well formed.
+   * @throws ClassCastException if value instance cannot be auto-cast to requested type.
+   */
+  public <T> T parse(Reader reader, Type type, Projection projection) throws IOException, JsonParserException, ClassCastException
+  {
+    open().reset(reader);
+    this.projection = projection;
+    return parseValue(type, null);
+  }
+
+  /**
+   * Parse value of requested type from JSON characters sequence, binding only properties selected by projection. See
+   * {@link #parse(Reader, Type, Projection)}.
+   * 
+   * @param json JSON characters sequence,
+   * @param type expected type for value from JSON characters sequence,
+   * @param projection JSON paths to bind.
+   * @return value instance initialized from JSON characters sequence.
+   * @throws JsonParserException if JSON characters sequence is not well formed.
+   * @throws ClassCastException if value instance cannot be auto-cast to requested type.
+   */
+  public <T> T parseSequence(CharSequence json, Type type, Projection projection) throws JsonParserException, ClassCastException
+  {
+    open().reset(json);
+    this.projection = projection;
+    try {
+      return parseValue(type, null);
+    }
+    catch(IOException e) {
+      throw new BugError("IO exception on in memory characters sequence: %s", e);
+    }
+  }
+
+  /**
+   * Parse value of requested type from JSON characters sequence, e.g. a string. This method has the same behavior as
+   * {@link #parse(Reader, Type)} but characters sequence is read directly, without intermediate reader. Sequence
+   * characters are still copied, chunk by chunk, into parser internal buffer; use
+   * {@link #parse(char[], int, int, Type)} to parse a characters array in place.
+   * <p>
+   * This method is not an overload of {@link #parse(Reader, Type)} so that existing <code>parse(null, type)</code> calls
+   * are not ambiguous.
+   * 
+   * @param json JSON characters sequence,
+   * @param type expected type for value from JSON characters sequence.
+   * @return value instance initialized from JSON characters sequence.
+   * @throws JsonParserException if JSON characters sequence is not well formed.
+   * @throws ClassCastException if value instance cannot be auto-cast to requested type.
+   */
+  public <T> T parseSequence(CharSequence json, Type type) throws JsonParserException, ClassCastException
+  {
+    open().reset(json);
+    try {
+      return parseValue(type, null);
+    }
+    catch(IOException e) {
+      throw new BugError("IO exception on in memory characters sequence: %s", e);
+    }
+  }
+
+  /**
+   * Parse JSON stream into an existing instance instead of creating a new one, so that repeated parsing of the same
+   * message type produces almost no garbage. Instance should be an object, collection or map of requested type.
+   * <p>
+   * Only object fields present into JSON stream are overwritten; others keep their current values. Nested objects,
+   * collections and maps are parsed into current field values when present and of compatible type, otherwise new
+   * instances are created. Random access lists are updated in place, item by item, reusing existing items; other
+   * collections and maps are cleared and refilled. Arrays have fixed length and are always created.
+   * 
+   * @param reader input JSON character stream,
+   * @param type instance type, possibly parameterized,
+   * @param instance existing instance.
+   * @return given instance updated from JSON stream, or null.
+   * @throws IllegalArgumentException if instance is null, is not of requested type or type is not object, collection or
+   *           map.
+   * @throws IOException if reading from input character stream fails.
+   * @throws JsonParserException if JSON stream is not well formed.
+   * @throws ClassCastException if value instance cannot be auto-cast to requested type.
+   */
+  public <T> T update(Reader reader, Type type, Object instance) throws IllegalArgumentException, IOException, JsonParserException, ClassCastException
+  {
+    ParsePlan plan = updatePlan(type, instance);
+    open().reset(reader);
+    return parseValue(plan.type(), instance);
+  }
+
+  /**
+   * Parse JSON characters sequence into an existing instance. See {@link #update(Reader, Type, Object)}.
+   * 
+   * @param json JSON characters sequence,
+   * @param type instance type, possibly parameterized,
+   * @param instance existing instance.
+   * @return given instance updated from JSON characters sequence, or null.
+   * @throws IllegalArgumentException if instance is null, is not of requested type or type is not object, collection or
+   *           map.
+   * @throws JsonParserException if JSON characters sequence is not well formed.
+   * @throws ClassCastException if value instance cannot be auto-cast to requested type.
+   */
+  public <T> T updateSequence(CharSequence json, Type type, Object instance) throws IllegalArgumentException, JsonParserException, ClassCastException
+  {
+    ParsePlan plan = updatePlan(type, instance);
+    open().reset(json);
+    try {
+      return parseValue(plan.type(), instance);
+    }
+    catch(IOException e) {
+      throw new BugError("IO exception on in memory characters sequence: %s", e);
+    }
+  }
+
+  /**
+   * Get parsing plan for instance update and check instance is suitable for update.
+   * 
+   * @param type instance type,
+   * @param instance existing instance.
+   * @return instance type parsing plan.
+   * @throws IllegalArgumentException if instance cannot be updated.
+   */
+  private static ParsePlan updatePlan(Type type, Object instance) throws IllegalArgumentException
+  {
+    notNull(type, "Type");
+    notNull(instance, "Instance");
+    ParsePlan plan = ParsePlan.of(type);
+    if(!plan.updatable()) {
+      throw new IllegalArgumentException(String.format("Type |%s| is not an object, collection or map and cannot be updated.", type));
+    }
+    if(!plan.rawClass().isInstance(instance)) {
+      throw new IllegalArgumentException(String.format("Instance of |%s| is not of type |%s|.", instance.getClass(), type));
+    }
+    return plan;
+  }
+
+  /**
+   * Parse value of requested type from a range of JSON characters array. This method has the same behavior as
+   * {@link #parse(Reader, Type)} but characters array is read in place, with no copy. It is caller responsibility to not
+   * change array content while parsing.
+   * 
+   * @param json JSON characters array,
+   * @param offset index of the first character to parse,
+   * @param length number of characters to parse,
+   * @param type expected type for value from JSON characters array.
+   * @return value instance initialized from JSON characters array.
+   * @throws JsonParserException if JSON characters array is not well formed.
+   * @throws ClassCastException if value instance cannot be auto-cast to requested type.
+   */
+  public <T> T parse(char[] json, int offset, int length, Type type) throws JsonParserException, ClassCastException
+  {
+    open().reset(json, offset, length);
+    try {
+      return parseValue(type, null);
+    }
+    catch(IOException e) {
+      throw new BugError("IO exception on in memory characters array: %s", e);
+    }
+  }
+
+  /**
+   * Parse value of requested type from lexer characters source, handle exceptions and report to instrumentation, if
+   * installed.
+   * 
+   * @param type expected type,
+   * @param instance existing instance to parse into, null to create a new instance.
+   * @return value instance initialized from JSON characters source.
+   * @throws IOException if reading from input character stream fails.
+   * @throws JsonParserException if JSON stream is not well formed.
+   */
+  private <T> T parseValue(Type type, Object instance) throws IOException, JsonParserException
+  {
+    Throwable error = null;
     try {
-      return _parse(type);
+      if(instance == null) {
+        return _parse(type);
+      }
+      return _parse(type, projection, instance);
     }
     catch(IOException e) {
+      error = e;
       throw e;
     }
     catch(JsonParserException e) {
-      throw e;
+      error = e;
+      throw e.attach(lexer.errorReporter());
     }
     catch(Throwable t) {
-      throw new JsonParserException(t);
+      error = t;
+      throw new JsonParserException(t).attach(lexer.errorReporter());
+    }
+    finally {
+      if(instrumentation != null) {
+        report(type, error);
+      }
+    }
+  }
+
+  /**
+   * Report current parsing process metrics to instrumentation. Instrumentation failure is logged and ignored.
+   * 
+   * @param type expected type,
+   * @param error exception that aborted parsing or null.
+   */
+  private void report(Type type, Throwable error)
+  {
+    if(metrics == null) {
+      metrics = new JsonMetrics();
+    }
+    metrics.reset();
+    metrics.nanos = System.nanoTime() - startTime;
+    metrics.chars = lexer.consumed();
+    metrics.tokens = lexer.tokens();
+    metrics.objects = objects;
+    metrics.arrays = arrays;
+    // a primitive value is parsed at depth 1 but has no containers nesting
+    metrics.depth = objects + arrays > 0 ? maxDepth : 0;
+    metrics.largestArray = largestArray;
+    metrics.skippedFields = skippedFields;
+    metrics.error = error;
+    metrics.lexer = lexer;
+
+    JsonInstrumentation instrumentation = this.instrumentation;
+    this.instrumentation = null;
+    try {
+      instrumentation.parsed(type, metrics);
+    }
+    catch(Throwable t) {
+      log.error("Instrumentation |{java_type}| failure: {exception}", instrumentation.getClass(), t);
     }
   }
 
@@ -111,20 +429,21 @@ public class Parser
    */
   public Object[] parse(Reader reader, Type[] types) throws JsonParserException, IOException, ClassCastException
   {
-    lexer = new Lexer(reader);
-    Token token = lexer.read();
+    open().reset(reader);
+    Throwable error = null;
+    try {
+      Token token = lexer.read();
 
-    Object[] instances = new Object[types.length];
-    if(token.ordinal() == Token.EOF) {
-      log.warn("Empty JSON stream for mixed types array. Return array with all items set to null.");
-      return instances;
-    }
+      Object[] instances = new Object[types.length];
+      if(token.ordinal() == Token.EOF) {
+        log.warn("Empty JSON stream for mixed types array. Return array with all items set to null.");
+        return instances;
+      }
 
-    if(token.ordinal() != Token.LEFT_SQUARE) {
-      throw new JsonParserException("Invalid JSON stream for mixed types, aka arguments, array. Bad start token. Expected LEFT_SUQARE but got %s.", token);
-    }
+      if(token.ordinal() != Token.LEFT_SQUARE) {
+        throw new JsonParserException("Invalid JSON stream for mixed types, aka arguments, array. Bad start token. Expected LEFT_SUQARE but got %s.", token);
+      }
 
-    try {
       for(int i = 0; i < types.length; i++) {
         state = State.NONE;
         instances[i] = _parse(types[i]);
@@ -137,13 +456,21 @@ public class Parser
       return instances;
     }
     catch(IOException e) {
+      error = e;
       throw e;
     }
     catch(JsonParserException e) {
-      throw e;
+      error = e;
+      throw e.attach(lexer.errorReporter());
     }
     catch(Throwable t) {
-      throw new JsonParserException(t);
+      error = t;
+      throw new JsonParserException(t).attach(lexer.errorReporter());
+    }
+    finally {
+      if(instrumentation != null) {
+        report(Object[].class, error);
+      }
     }
   }
 
@@ -158,11 +485,43 @@ public class Parser
    * @throws JsonParserException if lexer fails to decode JSON character stream.
    * @throws IOException if IO read operation fails.
    */
-  @SuppressWarnings("unchecked")
   protected <T> T _parse(Type type) throws JsonParserException, IOException
   {
-    Value value = getValueInstance(type);
+    return _parse(type, projection, null);
+  }
+
+  /**
+   * Create instance of expected type and initialize it from JSON stream, binding only properties selected by given
+   * projection. Not selected properties and properties with no related field are skipped, see
+   * {@link Lexer#skipValue()}. Array items inherit array projection.
+   * <p>
+   * If existing instance is provided value is parsed into it and nested values are parsed into instances supplied by
+   * {@link Value#reusableInstance()}, see {@link #update(Reader, Type, Object)}.
+   * 
+   * @param type expected type,
+   * @param projection projection for the value to parse,
+   * @param instance existing instance to parse into, null to create a new instance.
+   * @return newly created or updated instance of requested type.
+   * @throws JsonParserException if lexer fails to decode JSON character stream.
+   * @throws IOException if IO read operation fails.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T _parse(Type type, Projection projection, Object instance) throws JsonParserException, IOException
+  {
+    Value value = instance != null ? ParsePlan.of(type).newValue(ConverterRegistry.getConverter(), instance) : getValueInstance(type);
+    if(++depth > maxDepth) {
+      maxDepth = depth;
+      if(depth > limits.maxDepth()) {
+        throw new JsonLimitException(JsonLimitException.Limit.DEPTH, limits.maxDepth());
+      }
+    }
     Token token = null;
+    // projection for the value of current object property or map entry, null if property is not selected
+    Projection valueProjection = projection;
+    // number of items of current JSON array
+    int items = 0;
+    // number of properties of current JSON object or entries of current map
+    int members = 0;
 
     TOKENS_LOOP: for(;;) {
       token = lexer.read();
@@ -175,10 +534,11 @@ public class Parser
           // item is used here to support multiple types parsing
           // multiple types are actually a JSON array but every item with its own type
         case Token.ITEM:
-          value.set(token.value());
+          value.setToken(token);
           break TOKENS_LOOP;
 
         case Token.LEFT_BRACE:
+          ++objects;
           if(value instanceof MapValue) {
             state = State.WAIT_FOR_KEY;
           }
@@ -188,6 +548,7 @@ public class Parser
           continue;
 
         case Token.LEFT_SQUARE:
+          ++arrays;
           state = State.WAIT_FOR_ITEM;
           continue;
 
@@ -212,7 +573,11 @@ public class Parser
           if(!(value instanceof ObjectValue)) {
             throw new JsonParserException("Invalid value helper |%s| for target type |%s|.", value.getClass(), type);
           }
+          if(++members > limits.maxElements()) {
+            throw new JsonLimitException(JsonLimitException.Limit.ELEMENTS, limits.maxElements());
+          }
           ((ObjectValue)value).setFieldName(token.value());
+          valueProjection = projection.child(token.value());
           state = State.WAIT_FOR_COLON;
           continue;
 
@@ -224,6 +589,19 @@ public class Parser
         if(token.ordinal() != Token.COLON) {
           throw new JsonParserException("Expected COLON but got |%s|.", token);
         }
+        if(valueProjection == null) {
+          // property is not selected; skip its value structurally, without tokens and strings
+          lexer.skipValue();
+          state = State.WAIT_FOR_COMMA_OR_RIGHT_BRACE;
+          continue;
+        }
+        if(value instanceof ObjectValue && ((ObjectValue)value).getValueType() == null) {
+          // there is no field for property; skip its value too
+          ++skippedFields;
+          lexer.skipValue();
+          state = State.WAIT_FOR_COMMA_OR_RIGHT_BRACE;
+          continue;
+        }
         state = State.WAIT_FOR_VALUE;
         continue;
 
@@ -237,12 +615,12 @@ public class Parser
         case Token.LEFT_SQUARE:
           state = State.NONE;
           lexer.unread(token);
-          objectValue.setValue(_parse(objectValue.getValueType()));
+          objectValue.setValue(_parse(objectValue.getValueType(), valueProjection, objectValue.reusableInstance()));
           state = State.WAIT_FOR_COMMA_OR_RIGHT_BRACE;
           continue;
 
         case Token.VALUE:
-          objectValue.setValue(token.value());
+          objectValue.setValueToken(token);
           state = State.WAIT_FOR_COMMA_OR_RIGHT_BRACE;
           continue;
 
@@ -272,9 +650,13 @@ public class Parser
         final MapValue mapValue = (MapValue)value;
         switch(token.ordinal()) {
         case Token.LEFT_BRACE:
+          if(++members > limits.maxElements()) {
+            throw new JsonLimitException(JsonLimitException.Limit.ELEMENTS, limits.maxElements());
+          }
           state = State.NONE;
           lexer.unread(token);
-          mapValue.setKey(_parse(mapValue.keyType()));
+          mapValue.setKey(_parse(mapValue.keyType(), Projection.ALL, null));
+          valueProjection = projection;
           state = State.WAIT_FOR_COLON;
           break;
 
@@ -282,7 +664,11 @@ public class Parser
           break TOKENS_LOOP;
 
         case Token.NAME:
+          if(++members > limits.maxElements()) {
+            throw new JsonLimitException(JsonLimitException.Limit.ELEMENTS, limits.maxElements());
+          }
           mapValue.setKey(token.value());
+          valueProjection = projection.child(token.value());
           state = State.WAIT_FOR_COLON;
           break;
 
@@ -295,9 +681,12 @@ public class Parser
         switch(token.ordinal()) {
         case Token.LEFT_BRACE: // object inside array
         case Token.LEFT_SQUARE: // array inside array
+          if(++items > limits.maxElements()) {
+            throw new JsonLimitException(JsonLimitException.Limit.ELEMENTS, limits.maxElements());
+          }
           state = State.NONE;
           lexer.unread(token);
-          value.set(_parse(value.getType()));
+          value.set(_parse(value.getType(), projection, value.reusableInstance()));
           state = State.WAIT_FOR_COMMA_OR_RIGHT_SQUARE;
           continue;
 
@@ -305,7 +694,10 @@ public class Parser
           break TOKENS_LOOP;
 
         case Token.ITEM:
-          value.set(token.value());
+          if(++items > limits.maxElements()) {
+            throw new JsonLimitException(JsonLimitException.Limit.ELEMENTS, limits.maxElements());
+          }
+          value.setToken(token);
           state = State.WAIT_FOR_COMMA_OR_RIGHT_SQUARE;
           continue;
 
@@ -327,6 +719,10 @@ public class Parser
     }
 
     state = State.NONE;
+    --depth;
+    if(items > largestArray) {
+      largestArray = items;
+    }
     T t = (T)value.instance();
     if(t instanceof JsonLifeCycle) {
       ((JsonLifeCycle)t).postParse();
@@ -335,7 +731,8 @@ public class Parser
   }
 
   /**
-   * Get parser value helper instance suitable for handling the given type.
+   * Get parser value helper instance suitable for handling the given type. Type classification is done once per type
+   * and cached by {@link ParsePlan}; object value helpers use plan fields table and default constructor.
    * 
    * @param type type to get value helper for.
    * @return value helper instance.
@@ -346,22 +743,7 @@ public class Parser
     if(type == null) {
       return new MissingFieldValue(converter);
     }
-    if(Types.isArray(type)) {
-      return new ArrayValue(converter, type);
-    }
-    if(Types.isCollection(type)) {
-      return new CollectionValue(converter, type);
-    }
-    if(type instanceof Class<?> && ConverterRegistry.hasType(type)) {
-      return new PrimitiveValue(converter, (Class<?>)type);
-    }
-    if(Types.isPrimitiveLike(type)) {
-      return new PrimitiveValue(converter, (Class<?>)type);
-    }
-    if(Types.isMap(type)) {
-      return new MapValue(converter, type);
-    }
-    return new ObjectValue(converter, type);
+    return ParsePlan.of(type).newValue(converter);
   }
 
   /**
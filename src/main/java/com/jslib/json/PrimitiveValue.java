@@ -61,4 +61,21 @@ public final class PrimitiveValue implements Value
     }
     instance = converter.asObject((String)value, clazz);
   }
+
+  /**
+   * Set this primitive value from lexer token. Use token numeric value, if the case, and fall back to converter
+   * otherwise.
+   * 
+   * @param token value token.
+   */
+  @Override
+  public void setToken(Token token)
+  {
+    Object number = token.asNumber(clazz);
+    if(number != null) {
+      instance = number;
+      return;
+    }
+    set(token.value());
+  }
 }
@@ -0,0 +1,117 @@
+package com.jslib.json;
+
+import static com.jslib.util.Params.notNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled set of JSON paths selecting properties to bind. When parser is invoked with a projection it binds only
+ * properties on selected paths and skips all other properties structurally, at lexer speed, see
+ * {@link Lexer#skipValue()}. Target object fields not selected by projection are left to their default values.
+ * <p>
+ * A path is a sequence of JSON property names separated by dots, e.g. <code>person.name</code>. A path selects the
+ * entire value of its last property, be it primitive, object or array. Arrays are transparent: a path continues into
+ * every array item, so <code>children.name</code> selects the name of every child. For readability, array properties
+ * can be marked with <code>[*]</code> suffix, e.g. <code>children[*].name</code>; root array items are selected with
+ * <code>[*]</code> prefix, e.g. <code>[*].id</code>.
+ * <p>
+ * Paths are matched against JSON property names, as they are in JSON stream, not against Java field names. Map entries
+ * are matched by key, in the same way as object properties. Projection instance is immutable and thread safe; it is
+ * meant to be created once and reused for many parsing processes.
+ *
+ * <pre>
+ * Projection projection = Projection.of("header.route", "items[*].id");
+ * Order order = json.parse(body, Order.class, projection);
+ * </pre>
+ *
+ * @author Iulian Rotaru
+ */
+public final class Projection
+{
+  /** Projection selecting everything. This is the projection used by parser when none is provided. */
+  public static final Projection ALL = new Projection(null);
+
+  /** Array items suffix and root prefix. */
+  private static final String ITEMS = "[*]";
+
+  /**
+   * Compile projection from JSON paths.
+   *
+   * @param paths JSON paths, at least one.
+   * @return compiled projection.
+   * @throws IllegalArgumentException if paths list is null or empty or a path is not valid.
+   */
+  public static Projection of(String... paths) throws IllegalArgumentException
+  {
+    notNull(paths, "JSON paths");
+    if(paths.length == 0) {
+      throw new IllegalArgumentException("Empty JSON paths list.");
+    }
+
+    Projection root = new Projection(new HashMap<>());
+    for(String path : paths) {
+      notNull(path, "JSON path");
+      if(path.startsWith(ITEMS)) {
+        path = path.substring(ITEMS.length());
+        if(path.startsWith(".")) {
+          path = path.substring(1);
+        }
+        if(path.isEmpty()) {
+          return ALL;
+        }
+      }
+
+      Projection node = root;
+      String[] names = path.split("\\.", -1);
+      for(int i = 0; i < names.length; ++i) {
+        String name = names[i];
+        if(name.endsWith(ITEMS)) {
+          name = name.substring(0, name.length() - ITEMS.length());
+        }
+        if(name.isEmpty() || name.contains("[") || name.contains("]")) {
+          throw new IllegalArgumentException(String.format("Invalid JSON path |%s|.", path));
+        }
+        if(node == ALL) {
+          // a shorter path already selects entire value
+          break;
+        }
+        if(i == names.length - 1) {
+          node.children.put(name, ALL);
+          break;
+        }
+        Projection child = node.children.get(name);
+        if(child == null) {
+          child = new Projection(new HashMap<>());
+          node.children.put(name, child);
+        }
+        node = child;
+      }
+    }
+    return root;
+  }
+
+  /** Selected properties mapped to their projections or null for projection selecting everything. */
+  private final Map<String, Projection> children;
+
+  /**
+   * Create projection node.
+   *
+   * @param children selected properties, null for projection selecting everything.
+   */
+  private Projection(Map<String, Projection> children)
+  {
+    this.children = children;
+  }
+
+  /**
+   * Get projection for named property value or null if property is not selected.
+   *
+   * @param name JSON property name.
+   * @return property value projection or null.
+   */
+  Projection child(String name)
+  {
+    return children == null ? this : children.get(name);
+  }
+}
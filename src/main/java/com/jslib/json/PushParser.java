@@ -0,0 +1,848 @@
+package com.jslib.json;
+
+import static com.jslib.util.Params.notNull;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.jslib.api.json.JsonLifeCycle;
+import com.jslib.converter.ConverterRegistry;
+
+/**
+ * Non-blocking parser fed with input chunks as they arrive, meant for NIO event loops where blocking on
+ * {@link java.io.Reader#read()} is not an option. Bytes are decoded incrementally, multi-byte characters split across
+ * chunks included, and decoded characters are tokenized and bound to requested type while chunks are fed. Lexer and
+ * parser state is kept suspended between chunks: a token split across chunks is kept into a value builder and nested
+ * objects, arrays and maps being bound are kept on an explicit containers stack. Consumed characters are not retained,
+ * so that memory used by parser is bounded by the longest token and nesting depth, not by document size.
+ *
+ * <pre>
+ * PushParser parser = new PushParser(Order.class);
+ * // on every read event
+ * if(parser.feed(byteBuffer)) {
+ *   Order order = parser.result();
+ * }
+ * // on connection half close
+ * parser.endOfInput();
+ * </pre>
+ * <p>
+ * Root object, array and quoted string are completed by their closing character. A not quoted root value, e.g. a
+ * number, has no terminator and is completed by {@link #endOfInput()}. Only white spaces are accepted after root value.
+ * Syntax and binding errors are reported by the feed call that supplies the offending character.
+ * <p>
+ * Binding follows {@link Parser} rules, including value helpers, numeric tokens and missing fields, but projections and
+ * parsing into existing instances are not supported. Resource limits, see {@link JsonLimits}, are enforced while chunks
+ * are fed; characters limit bounds the total number of characters fed for a document. Push parser is not thread safe; it is expected to be owned by a
+ * connection and fed by a single event loop thread. After a document is completed or parsing fails, push parser can
+ * be reused for the next document after {@link #reset()}.
+ *
+ * @author Iulian Rotaru
+ */
+public final class PushParser
+{
+  /** Capacity of decoded characters buffer. */
+  private static final int BUFFER_SIZE = 1024;
+
+  /** Expected type for root value. */
+  private final Type type;
+
+  /** Resource limits enforced for every document. */
+  private final JsonLimits limits;
+
+  /** Bytes decoder, configured to report malformed input. */
+  private final CharsetDecoder decoder;
+
+  /** Bytes not yet decoded, that is, the incomplete tail of a multi-byte character split across chunks. */
+  private final ByteBuffer pending = ByteBuffer.allocate(16);
+
+  /** Characters decoded from current bytes chunk, processed and discarded as soon as decoded. */
+  private final CharBuffer decoded = CharBuffer.allocate(BUFFER_SIZE);
+
+  /** Collects current token characters, possible across chunks, and processes escape sequences. */
+  private final LexerValueBuilder builder = new LexerValueBuilder();
+
+  /** Keeps the last consumed characters for parser exceptions message. */
+  private final ErrorReporter errorReporter = new ErrorReporter();
+
+  /** Lexical state for current token. */
+  private Lexical lexical = Lexical.NONE;
+
+  /** Stack of containers being bound, root value first; frames are preserved on reset for reuse. */
+  private Frame[] frames = new Frame[16];
+
+  /** Current nesting depth, that is, the number of frames in use from {@link #frames}. */
+  private int depth;
+
+  /** True if root value is complete. */
+  private boolean complete;
+
+  /** True after {@link #endOfInput()} or parsing failure. */
+  private boolean closed;
+
+  /** Bound root value, valid only if root value is complete. */
+  private Object result;
+
+  /** Number of characters consumed since last reset. */
+  private long consumed;
+
+  /**
+   * Create push parser for UTF-8 encoded input.
+   *
+   * @param type expected type for root value.
+   * @throws IllegalArgumentException if type is null.
+   */
+  public PushParser(Type type) throws IllegalArgumentException
+  {
+    this(type, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Create push parser for input bytes encoded with given charset.
+   *
+   * @param type expected type for root value,
+   * @param charset input bytes charset.
+   * @throws IllegalArgumentException if any argument is null.
+   */
+  public PushParser(Type type, Charset charset) throws IllegalArgumentException
+  {
+    this(type, charset, JsonLimits.NONE);
+  }
+
+  /**
+   * Create push parser for input bytes encoded with given charset, enforcing given resource limits.
+   *
+   * @param type expected type for root value,
+   * @param charset input bytes charset,
+   * @param limits resource limits, {@link JsonLimits#NONE} for no limits.
+   * @throws IllegalArgumentException if any argument is null.
+   */
+  public PushParser(Type type, Charset charset, JsonLimits limits) throws IllegalArgumentException
+  {
+    notNull(type, "Type");
+    notNull(charset, "Charset");
+    notNull(limits, "Limits");
+    this.type = type;
+    this.limits = limits;
+    this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+  }
+
+  /**
+   * Feed input bytes. All remaining bytes from given buffer are consumed; a multi-byte character split across chunks is
+   * kept till next chunk.
+   *
+   * @param chunk input bytes.
+   * @return true if root value is complete.
+   * @throws IllegalArgumentException if chunk is null.
+   * @throws IllegalStateException if parser was closed by {@link #endOfInput()} or by a parsing failure.
+   * @throws JsonParserException if input bytes are not valid for charset or JSON is not well formed.
+   * @throws JsonLimitException if input exceeds a resource limit.
+   */
+  public boolean feed(ByteBuffer chunk) throws IllegalArgumentException, IllegalStateException, JsonParserException
+  {
+    notNull(chunk, "Input chunk");
+    assertOpened();
+    // complete pending multi-byte character one byte at a time; decoder consumes pending bytes only when complete
+    while(pending.position() > 0 && chunk.hasRemaining()) {
+      pending.put(chunk.get());
+      pending.flip();
+      decode(pending, false);
+      pending.compact();
+    }
+    decode(chunk, false);
+    // decoder leaves in chunk only the incomplete tail of the last character
+    pending.put(chunk);
+    return complete;
+  }
+
+  /**
+   * Feed input characters range. Characters are processed in place, with no copy.
+   *
+   * @param chunk input characters,
+   * @param offset index of the first character,
+   * @param count number of characters.
+   * @return true if root value is complete.
+   * @throws IllegalArgumentException if chunk is null or range is not valid.
+   * @throws IllegalStateException if parser was closed by {@link #endOfInput()} or by a parsing failure.
+   * @throws JsonParserException if JSON is not well formed.
+   * @throws JsonLimitException if input exceeds a resource limit.
+   */
+  public boolean feed(char[] chunk, int offset, int count) throws IllegalArgumentException, IllegalStateException, JsonParserException
+  {
+    notNull(chunk, "Input chunk");
+    if(offset < 0 || count < 0 || offset > chunk.length - count) {
+      throw new IllegalArgumentException(String.format("Invalid range |%d:%d| for characters array of length |%d|.", offset, count, chunk.length));
+    }
+    assertOpened();
+    scan(chunk, offset, count);
+    return complete;
+  }
+
+  /**
+   * Signal input end. Flushes bytes decoder and completes not quoted root value, if the case.
+   *
+   * @throws JsonParserException if input is empty, root value is not complete or input ends with an incomplete character.
+   */
+  public void endOfInput() throws JsonParserException
+  {
+    if(closed) {
+      return;
+    }
+    pending.flip();
+    decode(pending, true);
+    pending.clear();
+    closed = true;
+
+    try {
+      switch(lexical) {
+      case UNQUOTED:
+      case UNQUOTED_SPACE:
+        if(depth == 0) {
+          // not quoted root value is terminated by stream end
+          lexical = Lexical.NONE;
+          token(false);
+          break;
+        }
+        // fall through premature end
+
+      case QUOTED:
+        throw new JsonParserException("Premature end of JSON stream. Root value is not complete.");
+
+      default:
+      }
+      if(!complete) {
+        throw depth == 0 ? new JsonParserException("Empty JSON stream.") : new JsonParserException("Premature end of JSON stream. Root value is not complete.");
+      }
+    }
+    catch(JsonParserException e) {
+      throw e.attach(errorReporter);
+    }
+    catch(RuntimeException e) {
+      throw new JsonParserException(e).attach(errorReporter);
+    }
+  }
+
+  /**
+   * Test if root value is complete, see {@link #result()}.
+   *
+   * @return true if root value is complete.
+   */
+  public boolean isComplete()
+  {
+    return complete;
+  }
+
+  /**
+   * Get root value bound to expected type. Value is bound while chunks are fed; this method just returns it.
+   *
+   * @param <T> auto-cast type.
+   * @return root value instance, possibly null.
+   * @throws IllegalStateException if root value is not complete.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T result() throws IllegalStateException
+  {
+    if(!complete) {
+      throw new IllegalStateException("Root value is not complete.");
+    }
+    return (T)result;
+  }
+
+  /** Reset parser state for next document, preserving allocated buffers. */
+  public void reset()
+  {
+    decoder.reset();
+    pending.clear();
+    builder.reset();
+    errorReporter.reset();
+    lexical = Lexical.NONE;
+    while(depth > 0) {
+      frames[--depth].value = null;
+    }
+    complete = false;
+    closed = false;
+    result = null;
+    consumed = 0;
+  }
+
+  /**
+   * Throw illegal state if this parser was closed.
+   *
+   * @throws IllegalStateException if parser was closed.
+   */
+  private void assertOpened() throws IllegalStateException
+  {
+    if(closed) {
+      throw new IllegalStateException("Attempt to feed closed push parser.");
+    }
+  }
+
+  /**
+   * Decode bytes and scan decoded characters, in buffer size batches.
+   *
+   * @param bytes bytes to decode,
+   * @param endOfInput true if there are no more input bytes.
+   * @throws JsonParserException if bytes are not valid for charset or JSON is not well formed.
+   */
+  private void decode(ByteBuffer bytes, boolean endOfInput) throws JsonParserException
+  {
+    CoderResult result;
+    do {
+      result = decoder.decode(bytes, decoded, endOfInput);
+      drain();
+    } while(result.isOverflow());
+    if(endOfInput && !result.isError()) {
+      do {
+        result = decoder.flush(decoded);
+        drain();
+      } while(result.isOverflow());
+    }
+    if(result.isError()) {
+      closed = true;
+      try {
+        result.throwException();
+      }
+      catch(CharacterCodingException e) {
+        throw new JsonParserException(e).attach(errorReporter);
+      }
+    }
+  }
+
+  /**
+   * Scan decoded characters and clear decoded characters buffer.
+   *
+   * @throws JsonParserException if JSON is not well formed.
+   */
+  private void drain() throws JsonParserException
+  {
+    decoded.flip();
+    if(decoded.hasRemaining()) {
+      scan(decoded.array(), decoded.position(), decoded.remaining());
+    }
+    decoded.clear();
+  }
+
+  /**
+   * Tokenize a range of characters and bind tokens, resuming lexer state from previous range. On parsing failure this
+   * parser is closed.
+   *
+   * @param chars characters buffer,
+   * @param offset index of the first character,
+   * @param count number of characters.
+   * @throws JsonParserException if JSON is not well formed or a value cannot be bound.
+   */
+  private void scan(char[] chars, int offset, int count) throws JsonParserException
+  {
+    int index = offset;
+    final int end = offset + count;
+    try {
+      // characters are counted before processing so that excess is detected before it is bound
+      consumed += count;
+      if(consumed > limits.maxChars()) {
+        throw new JsonLimitException(JsonLimitException.Limit.CHARS, limits.maxChars());
+      }
+      while(index < end) {
+        char c = chars[index];
+        switch(lexical) {
+        case QUOTED:
+          // copy unescaped run in bulk; quotation mark and escape sequences are processed one character at a time
+          int start = index;
+          int runEnd = runEnd(index, end);
+          while(index < runEnd && (c = chars[index]) != '"' && c != '\\') {
+            ++index;
+          }
+          if(index > start) {
+            builder.append(chars, start, index - start);
+            checkLength();
+          }
+          if(index < end) {
+            ++index;
+            if(!builder.append(c)) {
+              lexical = Lexical.NONE;
+              token(true);
+            }
+            else {
+              checkLength();
+            }
+          }
+          continue;
+
+        case UNQUOTED:
+          start = index;
+          runEnd = runEnd(index, end);
+          while(index < runEnd && !isUnquotedDelimiter(c = chars[index])) {
+            ++index;
+          }
+          if(index > start) {
+            builder.append(chars, start, index - start);
+            checkLength();
+          }
+          if(index < end) {
+            if(CharReader.isWhitespace(c)) {
+              lexical = Lexical.UNQUOTED_SPACE;
+              ++index;
+            }
+            else {
+              // structural character is processed on next iteration
+              lexical = Lexical.NONE;
+              token(false);
+            }
+          }
+          continue;
+
+        case UNQUOTED_SPACE:
+          if(CharReader.isWhitespace(c)) {
+            ++index;
+            continue;
+          }
+          if(depth == 0) {
+            ++index;
+            throw new JsonParserException("Invalid character |%s| after JSON root value.", c);
+          }
+          if(c != '}' && c != ']' && c != ':' && c != ',') {
+            ++index;
+            throw new JsonParserException("Invalid primitive value with white space.");
+          }
+          lexical = Lexical.NONE;
+          token(false);
+          continue;
+
+        default:
+        }
+
+        ++index;
+        if(CharReader.isWhitespace(c)) {
+          continue;
+        }
+        if(complete) {
+          throw new JsonParserException("Invalid character |%s| after JSON root value.", c);
+        }
+        switch(c) {
+        case '{':
+          accept(Lexer.TOKEN_LEFT_BRACE);
+          break;
+
+        case '}':
+          accept(Lexer.TOKEN_RIGHT_BRACE);
+          break;
+
+        case '[':
+          accept(Lexer.TOKEN_LEFT_SQUARE);
+          break;
+
+        case ']':
+          accept(Lexer.TOKEN_RIGHT_SQUARE);
+          break;
+
+        case ':':
+          accept(Lexer.TOKEN_COLON);
+          break;
+
+        case ',':
+          accept(Lexer.TOKEN_COMMA);
+          break;
+
+        case '"':
+          builder.clear();
+          lexical = Lexical.QUOTED;
+          break;
+
+        default:
+          builder.clear();
+          lexical = Lexical.UNQUOTED;
+          // not quoted value first character is collected in bulk with the rest of the run
+          --index;
+        }
+      }
+    }
+    catch(JsonParserException e) {
+      closed = true;
+      throw e.attach(store(chars, offset, index));
+    }
+    catch(RuntimeException e) {
+      closed = true;
+      throw new JsonParserException(e).attach(store(chars, offset, index));
+    }
+    store(chars, offset, index);
+  }
+
+  /**
+   * Store consumed characters into error reporter.
+   *
+   * @param chars characters buffer,
+   * @param offset index of the first consumed character,
+   * @param index index of the first not consumed character.
+   * @return error reporter.
+   */
+  private ErrorReporter store(char[] chars, int offset, int index)
+  {
+    errorReporter.store(chars, offset, index - offset);
+    return errorReporter;
+  }
+
+  /**
+   * Get the end of the characters run that can be appended to value builder without exceeding string length limit by
+   * more than one character, so that a too long value is rejected without copying the rest of the chunk.
+   *
+   * @param index index of run first character,
+   * @param end chunk end index, exclusive.
+   * @return run end index, exclusive.
+   */
+  private int runEnd(int index, int end)
+  {
+    int room = limits.maxStringLength() - builder.length();
+    return room < end - index ? index + room + 1 : end;
+  }
+
+  /**
+   * Check collected value length does not exceed string length limit.
+   *
+   * @throws JsonLimitException if string length limit is exceeded.
+   */
+  private void checkLength()
+  {
+    if(builder.length() > limits.maxStringLength()) {
+      throw new JsonLimitException(JsonLimitException.Limit.STRING_LENGTH, limits.maxStringLength());
+    }
+  }
+
+  /**
+   * Test if character ends a not quoted value. Inside containers, not quoted values are ended by white spaces and by
+   * structural characters that can follow a value; root value is ended only by white spaces, like {@link Lexer} does.
+   *
+   * @param c character to test.
+   * @return true if character ends current not quoted value.
+   */
+  private boolean isUnquotedDelimiter(char c)
+  {
+    if(CharReader.isWhitespace(c)) {
+      return true;
+    }
+    return depth > 0 && (c == '}' || c == ']' || c == ':' || c == ',');
+  }
+
+  /**
+   * Create token from collected value and bind it. Token ordinal depends on what current container expects, the same
+   * way {@link Lexer} tracks object names, values and array items. Only not quoted values can be numbers.
+   *
+   * @param quoted true if collected value was quoted.
+   * @throws JsonParserException if token is not expected or cannot be bound.
+   */
+  private void token(boolean quoted) throws JsonParserException
+  {
+    int ordinal = Token.VALUE;
+    if(depth > 0) {
+      switch(frames[depth - 1].state) {
+      case WAIT_FOR_NAME:
+      case WAIT_FOR_KEY:
+        ordinal = Token.NAME;
+        break;
+
+      case WAIT_FOR_ITEM:
+        ordinal = Token.ITEM;
+        break;
+
+      default:
+      }
+    }
+    accept(quoted || ordinal == Token.NAME ? new Token(ordinal, builder.toString()) : builder.toToken(ordinal));
+  }
+
+  /**
+   * Bind token accordingly current container state. This method has the same state transitions as {@link Parser} but
+   * nested containers are pushed on {@link #frames} stack instead of recursive calls.
+   *
+   * @param token lexer token.
+   * @throws JsonParserException if token is not expected or cannot be bound.
+   */
+  private void accept(Token token) throws JsonParserException
+  {
+    if(depth == 0) {
+      push(type);
+    }
+    Frame frame = frames[depth - 1];
+    Value value = frame.value;
+
+    switch(frame.state) {
+    case NONE:
+      switch(token.ordinal()) {
+      case Token.VALUE:
+        value.setToken(token);
+        pop();
+        return;
+
+      case Token.LEFT_BRACE:
+      case Token.LEFT_SQUARE:
+        open(frame, token);
+        return;
+
+      default:
+        throw new JsonParserException("Invalid start token %s.", token);
+      }
+
+    case WAIT_FOR_NAME:
+      switch(token.ordinal()) {
+      case Token.RIGHT_BRACE: // empty object
+        pop();
+        return;
+
+      case Token.NAME:
+        if(!(value instanceof ObjectValue)) {
+          throw new JsonParserException("Invalid value helper |%s| for target type |%s|.", value.getClass(), value.getType());
+        }
+        checkElements(++frame.members);
+        ((ObjectValue)value).setFieldName(token.value());
+        frame.state = State.WAIT_FOR_COLON;
+        return;
+
+      default:
+        throw new JsonParserException("Invalid token |%s| while waiting for a name.", token);
+      }
+
+    case WAIT_FOR_COLON:
+      if(token.ordinal() != Token.COLON) {
+        throw new JsonParserException("Expected COLON but got |%s|.", token);
+      }
+      // there is no field for property; its value is parsed but not bound
+      frame.skip = value instanceof ObjectValue && ((ObjectValue)value).getValueType() == null;
+      frame.state = State.WAIT_FOR_VALUE;
+      return;
+
+    case WAIT_FOR_VALUE:
+      switch(token.ordinal()) {
+      case Token.LEFT_BRACE:
+      case Token.LEFT_SQUARE:
+        open(push(frame.skip ? null : ((ObjectValue)value).getValueType()), token);
+        return;
+
+      case Token.VALUE:
+        if(!frame.skip) {
+          ((ObjectValue)value).setValueToken(token);
+        }
+        frame.state = State.WAIT_FOR_COMMA_OR_RIGHT_BRACE;
+        return;
+
+      default:
+        throw new JsonParserException("Expect VALUE, LEFT_BRACE or LEFT_SQUARE but got %s.", token);
+      }
+
+    case WAIT_FOR_COMMA_OR_RIGHT_BRACE:
+      if(token.ordinal() == Token.COMMA) {
+        frame.state = value instanceof MapValue ? State.WAIT_FOR_KEY : State.WAIT_FOR_NAME;
+        return;
+      }
+      if(token.ordinal() != Token.RIGHT_BRACE) {
+        throw new JsonParserException("Expected RIGHT_BRACE but got %s. Maybe missing comma.", token);
+      }
+      pop();
+      return;
+
+    case WAIT_FOR_KEY:
+      switch(token.ordinal()) {
+      case Token.LEFT_BRACE:
+        checkElements(++frame.members);
+        open(push(((MapValue)value).keyType()), token);
+        return;
+
+      case Token.RIGHT_BRACE: // empty map
+        pop();
+        return;
+
+      case Token.NAME:
+        checkElements(++frame.members);
+        ((MapValue)value).setKey(token.value());
+        frame.state = State.WAIT_FOR_COLON;
+        return;
+
+      default:
+        throw new JsonParserException("Unexpected token |%s| while waiting for map key.", token);
+      }
+
+    case WAIT_FOR_ITEM:
+      switch(token.ordinal()) {
+      case Token.LEFT_BRACE: // object inside array
+      case Token.LEFT_SQUARE: // array inside array
+        checkElements(++frame.items);
+        open(push(value.getType()), token);
+        return;
+
+      case Token.RIGHT_SQUARE: // empty array
+        pop();
+        return;
+
+      case Token.ITEM:
+        checkElements(++frame.items);
+        value.setToken(token);
+        frame.state = State.WAIT_FOR_COMMA_OR_RIGHT_SQUARE;
+        return;
+
+      default:
+        throw new JsonParserException("Expect ITEM, LEFT_BRACE or LEFT_SQUARE but got %s.", token);
+      }
+
+    case WAIT_FOR_COMMA_OR_RIGHT_SQUARE:
+      if(token.ordinal() == Token.COMMA) {
+        frame.state = State.WAIT_FOR_ITEM;
+        return;
+      }
+      if(token.ordinal() != Token.RIGHT_SQUARE) {
+        throw new JsonParserException("Expected RIGHT_SQUARE but got %s. Maybe missing comma.", token);
+      }
+      pop();
+      return;
+    }
+  }
+
+  /**
+   * Push a new frame for a value of given type. Null type is accepted for values of properties with no related field,
+   * in which case value is parsed but not bound, see {@link MissingFieldValue}.
+   *
+   * @param type value type, possibly null.
+   * @return pushed frame.
+   */
+  private Frame push(Type type)
+  {
+    if(depth == limits.maxDepth()) {
+      throw new JsonLimitException(JsonLimitException.Limit.DEPTH, limits.maxDepth());
+    }
+    if(depth == frames.length) {
+      frames = Arrays.copyOf(frames, depth * 2);
+    }
+    Frame frame = frames[depth];
+    if(frame == null) {
+      frame = new Frame();
+      frames[depth] = frame;
+    }
+    ++depth;
+    frame.value = type != null ? ParsePlan.of(type).newValue(ConverterRegistry.getConverter()) : new MissingFieldValue(ConverterRegistry.getConverter());
+    frame.state = State.NONE;
+    frame.items = 0;
+    frame.members = 0;
+    frame.skip = false;
+    return frame;
+  }
+
+  /**
+   * Check container elements count does not exceed elements limit.
+   *
+   * @param elements array items or object members count, including the element about to be parsed.
+   * @throws JsonLimitException if elements limit is exceeded.
+   */
+  private void checkElements(int elements)
+  {
+    if(elements > limits.maxElements()) {
+      throw new JsonLimitException(JsonLimitException.Limit.ELEMENTS, limits.maxElements());
+    }
+  }
+
+  /**
+   * Start binding a JSON object or array into frame value.
+   *
+   * @param frame frame for the container value,
+   * @param token left brace or left square token.
+   */
+  private static void open(Frame frame, Token token)
+  {
+    if(token.ordinal() == Token.LEFT_SQUARE) {
+      frame.state = State.WAIT_FOR_ITEM;
+    }
+    else {
+      frame.state = frame.value instanceof MapValue ? State.WAIT_FOR_KEY : State.WAIT_FOR_NAME;
+    }
+  }
+
+  /**
+   * Complete current frame value and pop it from frames stack. Completed value is bound into parent container or, for
+   * root value, stored as parsing result.
+   */
+  private void pop()
+  {
+    Frame frame = frames[--depth];
+    Object instance = frame.value.instance();
+    frame.value = null;
+    if(instance instanceof JsonLifeCycle) {
+      ((JsonLifeCycle)instance).postParse();
+    }
+    if(depth == 0) {
+      result = instance;
+      complete = true;
+      return;
+    }
+
+    Frame parent = frames[depth - 1];
+    switch(parent.state) {
+    case WAIT_FOR_VALUE:
+      if(!parent.skip) {
+        ((ObjectValue)parent.value).setValue(instance);
+      }
+      parent.state = State.WAIT_FOR_COMMA_OR_RIGHT_BRACE;
+      break;
+
+    case WAIT_FOR_KEY:
+      ((MapValue)parent.value).setKey(instance);
+      parent.state = State.WAIT_FOR_COLON;
+      break;
+
+    default:
+      parent.value.set(instance);
+      parent.state = State.WAIT_FOR_COMMA_OR_RIGHT_SQUARE;
+    }
+  }
+
+  /**
+   * A JSON object, array or root value being bound.
+   *
+   * @author Iulian Rotaru
+   */
+  private static final class Frame
+  {
+    /** Value helper for the value being bound. */
+    Value value;
+
+    /** Binding state. */
+    State state;
+
+    /** Number of array items parsed so far. */
+    int items;
+
+    /** Number of object properties or map entries parsed so far. */
+    int members;
+
+    /** True if current object property has no related field and its value is not bound. */
+    boolean skip;
+  }
+
+  /**
+   * Lexical state for the token being collected, possible across chunks.
+   *
+   * @author Iulian Rotaru
+   */
+  private static enum Lexical
+  {
+    /** Between tokens. */
+    NONE,
+    /** Inside a quoted string, escape sequences included. */
+    QUOTED,
+    /** Inside a not quoted value. */
+    UNQUOTED,
+    /** White space after a not quoted value, waiting for a delimiter. */
+    UNQUOTED_SPACE
+  }
+
+  /**
+   * Binding states, the same as {@link Parser} automaton states.
+   *
+   * @author Iulian Rotaru
+   */
+  private static enum State
+  {
+    NONE, WAIT_FOR_NAME, WAIT_FOR_ITEM, WAIT_FOR_KEY, WAIT_FOR_COLON, WAIT_FOR_VALUE, WAIT_FOR_COMMA_OR_RIGHT_BRACE, WAIT_FOR_COMMA_OR_RIGHT_SQUARE
+  }
+}
@@ -1,13 +1,15 @@
 package com.jslib.json;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
-import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.jslib.api.json.JsonLifeCycle;
 import com.jslib.api.log.Log;
@@ -21,9 +23,16 @@ import com.jslib.util.Types;
 
 /**
  * Serialize primitive values, enumerations, objects, arrays, collections and maps to JSON string representation. This
- * class is invoked internally by {@link JsonImpl} facade and is not intended to be reused; create a new serializer
- * instance for every value to stringify. Once instance created invoke {@link #serialize(Writer, Object)} with external
- * created characters writer instance. After serialization completes writer is flushed but left opened.
+ * class is invoked internally by {@link JsonImpl} facade. Once instance created invoke
+ * {@link #serialize(Writer, Object)} with external created characters writer instance. After serialization completes
+ * writer is flushed but left opened.
+ * <p>
+ * Serializer has its own internal buffer, so that external writer is not decorated with a buffered writer. Serializer
+ * instance is not thread safe but can be reused for sequential serializations; after serialization completes caller
+ * may invoke {@link #reset()} in order to release reference to external writer.
+ * <p>
+ * For string output use {@link #serializeToString(Object)}; there is no external writer and internal buffer grows to
+ * hold the entire JSON string. Buffer initial size is the output size of the previous value of the same class.
  * <p>
  * This class handle serialization in a best effort manner. If for some reason a field cannot be processed it is
  * replaced by null, but takes care to record failing condition to error log. Currently there are two conditions that
@@ -46,18 +55,125 @@ public class Serializer
   /** JSON keyword for null values. */
   private static final String KEYWORD_NULL = "null";
 
-  /** External created writer instance initialized by {@link #serialize(Writer, Object)} entry point. */
+  /** Hexadecimal digits used by unicode escape sequences. */
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /** Internal buffer size, in characters. */
+  private static final int BUFFER_SIZE = 8192;
+
+  /** Maximum internal buffer size preserved by {@link #reset()}, in characters. */
+  private static final int MAX_RETAINED_BUFFER_SIZE = 65536;
+
+  /** Last string output size for every serialized value class, used to size internal buffer. */
+  private static final ClassValue<AtomicInteger> outputSizes = new ClassValue<AtomicInteger>()
+  {
+    @Override
+    protected AtomicInteger computeValue(Class<?> type)
+    {
+      return new AtomicInteger();
+    }
+  };
+
+  /** Serializable fields for every serialized object class, see {@link #serializableFields(Class)}. */
+  private static final ClassValue<List<Field>> classFields = new ClassValue<List<Field>>()
+  {
+    @Override
+    protected List<Field> computeValue(Class<?> type)
+    {
+      return Collections.unmodifiableList(scanSerializableFields(type));
+    }
+  };
+
+  /**
+   * External created writer instance initialized by {@link #serialize(Writer, Object)} entry point. It is null while
+   * serializing to string, see {@link #serializeToString(Object)}.
+   */
   private Writer writer;
 
+  /**
+   * Internal characters buffer flushed to external writer when full and at serialization end. When there is no external
+   * writer buffer grows to hold the entire output.
+   */
+  private char[] buffer = new char[BUFFER_SIZE];
+
+  /** Number of characters stored into internal buffer. */
+  private int length;
+
   /**
    * Circular dependencies stack keeps track of processed values. Values are pushed just before entering the actual
    * serialization and extracted at final. See {@link #serialize(Object)}.
    */
-  private Stack<Object> circularDependenciesStack = new Stack<Object>();
+  private final List<Object> circularDependenciesStack = new ArrayList<>();
+
+  /**
+   * If true, field names are written in dashed format, e.g. <code>orderId</code> field is serialized as
+   * <code>order-id</code> property. Default to false.
+   */
+  private final boolean dashedNames;
+
+  /**
+   * If true, non ASCII characters from string values are written as unicode escape sequences, <code>\\uXXXX</code>, so
+   * that JSON output is pure ASCII. Default to false, that is, non ASCII characters are written as they are and the
+   * external writer takes care of encoding, usually UTF-8.
+   */
+  private final boolean escapeNonAscii;
+
+  /** Instrumentation installed when current serialization started or null if not instrumented. */
+  private JsonInstrumentation instrumentation;
+
+  /** Current serialization start time, in nanoseconds, valid only if instrumented. */
+  private long startTime;
+
+  /** Metrics reported to instrumentation, created on first instrumented serialization. */
+  private JsonMetrics metrics;
+
+  /** Number of characters flushed to external writer by current serialization. */
+  private long written;
+
+  /** Number of values serialized as JSON objects by current serialization, maps included. */
+  private int objects;
+
+  /** Number of values serialized as JSON arrays by current serialization. */
+  private int arrays;
+
+  /** Current containers nesting depth. */
+  private int depth;
+
+  /** Maximum containers nesting depth reached by current serialization. */
+  private int maxDepth;
+
+  /** Maximum number of items of a value serialized as JSON array by current serialization. */
+  private int largestArray;
 
   /** Create default serializer. */
   public Serializer()
   {
+    this(false, false);
+  }
+
+  /**
+   * Create serializer with optional dashed names output. If <code>dashedNames</code> flag is true, Java member names are
+   * converted to dashed JSON property names using the shared {@link NamesCache#dashedNames()} cache.
+   * 
+   * @param dashedNames true to write field names in dashed format.
+   */
+  public Serializer(boolean dashedNames)
+  {
+    this(dashedNames, false);
+  }
+
+  /**
+   * Create serializer with optional dashed names output and optional non ASCII characters escaping. See
+   * {@link #Serializer(boolean)} for dashed names. If <code>escapeNonAscii</code> flag is true, characters above
+   * <code>U+007F</code> are written as unicode escape sequences; supplementary characters are escaped as surrogate pairs.
+   * 
+   * @param dashedNames true to write field names in dashed format,
+   * @param escapeNonAscii true to escape non ASCII characters from string values.
+   */
+  public Serializer(boolean dashedNames, boolean escapeNonAscii)
+  {
+    this.dashedNames = dashedNames;
+    this.escapeNonAscii = escapeNonAscii;
   }
 
   /**
@@ -70,9 +186,170 @@ public class Serializer
    */
   public void serialize(Writer writer, Object value) throws IOException
   {
-    this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
-    serialize(value);
-    this.writer.flush();
+    this.writer = writer;
+    this.length = 0;
+    start();
+    Throwable error = null;
+    try {
+      serialize(value);
+      flushBuffer();
+      this.writer.flush();
+    }
+    catch(IOException | RuntimeException | Error e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      if(instrumentation != null) {
+        report(value, written + length, error);
+      }
+    }
+  }
+
+  /**
+   * Serialize primitive or aggregated value to JSON string. Serialized characters are collected into internal buffer
+   * that is sized from the output of the previous value of the same class and grows as needed; resulting string is
+   * created with a single copy from internal buffer.
+   * 
+   * @param value primitive or aggregated value.
+   * @return value JSON string representation.
+   */
+  public String serializeToString(Object value)
+  {
+    this.writer = null;
+    this.length = 0;
+
+    AtomicInteger outputSize = value != null ? outputSizes.get(value.getClass()) : null;
+    if(outputSize != null && outputSize.get() > buffer.length) {
+      buffer = new char[outputSize.get()];
+    }
+
+    start();
+    Throwable error = null;
+    try {
+      serialize(value);
+    }
+    catch(IOException e) {
+      error = e;
+      throw new BugError("IO exception while writing to internal buffer: %s", e);
+    }
+    catch(RuntimeException | Error e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      if(instrumentation != null) {
+        report(value, length, error);
+      }
+    }
+
+    if(outputSize != null) {
+      // add some slack to avoid buffer growing when next value of the same class is a little larger
+      outputSize.set(length + (length >> 3));
+    }
+    return new String(buffer, 0, length);
+  }
+
+  /**
+   * Reset serializer internal state and release reference to external writer. Internal buffer is preserved so that
+   * serializer instance can be reused, unless it grew too large while serializing to string.
+   */
+  public void reset()
+  {
+    writer = null;
+    length = 0;
+    instrumentation = null;
+    if(buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+      buffer = new char[BUFFER_SIZE];
+    }
+    circularDependenciesStack.clear();
+  }
+
+  /** Prepare operation counters and load installed instrumentation for a new serialization. */
+  private void start()
+  {
+    written = 0;
+    objects = 0;
+    arrays = 0;
+    depth = 0;
+    maxDepth = 0;
+    largestArray = 0;
+    instrumentation = JsonInstrumentation.installed();
+    if(instrumentation != null) {
+      startTime = System.nanoTime();
+    }
+  }
+
+  /**
+   * Report current serialization metrics to instrumentation. Instrumentation failure is logged and ignored.
+   * 
+   * @param value serialized value, null accepted,
+   * @param chars number of serialized characters,
+   * @param error exception that aborted serialization or null.
+   */
+  private void report(Object value, long chars, Throwable error)
+  {
+    if(metrics == null) {
+      metrics = new JsonMetrics();
+    }
+    metrics.reset();
+    metrics.nanos = System.nanoTime() - startTime;
+    metrics.chars = chars;
+    metrics.objects = objects;
+    metrics.arrays = arrays;
+    metrics.depth = maxDepth;
+    metrics.largestArray = largestArray;
+    metrics.error = error;
+
+    JsonInstrumentation instrumentation = this.instrumentation;
+    this.instrumentation = null;
+    try {
+      instrumentation.serialized(value != null ? value.getClass() : Void.class, metrics);
+    }
+    catch(Throwable t) {
+      log.error("Instrumentation |{java_type}| failure: {exception}", instrumentation.getClass(), t);
+    }
+  }
+
+  /**
+   * Bind this serializer to external writer without serializing a value. Used by serializers that drive serialization
+   * step by step, see {@link ChunkedSerializer}; serialized characters are written to external writer when internal
+   * buffer is full or on {@link #flush()}.
+   * 
+   * @param writer external characters stream.
+   */
+  void open(Writer writer)
+  {
+    this.writer = writer;
+    this.length = 0;
+  }
+
+  /**
+   * Write internal buffer content to external writer bound by {@link #open(Writer)}. External writer is not flushed.
+   * 
+   * @throws IOException if IO write operation fails.
+   */
+  void flush() throws IOException
+  {
+    flushBuffer();
+  }
+
+  /**
+   * Push value on circular dependencies stack. Serializers that suspend traversal keep a container on stack till all its
+   * children are serialized, not only while {@link #serialize(Object)} is running; every enter should be paired by an
+   * {@link #exit()}.
+   *
+   * @param value container value.
+   */
+  void enter(Object value)
+  {
+    circularDependenciesStack.add(value);
+  }
+
+  /** Remove the value pushed by the last {@link #enter(Object)}. */
+  void exit()
+  {
+    circularDependenciesStack.remove(circularDependenciesStack.size() - 1);
   }
 
   /**
@@ -102,7 +379,7 @@ public class Serializer
       write(KEYWORD_NULL);
       return;
     }
-    circularDependenciesStack.push(value);
+    circularDependenciesStack.add(value);
 
     if(value instanceof JsonLifeCycle) {
       ((JsonLifeCycle)value).preStringify();
@@ -141,7 +418,7 @@ public class Serializer
       serializeObject(value);
     }
     finally {
-      circularDependenciesStack.pop();
+      circularDependenciesStack.remove(circularDependenciesStack.size() - 1);
     }
   }
 
@@ -154,6 +431,8 @@ public class Serializer
    */
   protected void serializeArray(Object value) throws IOException
   {
+    ++arrays;
+    enterContainer();
     write('[');
     int index = 0;
 
@@ -165,6 +444,10 @@ public class Serializer
     }
 
     write(']');
+    --depth;
+    if(index > largestArray) {
+      largestArray = index;
+    }
   }
 
   /**
@@ -180,6 +463,8 @@ public class Serializer
     assert value != null;
     assert value instanceof Map;
 
+    ++objects;
+    enterContainer();
     write('{');
 
     @SuppressWarnings("unchecked")
@@ -196,6 +481,7 @@ public class Serializer
     }
 
     write('}');
+    --depth;
   }
 
   /**
@@ -213,11 +499,52 @@ public class Serializer
   {
     assert value != null;
 
+    ++objects;
+    enterContainer();
     write('{');
-    int index = 0;
+    List<Field> fields = serializableFields(value.getClass());
+    for(int i = 0; i < fields.size(); ++i) {
+      if(i > 0) {
+        write(',');
+      }
+      serializeField(value, fields.get(i));
+    }
+    write('}');
+    --depth;
+  }
 
-    Class<?> clazz = value.getClass();
+  /** Increment containers nesting depth, updating maximum depth. */
+  private void enterContainer()
+  {
+    if(++depth > maxDepth) {
+      maxDepth = depth;
+    }
+  }
 
+  /**
+   * Get fields serialized by {@link #serializeObject(Object)}, in serialization order: class fields first, then
+   * superclasses fields as long as superclass is part of the same package as given class. Static and transient fields
+   * are excluded, as are synthetic fields declared by the class itself.
+   * <p>
+   * Fields list is scanned once per class and cached; returned list is not modifiable.
+   * 
+   * @param clazz object class.
+   * @return serializable fields.
+   */
+  static List<Field> serializableFields(Class<?> clazz)
+  {
+    return classFields.get(clazz);
+  }
+
+  /**
+   * Scan class hierarchy for fields serialized by {@link #serializeObject(Object)}, see {@link #serializableFields(Class)}.
+   * 
+   * @param clazz object class.
+   * @return newly created serializable fields list.
+   */
+  private static List<Field> scanSerializableFields(Class<?> clazz)
+  {
+    List<Field> fields = new ArrayList<>();
     for(Field field : clazz.getDeclaredFields()) {
       if(field.isSynthetic()) {
         // do not include synthetic fields like outer 'this' for anonymous inner classes
@@ -227,10 +554,7 @@ public class Serializer
       if(Modifier.isStatic(m) || Modifier.isTransient(m)) {
         continue;
       }
-      if(index++ > 0) {
-        write(',');
-      }
-      serializeField(value, field);
+      fields.add(field);
     }
 
     // include super classes fields as long as they are in the same package
@@ -242,20 +566,17 @@ public class Serializer
         if(Modifier.isStatic(m) || Modifier.isTransient(m)) {
           continue;
         }
-        if(index++ > 0) {
-          write(',');
-        }
-        serializeField(value, field);
+        fields.add(field);
       }
       superclass = superclass.getSuperclass();
     }
-
-    write('}');
+    return fields;
   }
 
   /**
    * Serialize field name, colon as value separator and field value. Note that field value is processed by invoking
-   * recursively {@link #serialize(Object)}.
+   * recursively {@link #serialize(Object)}. If this serializer is configured for {@link #dashedNames} field name is
+   * converted to dashed format.
    * 
    * @param value value object field belongs to,
    * @param field field reflective descriptor.
@@ -264,7 +585,7 @@ public class Serializer
   protected void serializeField(Object value, Field field) throws IOException
   {
     field.setAccessible(true);
-    writeString(field.getName());
+    writeString(dashedNames ? NamesCache.dashedNames().get(field.getName()) : field.getName());
     write(':');
     serialize(getFieldValue(value, field));
   }
@@ -303,6 +624,8 @@ public class Serializer
    * Excerpt: ... string begins and ends with quotation marks. All Unicode characters may be placed within the quotation
    * marks except for the characters that must be escaped: quotation mark, reverse solidus, and the control characters
    * (U+0000 through U+001F).
+   * <p>
+   * Non ASCII characters are escaped only if this serializer was created with <code>escapeNonAscii</code> flag.
    * 
    * @param string string to escape and write.
    * @throws IOException if IO write operation fails.
@@ -345,10 +668,8 @@ public class Serializer
         break;
 
       default:
-        if(c < '\u0020') {
-          String unicode = "000" + Integer.toHexString(c);
-          write("\\u");
-          write(unicode.substring(unicode.length() - 4));
+        if(c < '\u0020' || (c > '\u007F' && escapeNonAscii)) {
+          writeUnicodeEscape(c);
         }
         else {
           write(c);
@@ -359,6 +680,22 @@ public class Serializer
     write('"');
   }
 
+  /**
+   * Write unicode escape sequence, <code>\\uXXXX</code>, for given character.
+   * 
+   * @param c character to escape.
+   * @throws IOException if IO write operation fails.
+   */
+  private void writeUnicodeEscape(char c) throws IOException
+  {
+    write('\\');
+    write('u');
+    write(HEX_DIGITS[(c >> 12) & 0xF]);
+    write(HEX_DIGITS[(c >> 8) & 0xF]);
+    write(HEX_DIGITS[(c >> 4) & 0xF]);
+    write(HEX_DIGITS[c & 0xF]);
+  }
+
   /**
    * Write a string to internal JSON stream. This method is not only convenient but isolate JSON serializer logic from
    * underlying JSON stream.
@@ -368,7 +705,21 @@ public class Serializer
    */
   protected void write(String s) throws IOException
   {
-    writer.write(s);
+    int count = s.length();
+    if(count > buffer.length - length) {
+      if(writer == null) {
+        growBuffer(count);
+      }
+      else {
+        flushBuffer();
+        if(count > buffer.length) {
+          writer.write(s);
+          return;
+        }
+      }
+    }
+    s.getChars(0, count, buffer, length);
+    length += count;
   }
 
   /**
@@ -380,7 +731,43 @@ public class Serializer
    */
   protected void write(char c) throws IOException
   {
-    writer.write(c);
+    if(length == buffer.length) {
+      if(writer == null) {
+        growBuffer(1);
+      }
+      else {
+        flushBuffer();
+      }
+    }
+    buffer[length++] = c;
+  }
+
+  /**
+   * Grow internal buffer, used when serializing to string, so that it can store at least requested number of
+   * characters. Buffer capacity is increased by half, or more if necessary.
+   * 
+   * @param count number of characters to make room for.
+   */
+  private void growBuffer(int count)
+  {
+    int capacity = Math.max(buffer.length + (buffer.length >> 1), length + count);
+    char[] newBuffer = new char[capacity];
+    System.arraycopy(buffer, 0, newBuffer, 0, length);
+    buffer = newBuffer;
+  }
+
+  /**
+   * Write internal buffer content to external writer and empty the buffer.
+   * 
+   * @throws IOException if IO write operation fails.
+   */
+  private void flushBuffer() throws IOException
+  {
+    if(length > 0) {
+      writer.write(buffer, 0, length);
+      written += length;
+      length = 0;
+    }
   }
 
   /**
@@ -0,0 +1,104 @@
+package com.jslib.json;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+
+/**
+ * Instrumentation that logs parse operations slower than a configured threshold, with target type, consumed characters,
+ * elapsed time, deepest nesting, largest array and a bounded sample of the last consumed characters. Input sample is
+ * taken from parser error reporter buffer and is captured only for slow operations, see {@link JsonMetrics#sample()}.
+ *
+ * <pre>
+ * JsonInstrumentation.install(new SlowParseDetector(200, TimeUnit.MILLISECONDS));
+ * </pre>
+ * <p>
+ * Reports are rate limited: at most one report per interval, process wide; slow operations detected while rate limited
+ * are counted and the count is included in the next report. Failed operations are reported too, if slow.
+ *
+ * @author Iulian Rotaru
+ */
+public class SlowParseDetector extends JsonInstrumentation
+{
+  private static final Log log = LogFactory.getLog(SlowParseDetector.class);
+
+  /** Default minimum interval between reports, in milliseconds. */
+  private static final long DEFAULT_INTERVAL = 10000;
+
+  /** Elapsed time, in nanoseconds, above which a parse operation is slow. */
+  private final long threshold;
+
+  /** Minimum interval between reports, in nanoseconds. */
+  private final long interval;
+
+  /** Time, as returned by {@link System#nanoTime()}, after which next report is allowed. */
+  private final AtomicLong nextReportTime = new AtomicLong(System.nanoTime());
+
+  /** Number of slow operations not reported because of rate limiting, since last report. */
+  private final LongAdder suppressed = new LongAdder();
+
+  /**
+   * Create detector with given threshold and default interval between reports of 10 seconds.
+   *
+   * @param threshold elapsed time above which a parse operation is slow,
+   * @param unit threshold time unit.
+   * @throws IllegalArgumentException if threshold is not positive.
+   */
+  public SlowParseDetector(long threshold, TimeUnit unit)
+  {
+    this(unit.toNanos(threshold), TimeUnit.MILLISECONDS.toNanos(DEFAULT_INTERVAL), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Create detector with given threshold and minimum interval between reports.
+   *
+   * @param threshold elapsed time above which a parse operation is slow,
+   * @param interval minimum interval between reports, zero to report every slow operation,
+   * @param unit threshold and interval time unit.
+   * @throws IllegalArgumentException if threshold is not positive or interval is negative.
+   */
+  public SlowParseDetector(long threshold, long interval, TimeUnit unit)
+  {
+    if(threshold <= 0) {
+      throw new IllegalArgumentException("Slow parse threshold should be positive.");
+    }
+    if(interval < 0) {
+      throw new IllegalArgumentException("Negative slow parse reports interval.");
+    }
+    this.threshold = unit.toNanos(threshold);
+    this.interval = unit.toNanos(interval);
+  }
+
+  @Override
+  public void parsed(Type type, JsonMetrics metrics)
+  {
+    if(metrics.nanos < threshold) {
+      return;
+    }
+    long now = System.nanoTime();
+    long next = nextReportTime.get();
+    if(now - next < 0 || !nextReportTime.compareAndSet(next, now + interval)) {
+      suppressed.increment();
+      return;
+    }
+    report(type, metrics, suppressed.sumThenReset());
+  }
+
+  /**
+   * Report slow parse operation. This default implementation logs a warning. Subclass may override it to redirect
+   * reports; metrics are valid only while this method is running.
+   *
+   * @param type parse operation target type,
+   * @param metrics slow operation metrics,
+   * @param suppressed number of slow operations not reported since previous report.
+   */
+  protected void report(Type type, JsonMetrics metrics, long suppressed)
+  {
+    log.warn("Slow JSON parse for |{java_type}|: {chars} chars in {millis} ms, depth {depth}, largest array {items}, error {exception}, {suppressed} slow parses not reported since last report. Last characters: |{sample}|.", //
+        TypeCounters.typeName(type), metrics.chars, TimeUnit.NANOSECONDS.toMillis(metrics.nanos), metrics.depth, metrics.largestArray, metrics.error, suppressed, metrics.sample());
+  }
+}
@@ -0,0 +1,161 @@
+package com.jslib.json;
+
+import java.util.Arrays;
+
+/**
+ * Structural scanner for in memory JSON characters. This helper class locates value boundaries without decoding values:
+ * it matches braces and square brackets and skips string literals, taking care of escaped quotation marks. It is used
+ * by {@link JsonNode} to navigate JSON documents lazily.
+ * <p>
+ * Scanner is lenient and does not validate value content; it only checks that values are properly terminated and that
+ * containers are closed by matching characters. Not quoted values accepted by {@link Lexer} are supported, that is, a
+ * not quoted value ends on white space or structural character.
+ *
+ * @author Iulian Rotaru
+ */
+final class StructuralScanner
+{
+  /** Prevent default constructor synthesis. */
+  private StructuralScanner()
+  {
+  }
+
+  /**
+   * Skip white spaces starting with given index.
+   *
+   * @param chars JSON characters,
+   * @param index index of the first character to test,
+   * @param limit characters limit, exclusive.
+   * @return index of the first not white space character or <code>limit</code>.
+   */
+  static int skipWhiteSpaces(char[] chars, int index, int limit)
+  {
+    while(index < limit && CharReader.isWhitespace(chars[index])) {
+      ++index;
+    }
+    return index;
+  }
+
+  /**
+   * Skip JSON value starting at given index. Value can be an object, an array, a quoted string or a not quoted primitive
+   * value.
+   *
+   * @param chars JSON characters,
+   * @param index index of value first character,
+   * @param limit characters limit, exclusive.
+   * @return index of the first character after value.
+   * @throws JsonParserException if there is no value at given index or value is not terminated.
+   */
+  static int skipValue(char[] chars, int index, int limit)
+  {
+    if(index >= limit) {
+      throw new JsonParserException("Premature end of JSON characters while expecting a value.");
+    }
+
+    char c = chars[index];
+    switch(c) {
+    case '"':
+      return skipString(chars, index, limit);
+
+    case '{':
+    case '[':
+      return skipContainer(chars, index, limit);
+
+    case '}':
+    case ']':
+    case ',':
+    case ':':
+      throw new JsonParserException("Unexpected character |%s| at index #%d while expecting a value.", c, index);
+
+    default:
+      while(index < limit) {
+        c = chars[index];
+        if(c == ',' || c == '}' || c == ']' || c == ':' || CharReader.isWhitespace(c)) {
+          break;
+        }
+        ++index;
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Skip quoted string starting at given index.
+   *
+   * @param chars JSON characters,
+   * @param index index of the opening quotation mark,
+   * @param limit characters limit, exclusive.
+   * @return index of the first character after closing quotation mark.
+   * @throws JsonParserException if string is not terminated.
+   */
+  static int skipString(char[] chars, int index, int limit)
+  {
+    for(++index; index < limit; ++index) {
+      char c = chars[index];
+      if(c == '\\') {
+        ++index;
+      }
+      else if(c == '"') {
+        return index + 1;
+      }
+    }
+    throw new JsonParserException("Premature end of JSON characters inside string value.");
+  }
+
+  /**
+   * Skip object or array starting at given index. Nested containers are skipped without decoding but closing brace and
+   * square bracket should match container kind. Container kinds are kept on a bits stack; a boolean array is allocated
+   * only for containers nested deeper than 64 levels.
+   *
+   * @param chars JSON characters,
+   * @param index index of the opening brace or square bracket,
+   * @param limit characters limit, exclusive.
+   * @return index of the first character after matching closing brace or square bracket.
+   * @throws JsonParserException if container is not terminated or is closed by a not matching character.
+   */
+  private static int skipContainer(char[] chars, int index, int limit)
+  {
+    int depth = 0;
+    // container kinds for the first 64 levels, bit set for array
+    long arrays = 0;
+    // container kinds for deeper levels, true for array
+    boolean[] deepArrays = null;
+    while(index < limit) {
+      char c = chars[index];
+      switch(c) {
+      case '"':
+        index = skipString(chars, index, limit);
+        continue;
+
+      case '{':
+      case '[':
+        boolean array = c == '[';
+        if(depth < 64) {
+          arrays = array ? arrays | (1L << depth) : arrays & ~(1L << depth);
+        }
+        else {
+          if(deepArrays == null || depth - 64 == deepArrays.length) {
+            deepArrays = deepArrays == null ? new boolean[64] : Arrays.copyOf(deepArrays, deepArrays.length * 2);
+          }
+          deepArrays[depth - 64] = array;
+        }
+        ++depth;
+        break;
+
+      case '}':
+      case ']':
+        --depth;
+        boolean expectArray = depth < 64 ? (arrays & (1L << depth)) != 0 : deepArrays[depth - 64];
+        if(expectArray != (c == ']')) {
+          throw new JsonParserException("Unexpected character |%s| at index #%d while expecting |%s|.", c, index, expectArray ? ']' : '}');
+        }
+        if(depth == 0) {
+          return index + 1;
+        }
+        break;
+      }
+      ++index;
+    }
+    throw new JsonParserException("Premature end of JSON characters inside object or array.");
+  }
+}
@@ -7,6 +7,12 @@ import java.util.Map;
 
 /**
  * Immutable lexer token.
+ * <p>
+ * Not quoted numeric values are recognized by lexer and their numeric value is computed while token is created, see
+ * {@link #isInteger()} and {@link #isDecimal()}. Value binders use numeric value directly for <code>int</code>,
+ * <code>long</code> and <code>double</code> targets, see {@link #asNumber(Class)}, and fall back to converter, with
+ * token string value, for all other types. Integer token and plain decimal token, that is, without exponent, string
+ * values are created only if requested.
  * 
  * @author Iulian Rotaru
  */
@@ -26,8 +32,24 @@ public final class Token {
 	/** Token enumeration ordinal value. */
 	private final int ordinal;
 
-	/** Stores JSON token related value. It is a string with enclosing quote marks trimmed, if the case. */
-	private final String value;
+	/**
+	 * Stores JSON token related value. It is a string with enclosing quote marks trimmed, if the case. For integer tokens
+	 * it is lazily created from {@link #longValue} and for plain decimal tokens from {@link #longValue} and
+	 * {@link #scale}.
+	 */
+	private String value;
+
+	/** Numeric kind of token value. */
+	private final NumberKind numberKind;
+
+	/** Token value for integer tokens or unscaled absolute value for plain decimal tokens. */
+	private final long longValue;
+
+	/** Number of fraction digits for plain decimal tokens. */
+	private final int scale;
+
+	/** Token value for decimal tokens. */
+	private final double doubleValue;
 
 	/**
 	 * Construct a token with null value.
@@ -35,8 +57,7 @@ public final class Token {
 	 * @param ordinal token enumeration ordinal value.
 	 */
 	public Token(int ordinal) {
-		this.ordinal = ordinal;
-		this.value = null;
+		this(ordinal, null);
 	}
 
 	/**
@@ -48,6 +69,57 @@ public final class Token {
 	public Token(int ordinal, String value) {
 		this.ordinal = ordinal;
 		this.value = value;
+		this.numberKind = NumberKind.NONE;
+		this.longValue = 0;
+		this.scale = 0;
+		this.doubleValue = 0;
+	}
+
+	/**
+	 * Construct integer token. Token string value is created on demand.
+	 * 
+	 * @param ordinal token enumeration ordinal,
+	 * @param value token integer value.
+	 */
+	public Token(int ordinal, long value) {
+		this.ordinal = ordinal;
+		this.numberKind = NumberKind.INTEGER;
+		this.longValue = value;
+		this.scale = 0;
+		this.doubleValue = value;
+	}
+
+	/**
+	 * Construct decimal token with string value, as it is in JSON stream, and its numeric value.
+	 * 
+	 * @param ordinal token enumeration ordinal,
+	 * @param value token string value,
+	 * @param number numeric value.
+	 */
+	public Token(int ordinal, String value, double number) {
+		this.ordinal = ordinal;
+		this.value = value;
+		this.numberKind = NumberKind.DECIMAL;
+		this.longValue = 0;
+		this.scale = 0;
+		this.doubleValue = number;
+	}
+
+	/**
+	 * Construct plain decimal token, that is, without exponent, from its digits and numeric value. Token string value is
+	 * created on demand and has the same digits as in JSON stream; its sign is the numeric value sign.
+	 * 
+	 * @param ordinal token enumeration ordinal,
+	 * @param unscaled absolute value of token digits, ignoring decimal point,
+	 * @param scale number of fraction digits, greater than zero,
+	 * @param number numeric value.
+	 */
+	public Token(int ordinal, long unscaled, int scale, double number) {
+		this.ordinal = ordinal;
+		this.numberKind = NumberKind.DECIMAL;
+		this.longValue = unscaled;
+		this.scale = scale;
+		this.doubleValue = number;
 	}
 
 	/**
@@ -67,14 +139,121 @@ public final class Token {
 	 * @see #value
 	 */
 	public String value() {
+		if (value == null) {
+			if (numberKind == NumberKind.INTEGER) {
+				value = Long.toString(longValue);
+			} else if (numberKind == NumberKind.DECIMAL) {
+				value = decimalString();
+			}
+		}
 		return value;
 	}
 
+	/**
+	 * Create plain decimal token string value from unscaled value and scale, with leading zeros to have an integer digit.
+	 * 
+	 * @return decimal string value.
+	 */
+	private String decimalString() {
+		String digits = Long.toString(longValue);
+		StringBuilder builder = new StringBuilder(digits.length() + scale + 2);
+		if (Double.doubleToRawLongBits(doubleValue) < 0) {
+			builder.append('-');
+		}
+		for (int i = digits.length(); i <= scale; ++i) {
+			builder.append('0');
+		}
+		builder.append(digits);
+		builder.insert(builder.length() - scale, '.');
+		return builder.toString();
+	}
+
+	/**
+	 * Test if token value is an integer number that fits Java long.
+	 * 
+	 * @return true if token value is integer.
+	 */
+	public boolean isInteger() {
+		return numberKind == NumberKind.INTEGER;
+	}
+
+	/**
+	 * Test if token value is a number with fraction or exponent.
+	 * 
+	 * @return true if token value is decimal.
+	 */
+	public boolean isDecimal() {
+		return numberKind == NumberKind.DECIMAL;
+	}
+
+	/**
+	 * Get integer token value. Returned value is meaningful only if {@link #isInteger()} is true.
+	 * 
+	 * @return integer value.
+	 */
+	public long longValue() {
+		return longValue;
+	}
+
+	/**
+	 * Get numeric token value as double. Returned value is meaningful only if token is integer or decimal.
+	 * 
+	 * @return numeric value.
+	 */
+	public double doubleValue() {
+		return doubleValue;
+	}
+
+	/**
+	 * Get numeric token value boxed to requested type or null if token is not a number or it cannot be converted without
+	 * loss. Supported types are <code>int</code>, <code>long</code> and <code>double</code> and their boxing classes;
+	 * decimal tokens are converted only to <code>double</code>. Caller should fall back to converter if this method
+	 * returns null.
+	 * 
+	 * @param type requested type.
+	 * @return boxed numeric value or null.
+	 */
+	Object asNumber(Class<?> type) {
+		switch (numberKind) {
+		case INTEGER:
+			if (type == int.class || type == Integer.class) {
+				return longValue == (int) longValue ? Integer.valueOf((int) longValue) : null;
+			}
+			if (type == long.class || type == Long.class) {
+				return Long.valueOf(longValue);
+			}
+			if (type == double.class || type == Double.class) {
+				return Double.valueOf(doubleValue);
+			}
+			return null;
+
+		case DECIMAL:
+			return type == double.class || type == Double.class ? Double.valueOf(doubleValue) : null;
+
+		default:
+			return null;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return names.get(this.ordinal);
 	}
 
+	/**
+	 * Numeric kind of token value.
+	 * 
+	 * @author Iulian Rotaru
+	 */
+	private static enum NumberKind {
+		/** Token value is not a number. */
+		NONE,
+		/** Token value is an integer number that fits Java long. */
+		INTEGER,
+		/** Token value is a number with fraction or exponent. */
+		DECIMAL
+	}
+
 	private static final Map<Integer, String> names = new HashMap<Integer, String>();
 	static {
 		try {
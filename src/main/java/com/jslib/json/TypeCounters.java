@@ -0,0 +1,273 @@
+package com.jslib.json;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in instrumentation that aggregates operations metrics per type, using striped counters, {@link LongAdder}, so
+ * that concurrent operations on the same type do not contend on a shared memory location. Counters are cumulative since
+ * instrumentation creation; scrapers compute rates from successive reads.
+ * <p>
+ * Counters are mapped to type names, built from type structure, so that parameterized types created for every call
+ * aggregate on the same counters and instrumentation does not keep application classes, and their class loaders,
+ * reachable. Counters are created on first operation for a type and never removed; classes with the same name loaded
+ * by different class loaders share counters.
+ * <p>
+ * Beside totals, every type has a latency histogram with power of two buckets: bucket <code>i</code> counts operations
+ * with elapsed time in <code>[2^(i-1), 2^i)</code> nanoseconds, bucket 0 counting operations under one nanosecond.
+ *
+ * @author Iulian Rotaru
+ */
+public final class TypeCounters extends JsonInstrumentation
+{
+  /** Number of latency histogram buckets, enough for any non negative long elapsed time. */
+  public static final int LATENCY_BUCKETS = Long.SIZE;
+
+  /** Parse counters mapped to type names. */
+  private final Map<String, Counters> parseCounters = new ConcurrentHashMap<>();
+
+  /** Stringify counters mapped to value class names. */
+  private final Map<String, Counters> serializeCounters = new ConcurrentHashMap<>();
+
+  @Override
+  public void parsed(Type type, JsonMetrics metrics)
+  {
+    counters(parseCounters, type).add(metrics);
+  }
+
+  @Override
+  public void serialized(Type type, JsonMetrics metrics)
+  {
+    counters(serializeCounters, type).add(metrics);
+  }
+
+  /**
+   * Get parse counters for requested type.
+   *
+   * @param type requested type.
+   * @return parse counters or null if there was no parse operation for given type.
+   */
+  public Counters parseCounters(Type type)
+  {
+    return parseCounters.get(typeName(type));
+  }
+
+  /**
+   * Get stringify counters for value class.
+   *
+   * @param type value class.
+   * @return stringify counters or null if there was no stringify operation for given class.
+   */
+  public Counters serializeCounters(Type type)
+  {
+    return serializeCounters.get(typeName(type));
+  }
+
+  /**
+   * Get all parse counters mapped to type names, sorted by name.
+   *
+   * @return parse counters.
+   */
+  public Map<String, Counters> parseCounters()
+  {
+    return byName(parseCounters);
+  }
+
+  /**
+   * Get all stringify counters mapped to value class names, sorted by name.
+   *
+   * @return stringify counters.
+   */
+  public Map<String, Counters> serializeCounters()
+  {
+    return byName(serializeCounters);
+  }
+
+  /**
+   * Get latency histogram bucket for operation elapsed time, that is, the number of significant bits.
+   *
+   * @param nanos operation elapsed time, in nanoseconds.
+   * @return latency bucket index.
+   */
+  static int latencyBucket(long nanos)
+  {
+    return nanos > 0 ? Long.SIZE - Long.numberOfLeadingZeros(nanos) : 0;
+  }
+
+  /**
+   * Get counters for given type, creating them on first use.
+   *
+   * @param countersMap parse or stringify counters,
+   * @param type requested type.
+   * @return type counters.
+   */
+  private static Counters counters(Map<String, Counters> countersMap, Type type)
+  {
+    String typeName = typeName(type);
+    Counters counters = countersMap.get(typeName);
+    if(counters == null) {
+      counters = countersMap.computeIfAbsent(typeName, Counters::new);
+    }
+    return counters;
+  }
+
+  /**
+   * Get type name built from type structure, e.g. <code>java.util.List&lt;java.lang.String&gt;</code>, since not all
+   * parameterized type implementations provide a readable name.
+   *
+   * @param type requested type.
+   * @return type name.
+   */
+  static String typeName(Type type)
+  {
+    if(type instanceof Class) {
+      return ((Class<?>)type).getTypeName();
+    }
+    if(type instanceof ParameterizedType) {
+      ParameterizedType parameterizedType = (ParameterizedType)type;
+      StringBuilder name = new StringBuilder(typeName(parameterizedType.getRawType()));
+      name.append('<');
+      Type[] arguments = parameterizedType.getActualTypeArguments();
+      for(int i = 0; i < arguments.length; ++i) {
+        if(i > 0) {
+          name.append(',');
+        }
+        name.append(typeName(arguments[i]));
+      }
+      return name.append('>').toString();
+    }
+    if(type instanceof GenericArrayType) {
+      return typeName(((GenericArrayType)type).getGenericComponentType()) + "[]";
+    }
+    return type.getTypeName();
+  }
+
+  /**
+   * Copy counters into a map sorted by type name.
+   *
+   * @param countersMap parse or stringify counters.
+   * @return counters mapped to type names.
+   */
+  private static Map<String, Counters> byName(Map<String, Counters> countersMap)
+  {
+    return new TreeMap<>(countersMap);
+  }
+
+  /**
+   * Cumulative counters for a type. Every getter sums its striped counter; values read while operations are in progress
+   * are not necessarily consistent with each other.
+   *
+   * @author Iulian Rotaru
+   */
+  public static final class Counters
+  {
+    private final String typeName;
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder chars = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder objects = new LongAdder();
+    private final LongAdder arrays = new LongAdder();
+    private final LongAdder skippedFields = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder[] latency = new LongAdder[LATENCY_BUCKETS];
+
+    private Counters(String typeName)
+    {
+      this.typeName = typeName;
+      for(int i = 0; i < LATENCY_BUCKETS; ++i) {
+        latency[i] = new LongAdder();
+      }
+    }
+
+    private void add(JsonMetrics metrics)
+    {
+      operations.increment();
+      if(metrics.error != null) {
+        errors.increment();
+      }
+      chars.add(metrics.chars);
+      tokens.add(metrics.tokens);
+      objects.add(metrics.objects);
+      arrays.add(metrics.arrays);
+      skippedFields.add(metrics.skippedFields);
+      nanos.add(metrics.nanos);
+      latency[latencyBucket(metrics.nanos)].increment();
+    }
+
+    /** @return type name. */
+    public String typeName()
+    {
+      return typeName;
+    }
+
+    /** @return number of operations, failed included. */
+    public long operations()
+    {
+      return operations.sum();
+    }
+
+    /** @return number of failed operations. */
+    public long errors()
+    {
+      return errors.sum();
+    }
+
+    /** @return characters consumed or written. */
+    public long chars()
+    {
+      return chars.sum();
+    }
+
+    /** @return tokens read by lexer. */
+    public long tokens()
+    {
+      return tokens.sum();
+    }
+
+    /** @return JSON objects parsed or serialized. */
+    public long objects()
+    {
+      return objects.sum();
+    }
+
+    /** @return JSON arrays parsed or serialized. */
+    public long arrays()
+    {
+      return arrays.sum();
+    }
+
+    /** @return object properties skipped for missing fields. */
+    public long skippedFields()
+    {
+      return skippedFields.sum();
+    }
+
+    /** @return operations elapsed time, in nanoseconds. */
+    public long nanos()
+    {
+      return nanos.sum();
+    }
+
+    /** @return operations count for every latency bucket, see {@link TypeCounters} class description. */
+    public long[] latencyHistogram()
+    {
+      long[] histogram = new long[LATENCY_BUCKETS];
+      for(int i = 0; i < LATENCY_BUCKETS; ++i) {
+        histogram[i] = latency[i].sum();
+      }
+      return histogram;
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format("%s: operations=%d, errors=%d, chars=%d, tokens=%d, objects=%d, arrays=%d, skippedFields=%d, nanos=%d", typeName, operations(), errors(), chars(), tokens(), objects(), arrays(), skippedFields(), nanos());
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.jslib.json;
 
+import java.io.Reader;
 import java.lang.reflect.Type;
 
 /**
@@ -34,4 +35,27 @@ public interface Value
    * @param value value to set / collect.
    */
   void set(Object value);
+
+  /**
+   * Set value or collect item from lexer token. Implementations may use token numeric value directly, see
+   * {@link Token#asNumber(Class)}; this default implementation delegates {@link #set(Object)} with token string value.
+   * 
+   * @param token value token.
+   */
+  default void setToken(Token token)
+  {
+    set(token.value());
+  }
+
+  /**
+   * Get existing instance the next nested object, collection or map should be parsed into, or null if parser should
+   * create a new one. Value helpers return not null only while parsing into an existing instance, see
+   * {@link Parser#update(Reader, Type, Object)}; this default implementation always returns null.
+   * 
+   * @return existing instance for next nested value, possibly null.
+   */
+  default Object reusableInstance()
+  {
+    return null;
+  }
 }
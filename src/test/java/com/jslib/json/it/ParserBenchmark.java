@@ -0,0 +1,181 @@
+package com.jslib.json.it;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.jslib.json.JsonLimits;
+import com.jslib.json.JsonNode;
+import com.jslib.json.Parser;
+import com.jslib.lang.GType;
+
+import junit.framework.TestCase;
+
+/**
+ * Rough parser throughput measurements. Not a unit test: it runs only on demand and prints elapsed times to standard
+ * output. Every scenario is warmed up before measuring.
+ */
+public class ParserBenchmark extends TestCase
+{
+  private final static int WARMUP_COUNT = 2000;
+  private final static int TESTS_COUNT = 20000;
+
+  public void testMinifiedVsPretty() throws Throwable
+  {
+    String minified = catalog(false);
+    String pretty = catalog(true);
+
+    measure("minified", minified);
+    measure("pretty", pretty);
+  }
+
+  public void testLazyTreeVsBinding() throws Throwable
+  {
+    String json = catalog(true);
+
+    for(int i = 0; i < WARMUP_COUNT; ++i) {
+      lazyTree(json);
+    }
+    long start = System.nanoTime();
+    for(int i = 0; i < TESTS_COUNT; ++i) {
+      lazyTree(json);
+    }
+    System.out.printf("%-10s %8.2f ms%n", "lazy-tree", (System.nanoTime() - start) / 1000000.0);
+
+    measure("binding", json);
+  }
+
+  public void testCollectionHeavy() throws Throwable
+  {
+    StringBuilder persons = new StringBuilder("[");
+    StringBuilder series = new StringBuilder("{");
+    for(int i = 0; i < 500; ++i) {
+      if(i > 0) {
+        persons.append(',');
+        series.append(',');
+      }
+      persons.append("{\"name\":\"Person ").append(i).append("\",\"age\":").append(i % 90).append('}');
+      series.append("\"s").append(i).append("\":[").append(i).append(',').append(i + 1).append(',').append(i + 2).append(']');
+    }
+    persons.append(']');
+    series.append('}');
+
+    // type instances are created for every call, as user code usually does
+    measure("persons", persons.toString(), () -> new GType(List.class, Person.class), 500);
+    measure("series", series.toString(), () -> new GType(Map.class, String.class, int[].class), 500);
+  }
+
+  public void testLimitsOverhead() throws Throwable
+  {
+    String json = catalog(true);
+    // limits generous enough to not be reached by catalog but still checked on every value
+    JsonLimits limits = JsonLimits.NONE.withMaxDepth(64).withMaxStringLength(65536).withMaxElements(100000).withMaxChars(16 * 1024 * 1024);
+
+    // interleave scenarios so that JIT and heap state do not favor one of them
+    for(int i = 0; i < 3; ++i) {
+      measure("no-limits", json, JsonLimits.NONE);
+      measure("limits", json, limits);
+    }
+  }
+
+  private static void measure(String scenario, String json, TypeFactory typeFactory, int expectedSize) throws Throwable
+  {
+    Parser parser = new Parser();
+    for(int i = 0; i < WARMUP_COUNT; ++i) {
+      parser.parseSequence(json, typeFactory.type());
+    }
+
+    long start = System.nanoTime();
+    for(int i = 0; i < TESTS_COUNT; ++i) {
+      Object value = parser.parseSequence(json, typeFactory.type());
+      assertEquals(expectedSize, value instanceof List ? ((List<?>)value).size() : ((Map<?, ?>)value).size());
+    }
+    long elapsed = System.nanoTime() - start;
+
+    double megabytes = (double)json.length() * TESTS_COUNT / (1024 * 1024);
+    System.out.printf("%-10s %8d chars %8.2f ms %8.2f MB/s%n", scenario, json.length(), elapsed / 1000000.0, megabytes / (elapsed / 1000000000.0));
+  }
+
+  private static void lazyTree(String json)
+  {
+    JsonNode catalog = JsonNode.parse(json);
+    assertEquals("Spring Catalog", catalog.get("name").asString());
+    assertEquals(99, catalog.get("items").get(99).get("id").asLong());
+  }
+
+  private static void measure(String scenario, String json) throws Throwable
+  {
+    measure(scenario, json, JsonLimits.NONE);
+  }
+
+  private static void measure(String scenario, String json, JsonLimits limits) throws Throwable
+  {
+    Parser parser = new Parser();
+    parser.setLimits(limits);
+    for(int i = 0; i < WARMUP_COUNT; ++i) {
+      parser.parseSequence(json, Catalog.class);
+    }
+
+    long start = System.nanoTime();
+    for(int i = 0; i < TESTS_COUNT; ++i) {
+      Catalog catalog = parser.parseSequence(json, Catalog.class);
+      assertEquals(100, catalog.items.size());
+    }
+    long elapsed = System.nanoTime() - start;
+
+    double megabytes = (double)json.length() * TESTS_COUNT / (1024 * 1024);
+    System.out.printf("%-10s %8d chars %8.2f ms %8.2f MB/s%n", scenario, json.length(), elapsed / 1000000.0, megabytes / (elapsed / 1000000000.0));
+  }
+
+  private static String catalog(boolean pretty)
+  {
+    String nl = pretty ? "\r\n" : "";
+    String indent = pretty ? "    " : "";
+    String sp = pretty ? " " : "";
+
+    StringBuilder json = new StringBuilder();
+    json.append('{').append(nl);
+    json.append(indent).append("\"name\":").append(sp).append("\"Spring Catalog\",").append(nl);
+    json.append(indent).append("\"items\":").append(sp).append('[').append(nl);
+    for(int i = 0; i < 100; ++i) {
+      if(i > 0) {
+        json.append(',').append(nl);
+      }
+      json.append(indent).append(indent).append('{').append(nl);
+      json.append(indent).append(indent).append(indent).append("\"id\":").append(sp).append(i).append(',').append(nl);
+      json.append(indent).append(indent).append(indent).append("\"title\":").append(sp).append("\"Item number ").append(i).append("\",").append(nl);
+      json.append(indent).append(indent).append(indent).append("\"price\":").append(sp).append(i * 1.25).append(',').append(nl);
+      json.append(indent).append(indent).append(indent).append("\"available\":").append(sp).append(i % 2 == 0).append(nl);
+      json.append(indent).append(indent).append('}');
+    }
+    json.append(nl).append(indent).append(']').append(nl);
+    json.append('}');
+    return json.toString();
+  }
+
+  private static interface TypeFactory
+  {
+    Type type();
+  }
+
+  private static class Person
+  {
+    String name;
+    int age;
+  }
+
+  private static class Catalog
+  {
+    String name;
+    List<Item> items = new ArrayList<>();
+  }
+
+  private static class Item
+  {
+    int id;
+    String title;
+    double price;
+    boolean available;
+  }
+}
@@ -1,12 +1,17 @@
 package com.jslib.json.it;
 
 import java.io.StringReader;
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import com.jslib.json.Parser;
 import com.jslib.lang.GType;
@@ -15,7 +20,7 @@ import junit.framework.TestCase;
 
 public class ParserStressTest extends TestCase
 {
-  private final static int THREADS_COUNT = 10000;
+  private final static int TASKS_COUNT = 10000;
   private final static int TESTS_COUNT = 1000000;
 
   public void testParsePerson() throws Throwable
@@ -25,41 +30,16 @@ public class ParserStressTest extends TestCase
     }
   }
 
-  public void testConcurentParsePerson() throws InterruptedException
+  public void testConcurentParsePerson() throws Throwable
   {
-    Thread[] threads = new Thread[THREADS_COUNT];
-
-    final List<String> errorMessages = new ArrayList<String>();
-
-    for(int i = 0; i < THREADS_COUNT; ++i) {
-      threads[i] = new Thread(new Runnable()
+    exerciseConcurrently(new Task()
+    {
+      @Override
+      public void run() throws Throwable
       {
-        @Override
-        public void run()
-        {
-          try {
-            for(int i = 0; i < 1000; ++i) {
-              personParsing();
-            }
-          }
-          catch(Throwable e) {
-            String message = e.getMessage();
-            errorMessages.add(message);
-            TestCase.fail("Error on test: " + message);
-          }
-        }
-      });
-      threads[i].start();
-    }
-
-    for(Thread thread : threads) {
-      thread.join();
-    }
-
-    for(String message : errorMessages) {
-      System.out.println(message);
-    }
-    assertEquals(0, errorMessages.size());
+        personParsing();
+      }
+    });
   }
 
   public void testParseArguments() throws Throwable
@@ -69,36 +49,47 @@ public class ParserStressTest extends TestCase
     }
   }
 
-  public void testConcurentParseArguments() throws InterruptedException
+  public void testConcurentParseArguments() throws Throwable
   {
-    Thread[] threads = new Thread[THREADS_COUNT];
+    exerciseConcurrently(new Task()
+    {
+      @Override
+      public void run() throws Throwable
+      {
+        arrayParsing();
+      }
+    });
+  }
 
-    final List<String> errorMessages = new ArrayList<String>();
+  /**
+   * Run given task {@link #TASKS_COUNT} times on an executor with a thread per task. Uses virtual threads executor if
+   * runtime has one, that is Java 21 or newer, otherwise fall back to a cached thread pool.
+   */
+  private static void exerciseConcurrently(final Task task) throws Throwable
+  {
+    final Queue<String> errorMessages = new ConcurrentLinkedQueue<String>();
+    ExecutorService executor = newThreadPerTaskExecutor();
 
-    for(int i = 0; i < THREADS_COUNT; ++i) {
-      threads[i] = new Thread(new Runnable()
+    for(int i = 0; i < TASKS_COUNT; ++i) {
+      executor.execute(new Runnable()
       {
         @Override
         public void run()
         {
           try {
             for(int i = 0; i < 1000; ++i) {
-              arrayParsing();
+              task.run();
             }
           }
           catch(Throwable e) {
-            String message = e.getMessage();
-            errorMessages.add(message);
-            TestCase.fail("Error on test: " + message);
+            errorMessages.add(e.getMessage());
           }
         }
       });
-      threads[i].start();
     }
 
-    for(Thread thread : threads) {
-      thread.join();
-    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
 
     for(String message : errorMessages) {
       System.out.println(message);
@@ -106,6 +97,22 @@ public class ParserStressTest extends TestCase
     assertEquals(0, errorMessages.size());
   }
 
+  private static ExecutorService newThreadPerTaskExecutor() throws Throwable
+  {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService)method.invoke(null);
+    }
+    catch(NoSuchMethodException unused) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  private static interface Task
+  {
+    void run() throws Throwable;
+  }
+
   private static void personParsing() throws Throwable
   {
     final String json = "{\"name\":\"John Doe\",\"birthday\":\"1964-03-15T14:30:00Z\",\"age\":46}";
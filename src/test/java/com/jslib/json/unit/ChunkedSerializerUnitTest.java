@@ -0,0 +1,149 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.jslib.json.ChunkedSerializer;
+import com.jslib.json.Serializer;
+
+public class ChunkedSerializerUnitTest
+{
+  @Test
+  public void sameAsSerializer() throws Throwable
+  {
+    Person john = new Person("John \"Doe\"", 46);
+    john.tags = new String[] { "Mărgărit", "😀 emoji", "" };
+    john.children = new ArrayList<>(Arrays.asList(new Person("Ion", 12), null, new Person("Ana ©", 8)));
+    Map<Object, Object> map = new LinkedHashMap<>();
+    map.put("primes", new int[] { 2, 3, 5, 7 });
+    map.put(Arrays.asList(1, 2), new HashMap<>());
+    map.put("person", john);
+    map.put("empty", new ArrayList<>());
+
+    String expected = new Serializer().serializeToString(map);
+    for(int chunkSize : new int[] { 16, 17, 31, 64, 1000 }) {
+      assertEquals(expected, chunks(new ChunkedSerializer(map, chunkSize), chunkSize));
+    }
+    assertEquals("null", chunks(new ChunkedSerializer(null), 8192));
+    assertEquals("\"text\"", chunks(new ChunkedSerializer("text"), 8192));
+  }
+
+  @Test
+  public void demandDriven() throws Throwable
+  {
+    CountingList items = new CountingList(100000);
+    ChunkedSerializer serializer = new ChunkedSerializer(items, 64);
+    ByteBuffer chunk = serializer.nextChunk();
+    assertEquals(64, chunk.remaining());
+    assertEquals('[', chunk.get(0));
+    // traversal is suspended after the items needed for the first chunk
+    assertTrue(items.count < 100);
+
+    int bytes = chunk.remaining();
+    while((chunk = serializer.nextChunk()) != null) {
+      bytes += chunk.remaining();
+    }
+    assertEquals(100000, items.count);
+    assertEquals(new Serializer().serializeToString(items).length(), bytes);
+  }
+
+  @Test
+  public void circularDependency() throws Throwable
+  {
+    Person person = new Person("John", 46);
+    person.children = new ArrayList<>();
+    person.children.add(person);
+    assertEquals(new Serializer().serializeToString(person), chunks(new ChunkedSerializer(person, 16), 16));
+    assertTrue(chunks(new ChunkedSerializer(person, 16), 16).contains("\"children\":[null]"));
+  }
+
+  @Test
+  public void channelRead() throws Throwable
+  {
+    ChunkedSerializer serializer = new ChunkedSerializer(new int[] { 1, 2, 3 });
+    ByteBuffer buffer = ByteBuffer.allocate(100);
+    assertEquals(7, serializer.read(buffer));
+    assertEquals(-1, serializer.read(buffer));
+    assertEquals("[1,2,3]", new String(buffer.array(), 0, 7, StandardCharsets.UTF_8));
+    assertNull(serializer.nextChunk());
+  }
+
+  @Test(expected = ClosedChannelException.class)
+  public void closed() throws Throwable
+  {
+    ChunkedSerializer serializer = new ChunkedSerializer(new int[] { 1, 2, 3 });
+    serializer.close();
+    serializer.nextChunk();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void chunkTooSmall()
+  {
+    new ChunkedSerializer("text", 8);
+  }
+
+  private static String chunks(ChunkedSerializer serializer, int chunkSize) throws Exception
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ByteBuffer chunk;
+    while((chunk = serializer.nextChunk()) != null) {
+      assertTrue(chunk.remaining() > 0);
+      assertTrue(chunk.remaining() <= chunkSize);
+      bytes.write(chunk.array(), chunk.position(), chunk.remaining());
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static class Person
+  {
+    String name;
+    int age;
+    String[] tags;
+    List<Person> children;
+
+    Person(String name, int age)
+    {
+      this.name = name;
+      this.age = age;
+    }
+  }
+
+  private static class CountingList extends AbstractList<Integer>
+  {
+    private final int size;
+    private int count;
+
+    CountingList(int size)
+    {
+      this.size = size;
+    }
+
+    @Override
+    public Integer get(int index)
+    {
+      ++count;
+      return index;
+    }
+
+    @Override
+    public int size()
+    {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import com.jslib.json.ElementIterator;
+import com.jslib.json.JsonImpl;
+import com.jslib.json.JsonParserException;
+import com.jslib.lang.GType;
+
+public class ElementIteratorUnitTest
+{
+  private final JsonImpl json = new JsonImpl();
+
+  @Test
+  public void arrayElements() throws Throwable
+  {
+    try (ElementIterator<Person> persons = json.parseElements(new StringReader(" [ {\"name\":\"John\",\"age\":46} , {\"name\":\"Jane\"} ] "), Person.class)) {
+      assertTrue(persons.hasNext());
+      assertTrue(persons.hasNext());
+      assertEquals(46, persons.next().age);
+      assertEquals("Jane", persons.next().name);
+      assertFalse(persons.hasNext());
+    }
+
+    ElementIterator<Integer> numbers = json.parseElements(new StringReader("[1,2,3]"), int.class);
+    assertEquals(1, (int)numbers.next());
+    assertEquals(2, (int)numbers.next());
+    assertEquals(3, (int)numbers.next());
+    try {
+      numbers.next();
+      fail("Next after array end should rise exception.");
+    }
+    catch(NoSuchElementException expected) {
+    }
+
+    assertFalse(json.parseElements(new StringReader("[]"), String.class).hasNext());
+  }
+
+  @Test
+  public void lineElements() throws Throwable
+  {
+    String ndjson = "{\"name\":\"John\"}\n[\"a\",\"b\"]\n{\"name\":\"Jane\"}\n";
+    ElementIterator<Object> values = json.parseLines(new StringReader(ndjson), Person.class);
+    assertEquals("John", ((Person)values.next()).name);
+    try {
+      values.next();
+      fail("Array line should not bind to object.");
+    }
+    catch(JsonParserException expected) {
+    }
+    assertFalse(values.hasNext());
+
+    ElementIterator<List<String>> lists = json.parseLines(new StringReader("[\"a\"]\r\n\r\n[\"b\",\"c\"]"), new GType(List.class, String.class));
+    assertEquals(1, lists.next().size());
+    assertEquals("c", lists.next().get(1));
+    assertFalse(lists.hasNext());
+  }
+
+  @Test
+  public void demandDriven() throws Throwable
+  {
+    StringBuilder array = new StringBuilder("[");
+    for(int i = 0; i < 100000; ++i) {
+      array.append(i).append(',');
+    }
+    array.append("0]");
+    CountingReader reader = new CountingReader(new StringReader(array.toString()));
+
+    ElementIterator<Integer> numbers = json.parseElements(reader, int.class);
+    assertEquals(0, (int)numbers.next());
+    assertEquals(1, (int)numbers.next());
+    // only the first lexer buffer was read
+    assertTrue(reader.count < array.length() / 10);
+
+    numbers.close();
+    assertTrue(reader.closed);
+  }
+
+  @Test(expected = JsonParserException.class)
+  public void notArray() throws Throwable
+  {
+    json.parseElements(new StringReader("{\"name\":\"John\"}"), Person.class).hasNext();
+  }
+
+  private static class Person
+  {
+    String name;
+    int age;
+  }
+
+  private static class CountingReader extends Reader
+  {
+    private final Reader reader;
+    private int count;
+    private boolean closed;
+
+    CountingReader(Reader reader)
+    {
+      this.reader = reader;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException
+    {
+      int read = reader.read(buffer, offset, length);
+      if(read > 0) {
+        count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      closed = true;
+      reader.close();
+    }
+  }
+}
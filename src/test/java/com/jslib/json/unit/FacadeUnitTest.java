@@ -14,6 +14,9 @@ import java.util.List;
 
 import com.jslib.api.json.Json;
 import com.jslib.json.JsonImpl;
+import com.jslib.json.JsonLimits;
+import com.jslib.json.JsonParserException;
+import com.jslib.json.Projection;
 import com.jslib.lang.GType;
 
 import junit.framework.TestCase;
@@ -107,6 +110,98 @@ public class FacadeUnitTest extends TestCase
     assertThat(pages.get(1).state, equalTo(State.BANNED));
   }
 
+  public void testParseCharArray()
+  {
+    char[] json = "#{\"name\":\"index.htm\",\"state\":\"ACTIVE\"}#".toCharArray();
+    Page page = ((JsonImpl)this.json).parse(json, 1, json.length - 2, Page.class);
+
+    assertThat(page, notNullValue());
+    assertThat(page.name, equalTo("index.htm"));
+    assertThat(page.state, equalTo(State.ACTIVE));
+  }
+
+  public void testParseCharArrayInvalidRange()
+  {
+    char[] json = "{\"name\":\"index.htm\"}".toCharArray();
+    int[][] ranges = new int[][]
+    {
+        {
+            -1, 1
+        },
+        {
+            0, -1
+        },
+        {
+            1, json.length
+        },
+        {
+            1, Integer.MAX_VALUE
+        }
+    };
+    for(int[] range : ranges) {
+      try {
+        ((JsonImpl)this.json).parse(json, range[0], range[1], Page.class);
+        fail("Invalid range should rise exception.");
+      }
+      catch(IllegalArgumentException expected) {
+      }
+    }
+  }
+
+  public void testParseProjection()
+  {
+    final String jsonObject = "{\"name\":\"index.htm\",\"state\":\"ACTIVE\"}";
+    Page page = ((JsonImpl)json).parse(jsonObject, Page.class, Projection.of("state"));
+
+    assertThat(page.name, nullValue());
+    assertThat(page.state, equalTo(State.ACTIVE));
+  }
+
+  public void testUpdate()
+  {
+    Page page = new Page();
+    page.name = "index.htm";
+    for(int i = 0; i < 3; ++i) {
+      assertThat(((JsonImpl)json).update(i % 2 == 0 ? "{\"state\":\"ACTIVE\"}" : "{\"state\":null}", page), equalTo(page));
+      assertThat(page.name, equalTo("index.htm"));
+      assertThat(page.state, i % 2 == 0 ? equalTo(State.ACTIVE) : nullValue());
+    }
+  }
+
+  public void testInstancesReuse()
+  {
+    for(int i = 0; i < 3; ++i) {
+      try {
+        json.parse("{\"name\":\"index.htm\",\"state\":", Page.class);
+        fail("Invalid JSON source should rise exception.");
+      }
+      catch(JsonParserException expected) {
+      }
+
+      Page page = json.parse("{\"name\":\"page" + i + ".htm\",\"state\":\"ACTIVE\"}", Page.class);
+      assertThat(page.name, equalTo("page" + i + ".htm"));
+      assertThat(page.state, equalTo(State.ACTIVE));
+      assertThat(json.stringify(page), equalTo("{\"name\":\"page" + i + ".htm\",\"state\":\"ACTIVE\"}"));
+    }
+  }
+
+  public void testEscapeNonAscii() throws IOException
+  {
+    Page page = new Page();
+    page.name = "caf\u00e9.htm";
+    Json asciiJson = new JsonImpl(JsonLimits.NONE, true);
+    for(int i = 0; i < 2; ++i) {
+      // escaping and not escaping facades do not share serializer instances
+      assertThat(asciiJson.stringify(page), equalTo("{\"name\":\"caf\\u00e9.htm\",\"state\":null}"));
+      assertThat(json.stringify(page), equalTo("{\"name\":\"caf\u00e9.htm\",\"state\":null}"));
+    }
+
+    StringWriter writer = new StringWriter();
+    asciiJson.stringify(writer, page);
+    assertThat(writer.toString(), equalTo("{\"name\":\"caf\\u00e9.htm\",\"state\":null}"));
+    assertThat(((Page)asciiJson.parse(writer.toString(), Page.class)).name, equalTo("caf\u00e9.htm"));
+  }
+
   private static enum State
   {
     NONE, ACTIVE, BANNED
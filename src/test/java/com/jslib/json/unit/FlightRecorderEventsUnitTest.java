@@ -0,0 +1,176 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.json.FlightRecorderEvents;
+import com.jslib.json.JsonImpl;
+import com.jslib.json.JsonInstrumentation;
+import com.jslib.json.JsonParserException;
+
+/**
+ * Flight Recorder API is not available at Java 8 compile time so recording and recording file are driven reflectively.
+ * Tests are skipped if running JVM does not provide Flight Recorder.
+ */
+public class FlightRecorderEventsUnitTest
+{
+  private final JsonImpl json = new JsonImpl();
+  private Object recording;
+  private Path file;
+
+  @Before
+  public void beforeTest() throws Exception
+  {
+    assumeTrue(FlightRecorderEvents.isSupported());
+    JsonInstrumentation.install(new FlightRecorderEvents());
+    recording = Class.forName("jdk.jfr.Recording").newInstance();
+    invoke(recording, "enable", "com.jslib.json.JsonParse");
+    invoke(recording, "enable", "com.jslib.json.JsonSerialize");
+    invoke(recording, "enable", "com.jslib.json.JsonReflectionScan");
+    file = Files.createTempFile("json", ".jfr");
+  }
+
+  @After
+  public void afterTest() throws Exception
+  {
+    JsonInstrumentation.install(null);
+    if(recording != null) {
+      invoke(recording, "close");
+    }
+    if(file != null) {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void parseEvent() throws Exception
+  {
+    invoke(recording, "start");
+    json.parse("{\"name\":\"John\",\"children\":[{\"name\":\"Jane\"}]}", Person.class);
+    try {
+      json.parse("{\"name\":", Person.class);
+      fail("Malformed JSON should rise exception.");
+    }
+    catch(JsonParserException expected) {
+    }
+
+    List<Object> events = events("com.jslib.json.JsonParse");
+    assertEquals(2, events.size());
+
+    Object event = events.get(0);
+    assertEquals(Person.class.getName(), value(event, "type"));
+    assertEquals(44L, value(event, "chars"));
+    assertEquals(2, value(event, "objects"));
+    assertEquals(1, value(event, "arrays"));
+    assertEquals(3, value(event, "depth"));
+    assertTrue((Long)value(event, "elapsed") > 0);
+    assertNull(value(event, "error"));
+
+    assertEquals(JsonParserException.class.getName(), value(events.get(1), "error"));
+  }
+
+  @Test
+  public void serializeEvent() throws Exception
+  {
+    invoke(recording, "start");
+    Person person = new Person();
+    person.name = "John";
+    String value = json.stringify(person);
+
+    List<Object> events = events("com.jslib.json.JsonSerialize");
+    assertEquals(1, events.size());
+    assertEquals(Person.class.getName(), value(events.get(0), "type"));
+    assertEquals((long)value.length(), value(events.get(0), "chars"));
+    assertEquals(1, value(events.get(0), "objects"));
+    assertEquals(1, value(events.get(0), "depth"));
+  }
+
+  @Test
+  public void reflectionScanEvent() throws Exception
+  {
+    invoke(recording, "start");
+    json.parse("{\"x\":1,\"y\":2}", Coordinates.class);
+    json.parse("{\"x\":3,\"y\":4}", Coordinates.class);
+
+    // plan is cached after first scan
+    List<Object> events = events("com.jslib.json.JsonReflectionScan");
+    assertEquals(1, events.size());
+    assertEquals(Coordinates.class.getName(), value(events.get(0), "type"));
+    assertEquals(2, value(events.get(0), "fields"));
+  }
+
+  @Test
+  public void notRecording() throws Exception
+  {
+    Person person = json.parse("{\"name\":\"John\"}", Person.class);
+    assertNotNull(person);
+
+    invoke(recording, "start");
+    assertEquals(0, events("com.jslib.json.JsonParse").size());
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // UTILITY METHODS
+
+  private List<Object> events(String eventName) throws Exception
+  {
+    invoke(recording, "stop");
+    invoke(recording, "dump", file);
+    Method readAllEvents = Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class);
+
+    List<Object> events = new ArrayList<>();
+    for(Object event : (List<?>)readAllEvents.invoke(null, file)) {
+      if(eventName.equals(invoke(invoke(event, "getEventType"), "getName"))) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  private static Object value(Object event, String fieldName) throws Exception
+  {
+    return invoke(event, "getValue", fieldName);
+  }
+
+  private static Object invoke(Object object, String methodName, Object... arguments) throws Exception
+  {
+    for(Method method : object.getClass().getMethods()) {
+      if(method.getName().equals(methodName) && method.getParameterCount() == arguments.length) {
+        if(arguments.length == 1 && !method.getParameterTypes()[0].isInstance(arguments[0])) {
+          continue;
+        }
+        return method.invoke(object, arguments);
+      }
+    }
+    throw new NoSuchMethodException(methodName);
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // FIXTURE
+
+  private static class Person
+  {
+    String name;
+    List<Person> children;
+  }
+
+  private static class Coordinates
+  {
+    int x;
+    int y;
+  }
+}
@@ -0,0 +1,159 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.json.JsonImpl;
+import com.jslib.json.JsonInstrumentation;
+import com.jslib.json.JsonMetrics;
+import com.jslib.json.JsonParserException;
+import com.jslib.json.Parser;
+import com.jslib.json.TypeCounters;
+import com.jslib.lang.GType;
+
+public class InstrumentationUnitTest
+{
+  private final JsonImpl json = new JsonImpl();
+  private TypeCounters counters;
+
+  @Before
+  public void beforeTest()
+  {
+    counters = new TypeCounters();
+    JsonInstrumentation.install(counters);
+  }
+
+  @After
+  public void afterTest()
+  {
+    JsonInstrumentation.install(null);
+  }
+
+  @Test
+  public void parseCounters() throws Throwable
+  {
+    String person = "{\"name\":\"John\",\"age\":46,\"fake\":{\"a\":[1,2]},\"tags\":[\"a\",\"b\"]}";
+    json.parse(person, Person.class);
+    json.parse(new StringReader(person), Person.class);
+
+    TypeCounters.Counters personCounters = counters.parseCounters(Person.class);
+    assertEquals(2, personCounters.operations());
+    assertEquals(0, personCounters.errors());
+    assertEquals(2 * person.length(), personCounters.chars());
+    assertEquals(2, personCounters.objects());
+    assertEquals(2, personCounters.arrays());
+    assertEquals(2, personCounters.skippedFields());
+    // { name : "John" , age : 46 , fake : , tags : [ "a" , "b" ] } and skipped value is not tokenized
+    assertEquals(2 * 20, personCounters.tokens());
+
+    // parameterized types are aggregated structurally
+    json.parse("[{\"name\":\"John\"}]", new GType(List.class, Person.class));
+    json.parse("[]", new GType(List.class, Person.class));
+    assertEquals(2, counters.parseCounters(new GType(List.class, Person.class)).operations());
+    assertEquals(1, counters.parseCounters(new GType(List.class, Person.class)).objects());
+    assertTrue(counters.parseCounters().containsKey("java.util.List<" + Person.class.getName() + ">"));
+
+    try {
+      json.parse("{\"name\":", Person.class);
+      fail("Malformed JSON should rise exception.");
+    }
+    catch(JsonParserException expected) {
+    }
+    assertEquals(3, personCounters.operations());
+    assertEquals(1, personCounters.errors());
+  }
+
+  @Test
+  public void serializeCounters() throws Throwable
+  {
+    Person person = new Person();
+    person.name = "John";
+    person.tags = new String[] { "a" };
+    String value = json.stringify(person);
+
+    StringWriter writer = new StringWriter();
+    json.stringify(writer, person);
+    json.stringify(null);
+
+    TypeCounters.Counters personCounters = counters.serializeCounters(Person.class);
+    assertEquals(2, personCounters.operations());
+    assertEquals(2 * value.length(), personCounters.chars());
+    assertEquals(2, personCounters.objects());
+    assertEquals(2, personCounters.arrays());
+    assertEquals(0, personCounters.tokens());
+    assertEquals(4, counters.serializeCounters(Void.class).chars());
+  }
+
+  @Test
+  public void serializeCounters_ClassLoaderReleased() throws Throwable
+  {
+    WeakReference<ClassLoader> classLoader = serializeIsolatedOrder();
+    assertTrue(counters.serializeCounters().containsKey(Order.class.getName()));
+    for(int i = 0; i < 100 && classLoader.get() != null; ++i) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(classLoader.get());
+  }
+
+  /** Serialize an order whose class is loaded by a throwaway class loader and return a weak reference to that loader. */
+  private WeakReference<ClassLoader> serializeIsolatedOrder() throws Exception
+  {
+    URL classes = Order.class.getProtectionDomain().getCodeSource().getLocation();
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { classes }, null)) {
+      Class<?> orderClass = classLoader.loadClass(Order.class.getName());
+      assertTrue(orderClass != Order.class);
+      assertEquals("{\"id\":\"1\"}", json.stringify(orderClass.newInstance()));
+      return new WeakReference<>(classLoader);
+    }
+  }
+
+  @Test
+  public void disabled() throws Throwable
+  {
+    JsonInstrumentation.install(null);
+    json.parse("{\"name\":\"John\"}", Person.class);
+    assertNull(counters.parseCounters(Person.class));
+  }
+
+  @Test
+  public void failingInstrumentation() throws Throwable
+  {
+    JsonInstrumentation.install(new JsonInstrumentation()
+    {
+      @Override
+      public void parsed(Type type, JsonMetrics metrics)
+      {
+        throw new IllegalStateException();
+      }
+    });
+    Person person = new Parser().parseSequence("{\"name\":\"John\"}", Person.class);
+    assertEquals("John", person.name);
+  }
+
+  public static class Order
+  {
+    public String id = "1";
+  }
+
+  private static class Person
+  {
+    String name;
+    int age;
+    String[] tags;
+  }
+}
@@ -0,0 +1,361 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.jslib.api.json.JsonLifeCycle;
+import com.jslib.json.JsonImpl;
+import com.jslib.json.JsonLimitException;
+import com.jslib.json.JsonLimits;
+import com.jslib.json.JsonNode;
+import com.jslib.json.JsonParserException;
+import com.jslib.json.JsonQuery;
+import com.jslib.json.Parser;
+import com.jslib.json.PushParser;
+import com.jslib.lang.GType;
+
+public class JsonLimitsUnitTest
+{
+  @Test
+  public void maxDepth()
+  {
+    JsonImpl json = new JsonImpl(JsonLimits.NONE.withMaxDepth(3));
+    assertEquals(1, json.<int[][][]> parse("[[[1]]]", int[][][].class)[0][0][0]);
+    assertLimit(json, "[[[[1]]]]", int[][][][].class, JsonLimitException.Limit.DEPTH);
+    assertLimit(json, "{\"children\":[{\"children\":[{}]}]}", Person.class, JsonLimitException.Limit.DEPTH);
+  }
+
+  @Test
+  public void maxDepth_HostileNesting()
+  {
+    StringBuilder value = new StringBuilder();
+    for(int i = 0; i < 100000; ++i) {
+      value.append("{\"children\":[");
+    }
+    assertLimit(new JsonImpl(JsonLimits.NONE.withMaxDepth(64)), value.toString(), Person.class, JsonLimitException.Limit.DEPTH);
+  }
+
+  @Test
+  public void maxStringLength()
+  {
+    JsonImpl json = new JsonImpl(JsonLimits.NONE.withMaxStringLength(8));
+    assertEquals("12345678", json.<Person> parse("{\"name\":\"12345678\"}", Person.class).name);
+    assertEquals("\"\"\"\"\"\"\"\"", json.<Person> parse("{\"name\":\"\\\"\\\"\\\"\\\"\\\"\\\"\\\"\\\"\"}", Person.class).name);
+
+    assertLimit(json, "{\"name\":\"123456789\"}", Person.class, JsonLimitException.Limit.STRING_LENGTH);
+    assertLimit(json, "{\"name\":\"\\\"\\\"\\\"\\\"\\\"\\\"\\\"\\\"\\\"\"}", Person.class, JsonLimitException.Limit.STRING_LENGTH);
+    assertLimit(json, "{\"nameAndSurname\":null}", Person.class, JsonLimitException.Limit.STRING_LENGTH);
+    assertLimit(json, "{\"age\":123456789}", Person.class, JsonLimitException.Limit.STRING_LENGTH);
+    assertLimit(json, "123456789", int.class, JsonLimitException.Limit.STRING_LENGTH);
+  }
+
+  @Test
+  public void maxStringLength_FailFast() throws Throwable
+  {
+    StringBuilder value = new StringBuilder();
+    for(int i = 0; i < 1000000; ++i) {
+      value.append((char)('0' + i % 10));
+    }
+    Parser parser = new Parser();
+    parser.setLimits(JsonLimits.NONE.withMaxStringLength(16));
+
+    // parser stops reading a too long string or number instead of collecting it all, that is, it reads only a few buffers
+    for(String json : new String[]
+    {
+        "{\"name\":\"" + value + "\"}", "{\"age\":" + value + "}", "\"" + value + "\""
+    }) {
+      CountingReader reader = new CountingReader(json);
+      try {
+        parser.parse(reader, json.startsWith("{") ? Person.class : String.class);
+        fail("String length limit should rise exception.");
+      }
+      catch(JsonLimitException e) {
+        assertEquals(JsonLimitException.Limit.STRING_LENGTH, e.limit());
+      }
+      assertTrue(Long.toString(reader.count), reader.count < 65536);
+    }
+
+    // push parser rejects a too long string from a single large chunk
+    char[] chunk = ("{\"name\":\"" + value + "\"}").toCharArray();
+    PushParser pushParser = new PushParser(Person.class, StandardCharsets.UTF_8, JsonLimits.NONE.withMaxStringLength(16));
+    try {
+      pushParser.feed(chunk, 0, chunk.length);
+      fail("String length limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.STRING_LENGTH, e.limit());
+    }
+  }
+
+  @Test
+  public void maxElements()
+  {
+    JsonImpl json = new JsonImpl(JsonLimits.NONE.withMaxElements(3));
+    assertEquals(3, json.<int[]> parse("[1,2,3]", int[].class).length);
+    assertEquals(3, json.<List<Person>> parse("[{},{},{}]", new GType(List.class, Person.class)).size());
+
+    assertLimit(json, "[1,2,3,4]", int[].class, JsonLimitException.Limit.ELEMENTS);
+    assertLimit(json, "[{},{},{},{}]", new GType(List.class, Person.class), JsonLimitException.Limit.ELEMENTS);
+    assertLimit(json, "{\"name\":null,\"age\":0,\"children\":null,\"fake\":0}", Person.class, JsonLimitException.Limit.ELEMENTS);
+    assertLimit(json, "{\"a\":1,\"b\":2,\"c\":3,\"d\":4}", new GType(Map.class, String.class, Integer.class), JsonLimitException.Limit.ELEMENTS);
+  }
+
+  @Test
+  public void maxElements_NotParsed()
+  {
+    Item.parsed = 0;
+    assertLimit(new JsonImpl(JsonLimits.NONE.withMaxElements(3)), "[{},{},{},{}]", Item[].class, JsonLimitException.Limit.ELEMENTS);
+    // element over limit is rejected before being parsed
+    assertEquals(3, Item.parsed);
+  }
+
+  @Test
+  public void maxChars() throws Exception
+  {
+    JsonImpl json = new JsonImpl(JsonLimits.NONE.withMaxChars(16));
+    String value = "{\"name\":\"John\"}";
+    assertEquals("John", json.<Person> parse(value, Person.class).name);
+    assertEquals("John", json.<Person> parse(new StringReader(value), Person.class).name);
+
+    value = "{\"name\":\"John Doe\"}";
+    assertLimit(json, value, Person.class, JsonLimitException.Limit.CHARS);
+    try {
+      json.parse(new StringReader(value), Person.class);
+      fail("Input exceeding characters limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.CHARS, e.limit());
+      assertEquals(16, e.maxValue());
+    }
+    try {
+      char[] chars = value.toCharArray();
+      json.parse(chars, 0, chars.length, Person.class);
+      fail("Input exceeding characters limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.CHARS, e.limit());
+    }
+  }
+
+  @Test
+  public void pooledParsers()
+  {
+    String value = "[1,2,3,4]";
+    assertLimit(new JsonImpl(JsonLimits.NONE.withMaxElements(3)), value, int[].class, JsonLimitException.Limit.ELEMENTS);
+    // parsers pool is shared by all facades; limits should not leak
+    assertEquals(4, new JsonImpl().<int[]> parse(value, int[].class).length);
+  }
+
+  @Test
+  public void parser() throws Exception
+  {
+    Parser parser = new Parser();
+    parser.setLimits(JsonLimits.NONE.withMaxDepth(1));
+    parser.parseSequence("[1,2]", int[].class);
+    parser.reset();
+    try {
+      parser.parseSequence("[[1]]", int[][].class);
+      fail("Nesting depth over limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.DEPTH, e.limit());
+    }
+  }
+
+  @Test
+  public void elementIterator() throws Exception
+  {
+    JsonImpl json = new JsonImpl(JsonLimits.NONE.withMaxStringLength(4));
+    Iterator<Person> persons = json.parseElements(new StringReader("[{\"name\":\"John\"},{\"name\":\"Johnny\"}]"), Person.class);
+    assertEquals("John", persons.next().name);
+    try {
+      persons.next();
+      fail("String length over limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.STRING_LENGTH, e.limit());
+    }
+  }
+
+  @Test
+  public void pushParser() throws Exception
+  {
+    assertPushLimit(JsonLimits.NONE.withMaxChars(16), "{\"name\":\"John Doe\"}", JsonLimitException.Limit.CHARS);
+    assertPushLimit(JsonLimits.NONE.withMaxDepth(2), "{\"children\":[{}]}", JsonLimitException.Limit.DEPTH);
+    assertPushLimit(JsonLimits.NONE.withMaxElements(2), "{\"children\":[{},{},{}]}", JsonLimitException.Limit.ELEMENTS);
+    assertPushLimit(JsonLimits.NONE.withMaxStringLength(4), "{\"name\":\"Johnny\"}", JsonLimitException.Limit.STRING_LENGTH);
+
+    PushParser parser = new PushParser(Person.class, StandardCharsets.UTF_8, JsonLimits.NONE.withMaxChars(15));
+    assertTrue(parser.feed(ByteBuffer.wrap("{\"name\":\"John\"}".getBytes())));
+    assertEquals("John", parser.<Person> result().name);
+  }
+
+  @Test
+  public void jsonNode()
+  {
+    JsonLimits limits = JsonLimits.NONE.withMaxDepth(2).withMaxElements(2).withMaxStringLength(8);
+    JsonNode node = JsonNode.parse("{\"name\":\"Johnny Doe\",\"children\":[[1],[2],[3]]}", limits);
+    try {
+      node.get("name").asString();
+      fail("String length over limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.STRING_LENGTH, e.limit());
+    }
+    try {
+      node.get("children").get(0);
+      fail("Nesting depth over limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.DEPTH, e.limit());
+    }
+    try {
+      JsonNode.parse("[1,2,3]", limits).size();
+      fail("Elements over limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.ELEMENTS, e.limit());
+    }
+    try {
+      JsonNode.parse("[1,2,3]", JsonLimits.NONE.withMaxChars(6));
+      fail("Input exceeding characters limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.CHARS, e.limit());
+    }
+    try {
+      JsonNode.parse("[\"Johnny Doe\"]", limits).as(String[].class);
+      fail("String length over limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(JsonLimitException.Limit.STRING_LENGTH, e.limit());
+    }
+  }
+
+  @Test
+  public void jsonQuery()
+  {
+    JsonQuery query = JsonQuery.compile("$.children[*].name");
+    String value = "{\"children\":[{\"name\":\"John\"},{\"name\":\"Jane\"},{\"name\":\"Joe\"}]}";
+    assertEquals(3, query.select(value, String.class).size());
+    assertQueryLimit(query.withLimits(JsonLimits.NONE.withMaxElements(2)), value, JsonLimitException.Limit.ELEMENTS);
+    assertQueryLimit(query.withLimits(JsonLimits.NONE.withMaxDepth(1)), value, JsonLimitException.Limit.DEPTH);
+    assertQueryLimit(query.withLimits(JsonLimits.NONE.withMaxStringLength(3)), value, JsonLimitException.Limit.STRING_LENGTH);
+    assertQueryLimit(query.withLimits(JsonLimits.NONE.withMaxChars(16)), value, JsonLimitException.Limit.CHARS);
+    assertQueryLimit(JsonQuery.compile("$.children[?(@.name)]").withLimits(JsonLimits.NONE.withMaxChars(16)), value, JsonLimitException.Limit.CHARS);
+  }
+
+  @Test
+  public void exception()
+  {
+    try {
+      new JsonImpl(JsonLimits.NONE.withMaxElements(2)).parse("[1,2,3]", int[].class);
+      fail("Elements over limit should rise exception.");
+    }
+    catch(JsonParserException e) {
+      assertTrue(e instanceof JsonLimitException);
+      assertTrue(e.getMessage(), e.getMessage().contains("[1,2,3"));
+      assertTrue(e.getMessage(), e.getMessage().endsWith("JSON elements count exceeds limit of 2."));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void notPositiveLimit()
+  {
+    JsonLimits.NONE.withMaxDepth(0);
+  }
+
+  private static void assertLimit(JsonImpl json, String value, Type type, JsonLimitException.Limit limit)
+  {
+    try {
+      json.parse(value, type);
+      fail("Input over limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(limit, e.limit());
+    }
+  }
+
+  private static void assertPushLimit(JsonLimits limits, String value, JsonLimitException.Limit limit)
+  {
+    PushParser parser = new PushParser(Person.class, StandardCharsets.UTF_8, limits);
+    try {
+      // feed one byte at a time so that limits are checked across chunks
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      for(int i = 0; i < bytes.length; ++i) {
+        parser.feed(ByteBuffer.wrap(bytes, i, 1));
+      }
+      fail("Input over limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(limit, e.limit());
+    }
+  }
+
+  private static void assertQueryLimit(JsonQuery query, String value, JsonLimitException.Limit limit)
+  {
+    try {
+      query.select(value, Object.class);
+      fail("Input over limit should rise exception.");
+    }
+    catch(JsonLimitException e) {
+      assertEquals(limit, e.limit());
+    }
+  }
+
+  private static class CountingReader extends FilterReader
+  {
+    long count;
+
+    CountingReader(String json)
+    {
+      super(new StringReader(json));
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException
+    {
+      int read = super.read(buffer, offset, length);
+      if(read > 0) {
+        count += read;
+      }
+      return read;
+    }
+  }
+
+  private static class Item implements JsonLifeCycle
+  {
+    static int parsed;
+
+    @Override
+    public void preStringify()
+    {
+    }
+
+    @Override
+    public void postParse()
+    {
+      ++parsed;
+    }
+  }
+
+  private static class Person
+  {
+    String name;
+    int age;
+    List<Person> children;
+  }
+}
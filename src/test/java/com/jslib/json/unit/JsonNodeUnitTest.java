@@ -0,0 +1,137 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.jslib.json.JsonNode;
+import com.jslib.json.JsonParserException;
+import com.jslib.lang.GType;
+
+public class JsonNodeUnitTest
+{
+  private static final String JSON = "{ \"name\" : \"John \\\"Doe\\\"\", \"age\":46, \"rate\":-1.5e2, \"active\":true, \"manager\":null,\r\n" + //
+      "  \"address\":{\"city\":\"Iasi\",\"tags\":[\"{\",\"]\"]}, \"ids\":[1, 2,3], \"code\":0x10, nickname:JD }";
+
+  @Test
+  public void scalars() throws Throwable
+  {
+    JsonNode document = JsonNode.parse(JSON);
+    assertEquals(JsonNode.Kind.OBJECT, document.kind());
+    assertEquals(Arrays.asList("name", "age", "rate", "active", "manager", "address", "ids", "code", "nickname"), Arrays.asList(document.names().toArray()));
+
+    assertEquals(JsonNode.Kind.STRING, document.get("name").kind());
+    assertEquals("John \"Doe\"", document.get("name").asString());
+    assertEquals(46, document.get("age").asLong());
+    assertEquals(-150.0, document.get("rate").asDouble(), 0);
+    assertTrue(document.get("active").asBoolean());
+    assertTrue(document.get("manager").isNull());
+    assertNull(document.get("manager").asString());
+    assertEquals(16, document.get("code").asLong());
+    assertEquals("JD", document.get("nickname").asString());
+    assertNull(document.get("missing"));
+    assertFalse(document.has("missing"));
+  }
+
+  @Test
+  public void navigation() throws Throwable
+  {
+    JsonNode document = JsonNode.parse(JSON);
+    JsonNode address = document.get("address");
+    assertEquals("{\"city\":\"Iasi\",\"tags\":[\"{\",\"]\"]}", address.toJson());
+    assertEquals("Iasi", address.get("city").asString());
+    assertEquals(2, address.get("tags").size());
+    assertEquals("]", address.get("tags").get(1).asString());
+
+    JsonNode ids = document.get("ids");
+    assertEquals(JsonNode.Kind.ARRAY, ids.kind());
+    assertEquals(3, ids.size());
+    assertEquals(3, ids.get(2).asLong());
+    assertEquals(0, JsonNode.parse(" [ ] ").size());
+    assertEquals(0, JsonNode.parse("{}").size());
+  }
+
+  @Test
+  public void binding() throws Throwable
+  {
+    JsonNode document = JsonNode.parse(JSON);
+    List<Integer> ids = document.get("ids").as(new GType(List.class, Integer.class));
+    assertEquals(Arrays.asList(1, 2, 3), ids);
+
+    Address address = document.get("address").as(Address.class);
+    assertEquals("Iasi", address.city);
+    assertEquals("{", address.tags[0]);
+  }
+
+  @Test
+  public void charactersArray() throws Throwable
+  {
+    char[] chars = "xx[1,{\"a\":[2]}]yy".toCharArray();
+    JsonNode document = JsonNode.parse(chars, 2, chars.length - 4);
+    assertEquals(2, document.get(1).get("a").get(0).asLong());
+  }
+
+  @Test
+  public void malformedDocument() throws Throwable
+  {
+    for(String json : new String[]
+    {
+        "", "  ", "[1,2", "{} x", "{", "\"John", "12 34", "[1,2}", "{\"a\":1]"
+    }) {
+      try {
+        JsonNode.parse(json);
+        fail("Malformed document should rise exception.");
+      }
+      catch(JsonParserException expected) {}
+    }
+
+    // structure and content errors are detected on navigation
+    for(String json : new String[]
+    {
+        "{\"name\" \"John\"}", "{\"name\":\"John}", "{\"name\":\"John\"}}", "{\"name\":\"John\" \"age\":46}",
+        "{\"name\":[1}}", "{\"name\":{\"a\":[{]}]}}"
+    }) {
+      JsonNode document = JsonNode.parse(json);
+      try {
+        document.get("name");
+        fail("Malformed object should rise exception.");
+      }
+      catch(JsonParserException expected) {}
+    }
+
+    // container kinds are tracked beyond 64 nesting levels
+    StringBuilder open = new StringBuilder();
+    for(int i = 0; i < 100; ++i) {
+      open.append(i % 2 == 0 ? "[" : "{\"a\":");
+    }
+    String value = open + "1" + close(100);
+    assertEquals(value, JsonNode.parse("{\"name\":" + value + "}").get("name").toJson());
+    try {
+      JsonNode.parse("{\"name\":" + open + "1]" + close(100).substring(1) + "}").get("name");
+      fail("Not matching container end should rise exception.");
+    }
+    catch(JsonParserException expected) {}
+  }
+
+  private static String close(int depth)
+  {
+    StringBuilder builder = new StringBuilder();
+    for(int i = depth - 1; i >= 0; --i) {
+      builder.append(i % 2 == 0 ? ']' : '}');
+    }
+    return builder.toString();
+  }
+
+  private static class Address
+  {
+    String city;
+    String[] tags;
+  }
+}
@@ -0,0 +1,128 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.jslib.json.JsonParserException;
+import com.jslib.json.JsonQuery;
+
+public class JsonQueryUnitTest
+{
+  private static final String CATALOG = "{\"name\":\"Spring\",\"tags\":[\"a\",\"b\"],\"items\":[" + //
+      "{\"id\":1,\"title\":\"Pen\",\"price\":2.5,\"stock\":{\"count\":10}}," + //
+      "{\"id\":2,\"title\":\"Book\",\"price\":12,\"stock\":{\"count\":0},\"used\":true}," + //
+      "{\"id\":3,\"title\":\"Lamp\",\"price\":30.0,\"stock\":null}]}";
+
+  @Test
+  public void memberPaths() throws Throwable
+  {
+    assertEquals(Arrays.asList("Spring"), JsonQuery.compile("$.name").select(CATALOG, String.class));
+    assertEquals(Arrays.asList("Spring"), JsonQuery.compile("name").select(CATALOG, String.class));
+    assertEquals(Arrays.asList("Spring"), JsonQuery.compile("$['name']").select(CATALOG, String.class));
+    assertEquals(Arrays.asList(10, 0), JsonQuery.compile("$.items[*].stock.count").select(CATALOG, int.class));
+    assertEquals(Collections.emptyList(), JsonQuery.compile("$.missing.name").select(CATALOG, String.class));
+    assertEquals(Collections.emptyList(), JsonQuery.compile("$.name[0]").select(CATALOG, String.class));
+  }
+
+  @Test
+  public void arrayItems() throws Throwable
+  {
+    assertEquals(Arrays.asList(2.5, 12.0, 30.0), JsonQuery.compile("$.items[*].price").select(CATALOG, double.class));
+    assertEquals(Arrays.asList("Book"), JsonQuery.compile("$.items[1].title").select(CATALOG, String.class));
+    assertEquals(Arrays.asList("a", "b"), JsonQuery.compile("$.tags.*").select(CATALOG, String.class));
+    assertEquals(Arrays.asList(1, 2, 3), JsonQuery.compile("[*].id").select("[{\"id\":1},{\"id\":2},{\"id\":3}]", int.class));
+    assertEquals(Collections.emptyList(), JsonQuery.compile("$.list[*]").select("{\"list\":[]}", String.class));
+  }
+
+  @Test
+  public void filters() throws Throwable
+  {
+    assertEquals(Arrays.asList("Book", "Lamp"), JsonQuery.compile("$.items[?(@.price > 10)].title").select(CATALOG, String.class));
+    assertEquals(Arrays.asList("Pen"), JsonQuery.compile("$.items[?(@.price<=2.5)].title").select(CATALOG, String.class));
+    assertEquals(Arrays.asList(3), JsonQuery.compile("$.items[?(@.title == 'Lamp')].id").select(CATALOG, int.class));
+    assertEquals(Arrays.asList(1, 3), JsonQuery.compile("$.items[?(@.title != \"Book\")].id").select(CATALOG, int.class));
+    assertEquals(Arrays.asList(2), JsonQuery.compile("$.items[?(@.used == true)].id").select(CATALOG, int.class));
+    assertEquals(Arrays.asList(2), JsonQuery.compile("$.items[?(@.used)].id").select(CATALOG, int.class));
+    assertEquals(Arrays.asList(3), JsonQuery.compile("$.items[?(@.stock == null)].id").select(CATALOG, int.class));
+    assertEquals(Arrays.asList(2), JsonQuery.compile("$.items[?(@.stock.count == 0)].id").select(CATALOG, int.class));
+  }
+
+  @Test
+  public void typedValues() throws Throwable
+  {
+    List<Item> items = JsonQuery.compile("$.items[?(@.id >= 2)]").select(CATALOG, Item.class);
+    assertEquals(2, items.size());
+    assertEquals("Book", items.get(0).title);
+    assertEquals(30.0, items.get(1).price, 0.0);
+
+    items = JsonQuery.compile("$.items[0]").select(CATALOG, Item.class);
+    assertEquals(1, items.size());
+    assertEquals(1, items.get(0).id);
+  }
+
+  @Test
+  public void streaming() throws Throwable
+  {
+    // items are larger than lexer buffer in order to exercise captured values across buffer refills
+    StringBuilder json = new StringBuilder("{\"header\":{\"skip\":[1,2,3]},\"items\":[");
+    char[] padding = new char[10000];
+    Arrays.fill(padding, 'x');
+    for(int i = 0; i < 50; ++i) {
+      if(i > 0) {
+        json.append(',');
+      }
+      json.append("{\"padding\":\"").append(padding).append("\",\"id\":").append(i).append('}');
+    }
+    json.append("]}");
+
+    List<Integer> ids = new ArrayList<>();
+    JsonQuery.compile("$.items[?(@.id > 46)].id").<Integer> run(new StringReader(json.toString()), Integer.class, ids::add);
+    assertEquals(Arrays.asList(47, 48, 49), ids);
+
+    ids.clear();
+    JsonQuery.compile("$.items[*].id").<Integer> run(new StringReader(json.toString()), int.class, ids::add);
+    assertEquals(50, ids.size());
+    assertEquals(49, (int)ids.get(49));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void recursiveDescent() throws Throwable
+  {
+    JsonQuery.compile("$..price");
+  }
+
+  @Test
+  public void badExpressions() throws Throwable
+  {
+    for(String expression : new String[] { "", "$.", "$[", "$[x]", "$.items[?(@.price ~ 1)]", "$.items[?(@.used > true)]", "$['name]" }) {
+      try {
+        JsonQuery.compile(expression);
+        throw new AssertionError("Expression should be rejected: " + expression);
+      }
+      catch(IllegalArgumentException expected) {
+        assertTrue(expected.getMessage().contains("query"));
+      }
+    }
+  }
+
+  @Test(expected = JsonParserException.class)
+  public void malformedDocument() throws Throwable
+  {
+    JsonQuery.compile("$.items[*].id").select("{\"items\":[{\"id\":1} {\"id\":2}]}", int.class);
+  }
+
+  private static class Item
+  {
+    int id;
+    String title;
+    double price;
+  }
+}
@@ -0,0 +1,164 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.json.JsonImpl;
+import com.jslib.json.JsonInstrumentation;
+import com.jslib.json.JsonMetrics;
+import com.jslib.json.JsonStats;
+import com.jslib.json.TypeCounters;
+
+public class JsonStatsUnitTest
+{
+  private final JsonImpl json = new JsonImpl();
+  private MBeanServer server;
+  private ObjectName name;
+
+  @Before
+  public void beforeTest() throws Exception
+  {
+    server = ManagementFactory.getPlatformMBeanServer();
+    name = new ObjectName(JsonStats.OBJECT_NAME);
+  }
+
+  @After
+  public void afterTest()
+  {
+    JsonImpl.unregisterMBean();
+    JsonInstrumentation.install(null);
+  }
+
+  @Test
+  public void attributes() throws Exception
+  {
+    JsonImpl.registerMBean();
+    assertTrue(server.isRegistered(name));
+
+    json.parse("{\"name\":\"John\"}", Person.class);
+    json.parse("{\"name\":\"Jane\"}", Person.class);
+    json.parse("[1,2,3]", int[].class);
+    json.stringify(new Person());
+
+    assertEquals(3L, server.getAttribute(name, "ParseOperations"));
+    assertEquals(0L, server.getAttribute(name, "ParseErrors"));
+    assertEquals(37L, server.getAttribute(name, "ParseChars"));
+    assertEquals(1L, server.getAttribute(name, "SerializeOperations"));
+    assertTrue((Integer)server.getAttribute(name, "ParsePlansCacheSize") > 0);
+    assertTrue((Double)server.getAttribute(name, "ParsePlansCacheHitRatio") > 0);
+
+    CompositeData[] types = (CompositeData[])server.getAttribute(name, "ParseTypes");
+    assertEquals(2, types.length);
+    assertEquals("int[]", types[1].get("typeName"));
+    CompositeData person = types[0];
+    assertEquals(Person.class.getName(), person.get("typeName"));
+    assertEquals(2L, person.get("operations"));
+
+    long[] histogram = (long[])person.get("latencyHistogram");
+    assertEquals(TypeCounters.LATENCY_BUCKETS, histogram.length);
+    long operations = 0;
+    for(long count : histogram) {
+      operations += count;
+    }
+    assertEquals(2, operations);
+  }
+
+  @Test
+  public void topTypes() throws Exception
+  {
+    JsonStats stats = JsonImpl.registerMBean();
+    stats.counters().parsed(Person.class, metrics(1000));
+    stats.counters().parsed(int[].class, metrics(3000));
+    stats.counters().parsed(String.class, metrics(2000));
+
+    CompositeData[] top = (CompositeData[])server.invoke(name, "topParseTypes", new Object[] { 2 }, new String[] { int.class.getName() });
+    assertEquals(2, top.length);
+    assertEquals("int[]", top[0].get("typeName"));
+    assertEquals("java.lang.String", top[1].get("typeName"));
+
+    List<JsonStats.TypeStatistics> all = stats.topParseTypes(10);
+    assertEquals(3, all.size());
+    assertEquals(1000L, all.get(2).getNanos());
+    // 1000 needs 10 bits
+    assertEquals(1L, all.get(2).getLatencyHistogram()[10]);
+  }
+
+  @Test
+  public void registration() throws Exception
+  {
+    JsonInstrumentation previous = new JsonInstrumentation()
+    {
+    };
+    JsonInstrumentation.install(previous);
+
+    JsonStats stats = JsonImpl.registerMBean();
+    assertSame(stats, JsonImpl.registerMBean());
+    json.parse("{\"name\":\"John\"}", Person.class);
+    assertEquals(1, stats.counters().parseCounters(Person.class).operations());
+
+    JsonImpl.unregisterMBean();
+    assertFalse(server.isRegistered(name));
+    assertSame(previous, JsonInstrumentation.installed());
+
+    JsonInstrumentation.install(null);
+    JsonImpl.registerMBean();
+    JsonImpl.unregisterMBean();
+    assertNull(JsonInstrumentation.installed());
+  }
+
+  @Test
+  public void chain()
+  {
+    final int[] calls = new int[1];
+    JsonInstrumentation failing = new JsonInstrumentation()
+    {
+      @Override
+      public void parsed(Type type, JsonMetrics metrics)
+      {
+        throw new IllegalStateException();
+      }
+    };
+    JsonInstrumentation counting = new JsonInstrumentation()
+    {
+      @Override
+      public void parsed(Type type, JsonMetrics metrics)
+      {
+        ++calls[0];
+      }
+    };
+
+    JsonInstrumentation.install(JsonInstrumentation.chain(failing, counting));
+    json.parse("{\"name\":\"John\"}", Person.class);
+    assertEquals(1, calls[0]);
+  }
+
+  private static JsonMetrics metrics(long nanos) throws Exception
+  {
+    JsonMetrics metrics = new JsonMetrics();
+    Field field = JsonMetrics.class.getDeclaredField("nanos");
+    field.setAccessible(true);
+    field.setLong(metrics, nanos);
+    return metrics;
+  }
+
+  public static class Person
+  {
+    String name;
+  }
+}
@@ -60,6 +60,25 @@ public class LexerUnitTest extends TestCase
     assertEquals("\"/\b\f\n\r\t©", tokens[0].value());
   }
 
+  public void testLongEscapedStringValue()
+  {
+    // string spans multiple reader buffers with escape sequences on buffers boundaries
+    StringBuilder json = new StringBuilder("[");
+    StringBuilder expected = new StringBuilder();
+    for(int i = 0; i < 5000; ++i) {
+      json.append("ab\\\"\\u00A9");
+      expected.append("ab\"©");
+    }
+    json.append("\"]");
+    json.insert(1, '"');
+
+    Token[] tokens = exercise(json.toString());
+
+    assertEquals(3, tokens.length);
+    assertEquals(Token.ITEM, tokens[1].ordinal());
+    assertEquals(expected.toString(), tokens[1].value());
+  }
+
   public void testNumberValue()
   {
     for(String json : new String[]
@@ -74,6 +93,49 @@ public class LexerUnitTest extends TestCase
     }
   }
 
+  public void testNumericTokens()
+  {
+    Token[] tokens = exercise("[0,-42,123456789012345678,1.25,-2E+2,0.000001,\"12\",0x10,007,-0,1234567890123456789,1.]");
+    assertEquals(25, tokens.length);
+
+    assertTrue(tokens[1].isInteger());
+    assertEquals(0, tokens[1].longValue());
+    assertEquals(-42, tokens[3].longValue());
+    assertEquals("-42", tokens[3].value());
+    assertEquals(123456789012345678L, tokens[5].longValue());
+
+    assertTrue(tokens[7].isDecimal());
+    assertEquals(1.25, tokens[7].doubleValue(), 0);
+    assertEquals("1.25", tokens[7].value());
+    assertEquals(-200.0, tokens[9].doubleValue(), 0);
+    assertEquals(0.000001, tokens[11].doubleValue(), 0);
+
+    // quoted, hexadecimal, leading zeros, negative zero, too long integer and malformed values are strings
+    for(int i = 13; i < 25; i += 2) {
+      assertFalse(tokens[i].isInteger());
+      assertFalse(tokens[i].isDecimal());
+    }
+    assertEquals("12", tokens[13].value());
+    assertEquals("0x10", tokens[15].value());
+    assertEquals("1234567890123456789", tokens[21].value());
+  }
+
+  public void testDecimalTokenValue()
+  {
+    // string value of decimals computed without string keeps digits as in JSON stream
+    for(String json : new String[]
+    {
+        "1.50", "0.05", "-0.0", "-12.340", "0.000001", "100.0", "1.5e1", "-2E+02", "123456789.123456789"
+    }) {
+      Token[] tokens = exercise(json);
+      assertEquals(1, tokens.length);
+      assertTrue(tokens[0].isDecimal());
+      assertEquals(Double.parseDouble(json), tokens[0].doubleValue(), 0);
+      assertEquals(json, tokens[0].value());
+    }
+    assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(exercise("-0.0")[0].doubleValue()));
+  }
+
   public void testHexadecimalNumberValue()
   {
     for(String json : new String[]
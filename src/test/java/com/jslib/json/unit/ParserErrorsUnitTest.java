@@ -75,13 +75,12 @@ public class ParserErrorsUnitTest extends TestCase
   public void testJsonParserExceptionWithErrorReporter() throws Throwable
   {
     String sample = "Lorem ipsum dolor sit amet, consectetur adipisicing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.";
-    ErrorReporter errorReporter = ErrorReporter.getInstance();
-    errorReporter.reset();
+    ErrorReporter errorReporter = new ErrorReporter();
     for(int i = 0; i < sample.length(); i++) {
       errorReporter.store(sample.charAt(i));
     }
 
-    JsonParserException exception = new JsonParserException("This is a fake error.", new Object[] {});
+    JsonParserException exception = new JsonParserException(errorReporter, "This is a fake error.");
     assertEquals("JSON parser error on char index #123 near ...d do eiusmod tempor incididunt ut labore et dolore magna aliqua.. This is a fake error.",
         exception.getMessage());
   }
@@ -5,20 +5,36 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNotNull;
+import static org.junit.Assume.assumeTrue;
 
+import java.beans.ConstructorProperties;
 import java.io.File;
 import java.io.StringReader;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
 import org.junit.Test;
 
 import com.jslib.json.JsonParserException;
 import com.jslib.json.Parser;
+import com.jslib.json.Projection;
 import com.jslib.lang.GAType;
 import com.jslib.lang.GType;
 import com.jslib.lang.OrdinalEnum;
@@ -62,6 +78,21 @@ public class ParserUnitTest
     assertNull(exercise("null", Boolean.class));
   }
 
+  @Test
+  public void numericFields() throws Throwable
+  {
+    String json = "{\"i\":-123,\"l\":123456789012345678,\"d\":-1.5e-3,\"boxed\":7,\"big\":0.10,\"f\":2.5,\"huge\":1234567890123456789,\"exact\":9007199254740993.0}";
+    Numbers numbers = exercise(json, Numbers.class);
+    assertEquals(-123, numbers.i);
+    assertEquals(123456789012345678L, numbers.l);
+    assertEquals(-0.0015, numbers.d, 0);
+    assertEquals(Integer.valueOf(7), numbers.boxed);
+    assertEquals(new BigDecimal("0.10"), numbers.big);
+    assertEquals(2.5F, numbers.f, 0);
+    assertEquals(1234567890123456789L, numbers.huge);
+    assertEquals(Double.parseDouble("9007199254740993.0"), numbers.exact, 0);
+  }
+
   @Test
   public void hexadecimalNumberValue() throws Throwable
   {
@@ -156,6 +187,96 @@ public class ParserUnitTest
     assertEquals("John Doe", organization.leader.name);
   }
 
+  @Test
+  public void object_UnknownProperties() throws Throwable
+  {
+    StringBuilder large = new StringBuilder("[");
+    for(int i = 0; i < 2000; ++i) {
+      large.append("{\"k\":\"v\\\"}]\"},");
+    }
+    large.append("null]");
+
+    String json = "{\"id\":{\"a\":[1,{\"b\":\"}\"}],\"c\":null},\"name\":\"John Doe\",\"tags\" : [ \"[\" , 0x10 ] ,\"code\":ABC,\"blob\":" + large + ",\"age\":46,\"note\":\"x\"}";
+    assertEquals(new Person("John Doe", 46), exercise(json, Person.class));
+  }
+
+  @Test
+  public void object_UnknownPropertiesMalformed() throws Throwable
+  {
+    String[] values = { "{\"a\" 1}", "[1 2]", "{\"a\":1 \"b\":2}", "[,]", "{,}", "[1,,]", "[1:2]", "{\"a\"}", "[1}", "{{}}" };
+    for(String value : values) {
+      try {
+        exercise("{\"fake\":" + value + ",\"name\":\"John Doe\"}", Person.class);
+        fail("Malformed unknown property value should rise exception: " + value);
+      }
+      catch(JsonParserException expected) {}
+    }
+    assertEquals(new Person("John Doe"), exercise("{\"fake\":{a:[12, true,[],{}],\"b\" : {}},\"name\":\"John Doe\"}", Person.class));
+  }
+
+  @Test
+  public void object_BoundAndSkippedConsistency() throws Throwable
+  {
+    // the same property value should be accepted or rejected no matter if it is bound or skipped
+    String[] values = { "[1,]", "[[1],]", "[,]", "[1,,]", "[1 2]", "[1:2]", "[1}", "{\"a\":1,}", "{,}", "{\"a\":1,,}", "{\"a\" 1}", "{\"a\":1 \"b\":2}", "{\"a\":1]" };
+    for(String value : values) {
+      String json = "{\"" + (value.startsWith("[[") ? "nested" : value.startsWith("[") ? "list" : "map") + "\":" + value + "}";
+      boolean bound = accepted(json, Containers.class);
+      assertEquals(value, bound, accepted(json, Person.class));
+      assertEquals(value, bound, accepted(json, Containers.class, Projection.of("name")));
+    }
+  }
+
+  private static boolean accepted(String json, Type type) throws Throwable
+  {
+    return accepted(json, type, null);
+  }
+
+  private static boolean accepted(String json, Type type, Projection projection) throws Throwable
+  {
+    try {
+      if(projection == null) {
+        new Parser().parse(new StringReader(json), type);
+      }
+      else {
+        new Parser().parse(new StringReader(json), type, projection);
+      }
+      return true;
+    }
+    catch(JsonParserException e) {
+      return false;
+    }
+  }
+
+  @Test
+  public void object_ParserReuseWithInheritance() throws Throwable
+  {
+    // the same cached type plan serves all parser instances
+    for(int i = 0; i < 3; ++i) {
+      Child child = exercise("{\"name\":\"John Doe\",\"age\":" + i + ",\"parent\":\"Anonymous\",\"fake\":0}", Child.class);
+      assertEquals("Anonymous", child.parent);
+      assertEquals("John Doe", child.name);
+      assertEquals(i, child.age);
+    }
+  }
+
+  @Test
+  public void object_StaticFieldIgnored() throws Throwable
+  {
+    Counter counter = exercise("{\"count\":1,\"total\":2}", Counter.class);
+    assertEquals(1, counter.count);
+    assertEquals(0, Counter.total);
+  }
+
+  @Test
+  public void object_RuntimeSuperclass() throws Throwable
+  {
+    // Throwable private fields are not accessible on modular runtime and should not be scanned
+    Failure failure = exercise("{\"code\":500,\"detailMessage\":\"fake\"}", Failure.class);
+    assertEquals(500, failure.code);
+    assertNull(failure.getMessage());
+  }
+
   @Test
   public void object_Empty() throws Throwable
   {
@@ -723,8 +844,230 @@ public class ParserUnitTest
     assertEquals("John Doe", response.first_name);
   }
 
+  @Test
+  public void parserReuse() throws Throwable
+  {
+    Parser parser = new Parser();
+    Person person = parser.parse(new StringReader("{\"name\":\"John Doe\",\"age\":50}"), Person.class);
+    assertEquals(new Person("John Doe", 50), person);
+
+    parser.reset();
+    List<String> strings = parser.parse(new StringReader("[\"John Doe\",\"picture.png\"]"), new GType(List.class, String.class));
+    assertEquals(2, strings.size());
+    assertEquals("picture.png", strings.get(1));
+  }
+
+  @Test
+  public void inMemorySources() throws Throwable
+  {
+    StringBuilder json = new StringBuilder("[");
+    for(int i = 0; i < 1000; ++i) {
+      if(i > 0) {
+        json.append(',');
+      }
+      json.append("{\"name\":\"John Doe ").append(i).append("\",\"age\":").append(i).append('}');
+    }
+    json.append(']');
+    Type type = new GType(List.class, Person.class);
+
+    List<Person> persons = new Parser().parseSequence(json.toString(), type);
+    assertEquals(1000, persons.size());
+    assertEquals(new Person("John Doe 999", 999), persons.get(999));
+
+    persons = new Parser().parseSequence(json, type);
+    assertEquals(1000, persons.size());
+    assertEquals(new Person("John Doe 999", 999), persons.get(999));
+
+    char[] chars = ("  " + json + "  ").toCharArray();
+    persons = new Parser().parse(chars, 2, json.length(), type);
+    assertEquals(1000, persons.size());
+    assertEquals(new Person("John Doe 0", 0), persons.get(0));
+    assertEquals(new Person("John Doe 999", 999), persons.get(999));
+  }
+
+  @Test
+  public void projection() throws Throwable
+  {
+    String json = "{\"name\":\"Baby.NET\",\"leader\":{\"name\":\"John Doe\",\"age\":50},\"departments\":[{\"name\":\"R&D\",\"employees\":[{\"name\":\"Jane\",\"age\":30},{\"name\":\"Joe\",\"age\":40}]}]}";
+    Projection projection = Projection.of("leader.age", "departments[*].employees[*].name");
+    Organization organization = new Parser().parseSequence(json, Organization.class, projection);
+
+    assertNull(organization.name);
+    assertNull(organization.leader.name);
+    assertEquals(50, organization.leader.age);
+    assertEquals(1, organization.departments.length);
+    assertNull(organization.departments[0].name);
+    assertEquals(2, organization.departments[0].employees.size());
+    assertEquals(new Person("Jane", 0), organization.departments[0].employees.get(0));
+    assertEquals(new Person("Joe", 0), organization.departments[0].employees.get(1));
+
+    json = "{\"values\":{\"one\":{\"name\":\"John\",\"age\":1},\"two\":{\"name\":\"Jane\",\"age\":2}}}";
+    Dictionary<Person> dictionary = new Parser().parseSequence(json, new GType(Dictionary.class, Person.class), Projection.of("values.two.name"));
+    assertEquals(1, dictionary.values.size());
+    assertEquals(new Person("Jane", 0), dictionary.values.get("two"));
+
+    List<Person> persons = new Parser().parse(new StringReader("[{\"name\":\"John\",\"age\":1}]"), new GType(List.class, Person.class), Projection.of("[*].age"));
+    assertEquals(new Person(null, 1), persons.get(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void projection_InvalidPath() throws Throwable
+  {
+    Projection.of("person..name");
+  }
+
+  @Test
+  public void update() throws Throwable
+  {
+    Organization organization = new Organization();
+    organization.name = "Baby.NET";
+    organization.leader = new Person("John Doe", 50);
+    Person leader = organization.leader;
+
+    assertTrue(organization == new Parser().updateSequence("{\"leader\":{\"age\":51}}", Organization.class, organization));
+    assertEquals("Baby.NET", organization.name);
+    assertTrue(leader == organization.leader);
+    assertEquals(new Person("John Doe", 51), leader);
+
+    Department department = new Department();
+    department.employees = new ArrayList<>();
+    department.employees.add(new Person("Jane", 30));
+    department.employees.add(new Person("Joe", 40));
+    department.employees.add(new Person("Jim", 50));
+    List<Person> employees = department.employees;
+    Person jane = employees.get(0);
+
+    String json = "{\"name\":\"R&D\",\"employees\":[{\"name\":\"Ann\",\"age\":31},{\"age\":41}]}";
+    new Parser().update(new StringReader(json), Department.class, department);
+    assertEquals("R&D", department.name);
+    assertTrue(employees == department.employees);
+    assertEquals(2, employees.size());
+    assertTrue(jane == employees.get(0));
+    assertEquals(new Person("Ann", 31), jane);
+    assertEquals(new Person("Joe", 41), employees.get(1));
+
+    Dictionary<Person> dictionary = new Dictionary<>();
+    dictionary.values = new HashMap<>();
+    dictionary.values.put("one", new Person("John", 1));
+    Map<String, Person> values = dictionary.values;
+    new Parser().updateSequence("{\"values\":{\"two\":{\"name\":\"Jane\",\"age\":2}}}", new GType(Dictionary.class, Person.class), dictionary);
+    assertTrue(values == dictionary.values);
+    assertEquals(1, values.size());
+    assertEquals(new Person("Jane", 2), values.get("two"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void update_NotUpdatable() throws Throwable
+  {
+    new Parser().updateSequence("[1,2]", int[].class, new int[2]);
+  }
+
+  @Test
+  public void creator() throws Throwable
+  {
+    String json = "{\"y\":2,\"label\":\"A\",\"fake\":1,\"neighbours\":[{\"x\":3,\"y\":4.0},null]}";
+    Point point = exercise(json, Point.class);
+    assertEquals(0, point.x);
+    assertEquals(2, point.y);
+    assertEquals("A", point.label);
+    assertEquals(2, point.neighbours.size());
+    assertEquals(3, point.neighbours.get(0).x);
+    assertEquals(4, point.neighbours.get(0).y);
+    assertNull(point.neighbours.get(0).label);
+    assertNull(point.neighbours.get(1));
+
+    Box<Integer> box = exercise("{\"value\":1964}", new GType(Box.class, Integer.class));
+    assertEquals(Integer.valueOf(1964), box.value);
+    assertNull(exercise("null", Point.class));
+  }
+
+  @Test(expected = JsonParserException.class)
+  public void creator_ConstructorException() throws Throwable
+  {
+    exercise("{\"x\":-1}", Point.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void creator_NotUpdatable() throws Throwable
+  {
+    new Parser().updateSequence("{\"x\":1}", Point.class, new Point(0, 0, null, null));
+  }
+
+  @Test
+  public void creator_DefaultConstructorPrecedence() throws Throwable
+  {
+    Lombok lombok = exercise("{\"name\":\"John Doe\",\"age\":46}", Lombok.class);
+    assertEquals("John Doe", lombok.name);
+    assertEquals(46, lombok.age);
+
+    lombok = new Lombok("Jane Doe");
+    new Parser().updateSequence("{\"age\":2}", Lombok.class, lombok);
+    assertEquals("Jane Doe", lombok.name);
+    assertEquals(2, lombok.age);
+  }
+
+  /**
+   * Records are not available at Java 8 compile time so test record is compiled at run time. Test is skipped if running
+   * JVM does not support records or does not provide Java compiler.
+   */
+  @Test
+  public void creator_Record() throws Throwable
+  {
+    assumeTrue(javaVersion() >= 16);
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assumeNotNull(compiler);
+
+    Path directory = Files.createTempDirectory("record");
+    try {
+      Path source = directory.resolve("Employee.java");
+      Files.write(source, "public record Employee(String name, int age, java.util.List<Integer> scores) {}".getBytes(StandardCharsets.UTF_8));
+      assertEquals(0, compiler.run(null, null, null, "-d", directory.toString(), source.toString()));
+
+      try (URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, getClass().getClassLoader())) {
+        Class<?> recordClass = classLoader.loadClass("Employee");
+        Object employee = exercise("{\"scores\":[1,2],\"name\":\"John Doe\",\"fake\":0}", recordClass);
+        assertEquals("John Doe", recordClass.getMethod("name").invoke(employee));
+        assertEquals(0, recordClass.getMethod("age").invoke(employee));
+        assertEquals(Arrays.asList(1, 2), recordClass.getMethod("scores").invoke(employee));
+      }
+    }
+    finally {
+      for(String file : directory.toFile().list()) {
+        Files.delete(directory.resolve(file));
+      }
+      Files.delete(directory);
+    }
+  }
+
   // ----------------------------------------------------
 
+  @Test
+  public void parameterizedType_ClassLoaderReleased() throws Throwable
+  {
+    WeakReference<ClassLoader> classLoader = parseIsolatedOrders();
+    for(int i = 0; i < 100 && classLoader.get() != null; ++i) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(classLoader.get());
+  }
+
+  /** Parse a list of orders whose class is loaded by a throwaway class loader and return a weak reference to that loader. */
+  private static WeakReference<ClassLoader> parseIsolatedOrders() throws Throwable
+  {
+    URL classes = Order.class.getProtectionDomain().getCodeSource().getLocation();
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { classes }, null)) {
+      Class<?> orderClass = classLoader.loadClass(Order.class.getName());
+      assertTrue(orderClass != Order.class);
+      List<?> orders = exercise("[{\"id\":\"1\"}]", new GType(List.class, orderClass));
+      assertEquals(orderClass, orders.get(0).getClass());
+      // second parsing is served from cache
+      orders = exercise("[{\"id\":\"2\"}]", new GType(List.class, orderClass));
+      assertEquals("2", orderClass.getField("id").get(orders.get(0)));
+      return new WeakReference<>(classLoader);
+    }
+  }
+
   private static <T> T exercise(String json, Class<T> clazz) throws Throwable
   {
     return exercise(json, (Type)clazz);
@@ -742,11 +1085,68 @@ public class ParserUnitTest
     return new Parser().parse(reader, types);
   }
 
+  private static int javaVersion()
+  {
+    String version = System.getProperty("java.specification.version");
+    return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+  }
+
+  public static class Order
+  {
+    public String id;
+  }
+
+  private static class Lombok
+  {
+    String name;
+    int age;
+
+    Lombok()
+    {
+    }
+
+    @ConstructorProperties("name")
+    Lombok(String name)
+    {
+      this.name = name;
+    }
+  }
+
+  private static class Point
+  {
+    final int x;
+    final int y;
+    final String label;
+    final List<Point> neighbours;
+
+    @ConstructorProperties({ "x", "y", "label", "neighbours" })
+    Point(int x, int y, String label, List<Point> neighbours)
+    {
+      if(x < 0) {
+        throw new IllegalArgumentException("Negative x.");
+      }
+      this.x = x;
+      this.y = y;
+      this.label = label;
+      this.neighbours = neighbours;
+    }
+  }
+
+  private static class Box<T>
+  {
+    final T value;
+
+    @ConstructorProperties("value")
+    Box(T value)
+    {
+      this.value = value;
+    }
+  }
+
   private static class Organization
   {
     String name;
     Person leader;
-    @SuppressWarnings("unused")
     Department[] departments;
   }
 
@@ -807,6 +1207,26 @@ public class ParserUnitTest
     String parent;
   }
 
+  private static class Containers
+  {
+    String name;
+    List<Integer> list;
+    int[][] nested;
+    Map<String, Integer> map;
+  }
+
+  private static class Counter
+  {
+    static int total;
+    int count;
+  }
+
+  @SuppressWarnings("serial")
+  private static class Failure extends Exception
+  {
+    int code;
+  }
+
   private static class User
   {
     String[] aliases;
@@ -862,6 +1282,18 @@ public class ParserUnitTest
     String first_name;
   }
 
+  private static class Numbers
+  {
+    int i;
+    long l;
+    double d;
+    Integer boxed;
+    BigDecimal big;
+    float f;
+    long huge;
+    double exact;
+  }
+
   private static class StringsArray
   {
     Map<String, String[]> map;
@@ -0,0 +1,165 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.jslib.json.JsonParserException;
+import com.jslib.json.PushParser;
+import com.jslib.lang.GType;
+
+public class PushParserUnitTest
+{
+  @Test
+  public void byteChunks() throws Throwable
+  {
+    // multi-byte characters and escaped quotation marks are split across one byte chunks
+    byte[] json = "{\"name\":\"Ion \\\"Mărgărit\\\" ©\",\"age\":46,\"tags\":[\"}\",\"]\"]}  ".getBytes(StandardCharsets.UTF_8);
+    PushParser parser = new PushParser(Person.class);
+    for(int i = 0; i < json.length; ++i) {
+      boolean complete = parser.feed(ByteBuffer.wrap(json, i, 1));
+      assertEquals(i >= json.length - 3, complete);
+    }
+    parser.endOfInput();
+
+    Person person = parser.result();
+    assertEquals("Ion \"Mărgărit\" ©", person.name);
+    assertEquals(46, person.age);
+    assertEquals(2, person.tags.length);
+    assertEquals("]", person.tags[1]);
+  }
+
+  @Test
+  public void charChunks() throws Throwable
+  {
+    char[] json = "[{\"name\":\"John\"},{\"name\":\"Jane\"}]".toCharArray();
+    PushParser parser = new PushParser(new GType(List.class, Person.class));
+    assertFalse(parser.feed(json, 0, 10));
+    assertFalse(parser.isComplete());
+    assertTrue(parser.feed(json, 10, json.length - 10));
+
+    List<Person> persons = parser.result();
+    assertEquals(2, persons.size());
+    assertEquals("Jane", persons.get(1).name);
+  }
+
+  @Test
+  public void rootScalar() throws Throwable
+  {
+    PushParser parser = new PushParser(int.class);
+    assertFalse(parser.feed(ByteBuffer.wrap(" 12".getBytes())));
+    assertFalse(parser.feed(ByteBuffer.wrap("34 ".getBytes())));
+    parser.endOfInput();
+    assertTrue(parser.isComplete());
+    assertEquals(1234, (int)parser.result());
+
+    parser.reset();
+    assertTrue(parser.feed(ByteBuffer.wrap("\"56\"".getBytes())));
+    assertEquals(56, (int)parser.result());
+  }
+
+  @Test
+  public void incrementalBinding() throws Throwable
+  {
+    // every character is a separate chunk; values are bound as they complete, not when document ends
+    char[] json = "{\"name\":\"John\",\"fake\":{\"a\":[1,{}]},\"age\":46 , \"tags\":[\"\\u0041\",null,true],\"scores\":{\"math\":9}}".toCharArray();
+    PushParser parser = new PushParser(Person.class);
+    for(int i = 0; i < json.length - 1; ++i) {
+      assertFalse(parser.feed(json, i, 1));
+    }
+    assertTrue(parser.feed(json, json.length - 1, 1));
+
+    Person person = parser.result();
+    assertEquals("John", person.name);
+    assertEquals(46, person.age);
+    assertEquals("A", person.tags[0]);
+    assertNull(person.tags[1]);
+    assertEquals("true", person.tags[2]);
+    assertEquals(9, (int)person.scores.get("math"));
+  }
+
+  @Test
+  public void nullRoot() throws Throwable
+  {
+    PushParser parser = new PushParser(Person.class);
+    parser.feed(ByteBuffer.wrap("null".getBytes()));
+    parser.endOfInput();
+    assertNull(parser.result());
+    assertNull(parser.result());
+  }
+
+  @Test
+  public void syntaxErrorOnFeed() throws Throwable
+  {
+    PushParser parser = new PushParser(Person.class);
+    assertFalse(parser.feed(ByteBuffer.wrap("{\"name\":\"John\"".getBytes())));
+    try {
+      parser.feed(ByteBuffer.wrap(" \"age\":46}".getBytes()));
+      fail("Missing comma should rise exception.");
+    }
+    catch(JsonParserException e) {
+      assertTrue(e.getMessage(), e.getMessage().endsWith("Expected RIGHT_BRACE but got VALUE. Maybe missing comma."));
+    }
+    try {
+      parser.feed(ByteBuffer.wrap("}".getBytes()));
+      fail("Feeding failed parser should rise exception.");
+    }
+    catch(IllegalStateException expected) {
+    }
+  }
+
+  @Test(expected = JsonParserException.class)
+  public void strayClosingCharacter() throws Throwable
+  {
+    PushParser parser = new PushParser(Person.class);
+    parser.feed(ByteBuffer.wrap(" ]".getBytes()));
+  }
+
+  @Test(expected = JsonParserException.class)
+  public void prematureEnd() throws Throwable
+  {
+    PushParser parser = new PushParser(Person.class);
+    parser.feed(ByteBuffer.wrap("{\"name\":\"John\"".getBytes()));
+    parser.endOfInput();
+  }
+
+  @Test(expected = JsonParserException.class)
+  public void dataAfterRoot() throws Throwable
+  {
+    PushParser parser = new PushParser(Person.class);
+    parser.feed(ByteBuffer.wrap("{\"name\":\"John\"} {".getBytes()));
+  }
+
+  @Test(expected = JsonParserException.class)
+  public void malformedBytes() throws Throwable
+  {
+    PushParser parser = new PushParser(Person.class);
+    parser.feed(ByteBuffer.wrap(new byte[] { '"', (byte)0xC3 }));
+    parser.endOfInput();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void incompleteResult() throws Throwable
+  {
+    PushParser parser = new PushParser(Person.class);
+    parser.feed(ByteBuffer.wrap("{\"name\"".getBytes()));
+    parser.result();
+  }
+
+  private static class Person
+  {
+    String name;
+    int age;
+    String[] tags;
+    Map<String, Integer> scores;
+  }
+}
@@ -120,6 +120,50 @@ public class SerializerUnitTest extends TestCase
     assertEquals("{\"text\":\"message text\"}", exercise(new Message()));
   }
 
+  public void testSerializeToString() throws Throwable
+  {
+    List<Person> persons = new ArrayList<Person>();
+    StringBuilder expected = new StringBuilder("[");
+    for(int i = 0; i < 1000; ++i) {
+      if(i > 0) {
+        expected.append(',');
+      }
+      persons.add(new Person("John Doe " + i));
+      expected.append("{\"name\":\"John Doe " + i + "\",\"state\":\"ALIVE\"}");
+    }
+    expected.append(']');
+
+    Serializer serializer = new Serializer();
+    // second serialization uses internal buffer sized from the first one
+    assertEquals(expected.toString(), serializer.serializeToString(persons));
+    serializer.reset();
+    assertEquals(expected.toString(), serializer.serializeToString(persons));
+    assertEquals(exercise(persons), serializer.serializeToString(persons));
+  }
+
+  public void testEscapeNonAscii() throws Throwable
+  {
+    String value = "a\u00A9\u4E2D\uD83D\uDE00\u001F";
+    assertEquals("\"a\u00A9\u4E2D\uD83D\uDE00\\u001f\"", exercise(value));
+
+    Serializer serializer = new Serializer(false, true);
+    StringWriter writer = new StringWriter();
+    serializer.serialize(writer, value);
+    assertEquals("\"a\\u00a9\\u4e2d\\ud83d\\ude00\\u001f\"", writer.toString());
+  }
+
+  public void testDashedNames() throws Throwable
+  {
+    Order order = new Order();
+    order.orderId = 1964;
+    order.customerName = "John Doe";
+
+    Serializer serializer = new Serializer(true);
+    StringWriter writer = new StringWriter();
+    serializer.serialize(writer, order);
+    assertEquals("{\"order-id\":1964,\"customer-name\":\"John Doe\"}", writer.toString());
+  }
+
   private static String exercise(Object value) throws Throwable
   {
     Serializer serializer = new Serializer();
@@ -177,6 +221,12 @@ public class SerializerUnitTest extends TestCase
     }
   }
 
+  private static class Order
+  {
+    int orderId;
+    String customerName;
+  }
+
   private static enum State
   {
     NONE, ALIVE, DEAD
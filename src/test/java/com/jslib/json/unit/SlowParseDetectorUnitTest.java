@@ -0,0 +1,153 @@
+package com.jslib.json.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.jslib.json.JsonImpl;
+import com.jslib.json.JsonInstrumentation;
+import com.jslib.json.JsonMetrics;
+import com.jslib.json.SlowParseDetector;
+
+public class SlowParseDetectorUnitTest
+{
+  private final JsonImpl json = new JsonImpl();
+
+  @After
+  public void afterTest()
+  {
+    JsonInstrumentation.install(null);
+  }
+
+  @Test
+  public void report()
+  {
+    MockDetector detector = new MockDetector(1, 0, TimeUnit.NANOSECONDS);
+    JsonInstrumentation.install(detector);
+
+    String value = "{\"name\":\"John\",\"children\":[{\"name\":\"Jane\",\"tags\":[\"a\",\"b\",\"c\"]},{\"name\":\"Joe\"}]}";
+    json.parse(value, Person.class);
+
+    assertEquals(1, detector.reports.size());
+    Report report = detector.reports.get(0);
+    assertEquals(Person.class, report.type);
+    assertEquals(value.length(), report.chars);
+    assertEquals(4, report.depth);
+    assertEquals(3, report.largestArray);
+    assertTrue(report.nanos > 0);
+    assertEquals(value.substring(value.length() - 64), report.sample);
+  }
+
+  @Test
+  public void boundedSample()
+  {
+    MockDetector detector = new MockDetector(1, 0, TimeUnit.NANOSECONDS);
+    JsonInstrumentation.install(detector);
+
+    StringBuilder value = new StringBuilder("[");
+    for(int i = 0; i < 1000; ++i) {
+      if(i > 0) {
+        value.append(',');
+      }
+      value.append(i);
+    }
+    value.append(']');
+    json.parse(value.toString(), int[].class);
+
+    Report report = detector.reports.get(0);
+    assertEquals(1000, report.largestArray);
+    assertEquals(1, report.depth);
+    assertEquals(64, report.sample.length());
+    assertTrue(value.toString().endsWith(report.sample));
+  }
+
+  @Test
+  public void fastParse()
+  {
+    MockDetector detector = new MockDetector(1, TimeUnit.HOURS);
+    JsonInstrumentation.install(detector);
+    json.parse("{\"name\":\"John\"}", Person.class);
+    assertEquals(0, detector.reports.size());
+  }
+
+  @Test
+  public void rateLimit() throws Exception
+  {
+    MockDetector detector = new MockDetector(1, 50000000, TimeUnit.NANOSECONDS);
+    JsonInstrumentation.install(detector);
+
+    json.parse("{\"name\":\"John\"}", Person.class);
+    json.parse("{\"name\":\"Jane\"}", Person.class);
+    json.parse("{\"name\":\"Joe\"}", Person.class);
+    assertEquals(1, detector.reports.size());
+    assertEquals(0, detector.reports.get(0).suppressed);
+
+    Thread.sleep(60);
+    json.parse("{\"name\":\"Jim\"}", Person.class);
+    assertEquals(2, detector.reports.size());
+    assertEquals(2, detector.reports.get(1).suppressed);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroThreshold()
+  {
+    new SlowParseDetector(0, TimeUnit.MILLISECONDS);
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // FIXTURE
+
+  private static class Person
+  {
+    String name;
+    List<Person> children;
+    String[] tags;
+  }
+
+  private static class Report
+  {
+    Type type;
+    long chars;
+    long nanos;
+    int depth;
+    int largestArray;
+    String sample;
+    long suppressed;
+  }
+
+  private static class MockDetector extends SlowParseDetector
+  {
+    final List<Report> reports = new ArrayList<>();
+
+    MockDetector(long threshold, TimeUnit unit)
+    {
+      super(threshold, unit);
+    }
+
+    MockDetector(long threshold, long interval, TimeUnit unit)
+    {
+      super(threshold, interval, unit);
+    }
+
+    @Override
+    protected void report(Type type, JsonMetrics metrics, long suppressed)
+    {
+      Report report = new Report();
+      report.type = type;
+      report.chars = metrics.chars();
+      report.nanos = metrics.nanos();
+      report.depth = metrics.depth();
+      report.largestArray = metrics.largestArray();
+      report.sample = metrics.sample();
+      report.suppressed = suppressed;
+      reports.add(report);
+    }
+  }
+}
@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.List;
 
 import com.jslib.json.ErrorReporter;
+import com.jslib.json.NamesCache;
 import com.jslib.util.Classes;
 
 import junit.framework.TestCase;
@@ -52,6 +53,26 @@ public class SupportClassesUnitTest extends TestCase
     assertEquals("orem ipsum dolor sit amet, consectetur adipisicing elit, sed do ", exerciseBuffer(sample.substring(0, BUFFER_SIZE + 1)));
   }
 
+  public void testNamesCache() throws Throwable
+  {
+    NamesCache cache = NamesCache.memberNames();
+    Method clear = NamesCache.class.getDeclaredMethod("clear");
+    clear.setAccessible(true);
+    clear.invoke(cache);
+
+    assertEquals("orderId", cache.get("order-id"));
+    assertEquals("orderId", cache.get("order-id"));
+    assertEquals("name", cache.get("name"));
+    assertNull(cache.get(null));
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.hits());
+    assertEquals(2, cache.misses());
+
+    assertEquals("order-id", NamesCache.dashedNames().get("orderId"));
+    assertEquals("name", NamesCache.dashedNames().get("name"));
+  }
+
   private static String exerciseBuffer(String sample) throws Throwable
   {
     ErrorReporter errorReporter = new ErrorReporter();
@@ -1,5 +1,6 @@
 package com.jslib.json.unit;
 
+import com.jslib.json.JsonParserException;
 import com.jslib.json.LexerValueBuilder;
 
 import junit.framework.TestCase;
@@ -42,6 +43,48 @@ public class ValueBuilderUnitTest extends TestCase
     assertEquals("©", exercise("\\u00A9"));
   }
 
+  public void testSurrogatePair() throws Throwable
+  {
+    assertEquals("\uD83D\uDE00", exercise("\\uD83D\\uDE00"));
+    assertEquals("a\uD83D\uDE00b", exercise("a\\ud83d\\ude00b"));
+  }
+
+  public void testUnpairedSurrogate() throws Throwable
+  {
+    for(String value : new String[]
+    {
+        "\\uD83Dx", "\\uD83D\\n", "\\uD83D\\u0041", "\\uDE00", "\\uDE00\\uD83D"
+    }) {
+      try {
+        exercise(value);
+        fail("Unpaired surrogate should rise exception.");
+      }
+      catch(JsonParserException expected) {
+        assertTrue(expected.getMessage().contains("Unpaired surrogate"));
+      }
+    }
+  }
+
+  public void testBulkAppend() throws Throwable
+  {
+    LexerValueBuilder builder = new LexerValueBuilder();
+    builder.append("John".toCharArray(), 0, 4);
+    builder.append('\\');
+    builder.append('u');
+    char[] chars = "00A9 Doe".toCharArray();
+    builder.append(chars, 0, chars.length);
+    assertEquals("John© Doe", builder.toString());
+  }
+
+  public void testBadUnicodeDigit() throws Throwable
+  {
+    try {
+      exercise("\\u00G9");
+      fail("Bad unicode digit should rise exception.");
+    }
+    catch(JsonParserException expected) {}
+  }
+
   public void testComplexValue() throws Throwable
   {
     assertEquals("123.45E2\"/\b\f\n\r\t©\"John Doe\",true,false", exercise("123.45E2\\\"\\/\\b\\f\\n\\r\\t\\u00A9\\\"John Doe\\\",true,false"));